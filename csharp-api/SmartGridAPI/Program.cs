@@ -25,6 +25,9 @@ builder.Services.AddDbContext<SmartGridDbContext>(options =>
 // Add services
 builder.Services.AddScoped<GridService>();
 
+// Accept gzip-compressed request bodies from the simulator
+builder.Services.AddRequestDecompression();
+
 // Add CORS for local development
 builder.Services.AddCors(options =>
 {
@@ -48,6 +51,7 @@ if (app.Environment.IsDevelopment())
     });
 }
 
+app.UseRequestDecompression();
 app.UseCors("AllowAll");
 app.UseHttpsRedirection();
 app.UseAuthorization();
@@ -0,0 +1,21 @@
+#!/bin/bash
+# Builds the simulator and JMH benchmarks, then runs them with machine-readable output.
+# Extra arguments are passed to JMH, e.g.:
+#   ./run-benchmarks.sh OptimizationBenchmark -p nodes=1000,100000
+#   ./run-benchmarks.sh OptimizationBenchmark -p strategy=greedy,heap -p nodes=10,1000
+
+set -e
+
+cd "$(dirname "$0")"
+
+mvn -q -f ../pom.xml install -DskipTests
+mvn -q package
+
+mkdir -p results
+stamp=$(date -u +%Y%m%dT%H%M%SZ)
+rev=$(git rev-parse --short HEAD 2>/dev/null || echo unknown)
+output="results/jmh-${stamp}-${rev}.json"
+
+java -jar target/benchmarks.jar -rf json -rff "$output" "$@"
+
+echo "Results written to benchmarks/$output"
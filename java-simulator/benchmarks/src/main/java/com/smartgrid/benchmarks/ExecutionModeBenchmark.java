@@ -0,0 +1,123 @@
+package com.smartgrid.benchmarks;
+
+import com.smartgrid.models.GridNode;
+import com.smartgrid.models.GridState;
+import com.smartgrid.services.ExecutionMode;
+import com.smartgrid.services.GridPartitioner;
+import com.smartgrid.services.LoadBalancer;
+import com.smartgrid.services.LoadBalancingStrategy;
+import com.smartgrid.services.PartitionedOptimizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compares {@code simulation.executor} modes on the engine's two kinds of work: CPU-bound
+ * partitioned optimization, and a fan-out of blocking calls (simulated API latency), each on
+ * its own thread from the mode's scheduler factory. On JDKs before 21 "virtual" runs on
+ * platform threads, so compare it there only against a Java 21 run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ExecutionModeBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Threads {
+        @Param({"platform", "virtual", "forkjoin"})
+        public String mode;
+
+        ExecutionMode executionMode;
+        ForkJoinPool pool;
+        ExecutorService workers;
+        ThreadFactory threadFactory;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            executionMode = ExecutionMode.forName(mode);
+            int threads = Runtime.getRuntime().availableProcessors();
+            pool = new ForkJoinPool(threads);
+            workers = executionMode.createWorkerPool(threads, pool);
+            threadFactory = executionMode.schedulerThreadFactory("bench-");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            workers.shutdown();
+            pool.shutdown();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Grid {
+        @Param({"1000", "100000"})
+        public int nodes;
+
+        GridState state;
+        double[] initialLoads;
+        List<GridNode> gridNodes;
+        PartitionedOptimizer optimizer;
+
+        @Setup(Level.Trial)
+        public void setUp(Threads threads) {
+            state = GridFixtures.gridState(nodes);
+            initialLoads = GridFixtures.loads(state, 0.1);
+            gridNodes = GridFixtures.views(state);
+            LoadBalancer balancer = new LoadBalancer(GridFixtures.OVERLOAD_THRESHOLD,
+                    GridFixtures.UNDERLOAD_THRESHOLD, LoadBalancingStrategy.forName("heap"));
+            optimizer = new PartitionedOptimizer(balancer, GridPartitioner.forName("region"), threads.workers);
+        }
+
+        @Setup(Level.Invocation)
+        public void resetLoads() {
+            GridFixtures.apply(state, initialLoads);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Calls {
+        @Param({"100", "1000"})
+        public int calls;
+
+        @Param({"1000"})
+        public long latencyMicros;
+    }
+
+    @Benchmark
+    public PartitionedOptimizer.Result partitionedOptimization(Grid grid) {
+        return grid.optimizer.optimize(grid.gridNodes);
+    }
+
+    @Benchmark
+    public int blockingFanOut(Threads threads, Calls calls) throws InterruptedException {
+        long latencyNanos = TimeUnit.MICROSECONDS.toNanos(calls.latencyMicros);
+        Thread[] started = new Thread[calls.calls];
+        for (int i = 0; i < started.length; i++) {
+            started[i] = threads.threadFactory.newThread(() -> LockSupport.parkNanos(latencyNanos));
+            started[i].start();
+        }
+        for (Thread thread : started) {
+            thread.join();
+        }
+        return started.length;
+    }
+}
@@ -0,0 +1,72 @@
+package com.smartgrid.benchmarks;
+
+import com.smartgrid.models.GridNode;
+import com.smartgrid.models.GridState;
+import com.smartgrid.models.LoadSource;
+import com.smartgrid.utils.SplitMix64;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic grid fixtures shared by the benchmarks.
+ */
+final class GridFixtures {
+    static final long SEED = 42L;
+    static final double OVERLOAD_THRESHOLD = 85.0;
+    static final double UNDERLOAD_THRESHOLD = 40.0;
+    private static final String[] REGIONS = {"North", "South", "East", "West", "Central"};
+
+    private GridFixtures() {
+    }
+
+    static GridState gridState(int nodes) {
+        SplitMix64 random = new SplitMix64(SEED);
+        GridState state = new GridState(nodes);
+        for (int i = 0; i < nodes; i++) {
+            state.addNode("NODE-" + (i + 1), REGIONS[i % REGIONS.length], 100.0 + random.nextDouble() * 50);
+        }
+        return state;
+    }
+
+    static List<GridNode> views(GridState state) {
+        List<GridNode> nodes = new ArrayList<>(state.size());
+        for (int i = 0; i < state.size(); i++) {
+            nodes.add(new GridNode(state, i));
+        }
+        return nodes;
+    }
+
+    static List<LoadSource> loadSources(int count) {
+        SplitMix64 random = new SplitMix64(SEED + 1);
+        List<LoadSource> sources = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String type = (i % 5 == 0) ? "PRODUCER" : "CONSUMER";
+            sources.add(new LoadSource("SOURCE", type, 10 + random.nextDouble() * 30,
+                    0.3 + random.nextDouble() * 0.4, SplitMix64.stream(SEED + 3, i)));
+        }
+        return sources;
+    }
+
+    /**
+     * Loads where {@code overloadFraction} of nodes sit at 90-150% utilization and the rest
+     * are spread over 10-80%.
+     */
+    static double[] loads(GridState state, double overloadFraction) {
+        SplitMix64 random = new SplitMix64(SEED + 2);
+        double[] loads = new double[state.size()];
+        for (int i = 0; i < loads.length; i++) {
+            double utilization = random.nextDouble() < overloadFraction
+                    ? 0.90 + random.nextDouble() * 0.60
+                    : 0.10 + random.nextDouble() * 0.70;
+            loads[i] = state.getCapacity(i) * utilization;
+        }
+        return loads;
+    }
+
+    static void apply(GridState state, double[] loads) {
+        for (int i = 0; i < loads.length; i++) {
+            state.setLoad(i, loads[i]);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.smartgrid.benchmarks;
+
+import com.smartgrid.models.GridState;
+import com.smartgrid.services.LoadAggregator;
+import com.smartgrid.services.SourceAssignment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One tick of source-to-node load aggregation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class LoadAggregationBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int nodes;
+
+    @Param({"1", "5"})
+    public int sourcesPerNode;
+
+    /** "auto" picks sequential or fork-join by source count; "sequential" forces a single thread. */
+    @Param({"auto", "sequential"})
+    public String mode;
+
+    private GridState state;
+    private SourceAssignment assignment;
+    private LoadAggregator aggregator;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        state = GridFixtures.gridState(nodes);
+        int sources = nodes * sourcesPerNode;
+        assignment = SourceAssignment.contiguous(nodes, sources);
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        aggregator = new LoadAggregator(state, GridFixtures.loadSources(sources), pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public double tick() {
+        if (mode.equals("sequential")) {
+            aggregator.aggregateRange(assignment, 0, nodes);
+        } else {
+            aggregator.aggregate(assignment, 4096, 16384);
+        }
+        return state.getLoad(nodes - 1);
+    }
+}
@@ -0,0 +1,72 @@
+package com.smartgrid.benchmarks;
+
+import com.smartgrid.models.GridNode;
+import com.smartgrid.models.GridState;
+import com.smartgrid.services.ActionBuffer;
+import com.smartgrid.services.LoadBalancer;
+import com.smartgrid.services.LoadBalancingStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full optimization pass from a fixed starting load distribution.
+ * The greedy strategy is O(O·U); run it with {@code -p strategy=greedy -p nodes=10,1000}
+ * rather than at the largest grid sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class OptimizationBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int nodes;
+
+    @Param({"0.01", "0.1", "0.3"})
+    public double overloadFraction;
+
+    @Param({"heap"})
+    public String strategy;
+
+    private GridState state;
+    private double[] initialLoads;
+    private List<GridNode> gridNodes;
+    private LoadBalancer loadBalancer;
+    private final ActionBuffer actions = new ActionBuffer();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        state = GridFixtures.gridState(nodes);
+        initialLoads = GridFixtures.loads(state, overloadFraction);
+        gridNodes = GridFixtures.views(state);
+        loadBalancer = new LoadBalancer(GridFixtures.OVERLOAD_THRESHOLD, GridFixtures.UNDERLOAD_THRESHOLD,
+                LoadBalancingStrategy.forName(strategy));
+    }
+
+    @Setup(Level.Invocation)
+    public void resetLoads() {
+        GridFixtures.apply(state, initialLoads);
+        actions.clear();
+    }
+
+    @Benchmark
+    public ActionBuffer optimize() {
+        loadBalancer.optimize(gridNodes, actions);
+        return actions;
+    }
+}
@@ -0,0 +1,53 @@
+package com.smartgrid.benchmarks;
+
+import com.smartgrid.models.GridState;
+import com.smartgrid.services.LoadBalancer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scanning the grid for nodes above the overload threshold.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class OverloadDetectionBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int nodes;
+
+    @Param({"0.01", "0.1", "0.3"})
+    public double overloadFraction;
+
+    private GridState state;
+    private int[] overloaded;
+    private LoadBalancer loadBalancer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        state = GridFixtures.gridState(nodes);
+        GridFixtures.apply(state, GridFixtures.loads(state, overloadFraction));
+        overloaded = new int[nodes];
+        loadBalancer = new LoadBalancer(GridFixtures.OVERLOAD_THRESHOLD, GridFixtures.UNDERLOAD_THRESHOLD);
+    }
+
+    @Benchmark
+    public int detect() {
+        return loadBalancer.detectOverloadedNodes(state, overloaded);
+    }
+}
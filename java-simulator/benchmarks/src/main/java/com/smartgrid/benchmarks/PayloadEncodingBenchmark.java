@@ -0,0 +1,71 @@
+package com.smartgrid.benchmarks;
+
+import com.smartgrid.models.GridState;
+import com.smartgrid.models.SensorFrame;
+import com.smartgrid.utils.ApiClient;
+import com.smartgrid.utils.BinaryPayloadEntity;
+import com.smartgrid.utils.BinaryTelemetryCodec;
+import com.smartgrid.utils.JsonPayloadEntity;
+import com.smartgrid.utils.SplitMix64;
+import com.smartgrid.utils.StreamingPayloadEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing a sensor report into a discarding stream, through the same entities ApiClient sends.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class PayloadEncodingBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    public int sensors;
+
+    @Param({"json", "binary"})
+    public String format;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    private StreamingPayloadEntity entity;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplitMix64 random = new SplitMix64(GridFixtures.SEED);
+        GridState state = GridFixtures.gridState(sensors);
+        SensorFrame frame = new SensorFrame(sensors);
+        frame.reset(0, BinaryTelemetryCodec.toEpochNanos(Instant.now()), sensors);
+        for (int i = 0; i < sensors; i++) {
+            frame.set(i, random.nextDouble() * 150, 400 + random.nextDouble() * 20, 60 + random.nextDouble() * 0.5);
+        }
+        String timestamp = BinaryTelemetryCodec.fromEpochNanos(frame.getTimestampNanos()).toString();
+        entity = format.equals("binary")
+                ? new BinaryPayloadEntity(out -> BinaryTelemetryCodec.encodeSensors(frame, 0, sensors, state, out), gzip)
+                : new JsonPayloadEntity<>(0, sensors,
+                    (writer, ordinal) -> ApiClient.writeSensor(writer, state, frame, ordinal, timestamp), gzip);
+    }
+
+    @Benchmark
+    public void encode() throws IOException {
+        entity.writeTo(OutputStream.nullOutputStream());
+    }
+}
@@ -1,26 +1,52 @@
 package com.smartgrid;
 
+import com.smartgrid.batch.BatchRunner;
+import com.smartgrid.batch.SweepDefinition;
+import com.smartgrid.services.SimulationCheckpoint;
 import com.smartgrid.services.SimulationEngine;
 import com.smartgrid.utils.ConfigLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
+
 /**
  * Main entry point for the Smart Grid Load Balancing Simulator.
+ * Usage: {@code SimulatorMain [config.properties]} for one simulation,
+ * {@code SimulatorMain --restore checkpoint [config.properties]} to continue one from a
+ * checkpoint (see {@link SimulationCheckpoint}), or
+ * {@code SimulatorMain --batch sweep.properties} to run a parameter sweep (see {@link SweepDefinition}).
  */
 public class SimulatorMain {
     private static final Logger logger = LoggerFactory.getLogger(SimulatorMain.class);
 
     public static void main(String[] args) {
         logger.info("=== Smart Grid Load Balancing Simulator ===");
+
+        if (args.length > 0 && args[0].equals("--batch")) {
+            runBatch(args.length > 1 ? args[1] : "sweep.properties");
+            return;
+        }
         
         try {
-            // Load configuration
-            String configFile = (args.length > 0) ? args[0] : "simulation.properties";
+            // Load configuration, and the checkpoint to continue from if any
+            SimulationCheckpoint checkpoint = null;
+            int configArg = 0;
+            if (args.length > 0 && args[0].equals("--restore")) {
+                if (args.length < 2) {
+                    throw new IllegalArgumentException("--restore needs a checkpoint file");
+                }
+                long start = System.nanoTime();
+                checkpoint = SimulationCheckpoint.read(Path.of(args[1]));
+                logger.info("Read checkpoint of tick {} ({} nodes) from {} in {} ms", checkpoint.getEpoch(),
+                        checkpoint.getNodeCount(), args[1], (System.nanoTime() - start) / 1_000_000);
+                configArg = 2;
+            }
+            String configFile = (args.length > configArg) ? args[configArg] : "simulation.properties";
             ConfigLoader config = new ConfigLoader(configFile);
             
             // Create and start simulation engine
-            SimulationEngine engine = new SimulationEngine(config);
+            SimulationEngine engine = new SimulationEngine(config, null, checkpoint);
             
             // Add shutdown hook for graceful termination
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -35,7 +61,7 @@ public class SimulatorMain {
             int duration = config.getSimulationDuration();
             logger.info("Simulation will run for {} seconds", duration);
             
-            Thread.sleep(duration * 1000L);
+            engine.runFor(duration * 1000L);
             
             // Stop simulation
             engine.stop();
@@ -46,4 +72,17 @@ public class SimulatorMain {
             System.exit(1);
         }
     }
+
+    private static void runBatch(String sweepFile) {
+        try {
+            new BatchRunner(SweepDefinition.load(sweepFile)).run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Batch interrupted");
+            System.exit(1);
+        } catch (Exception e) {
+            logger.error("Fatal error in batch", e);
+            System.exit(1);
+        }
+    }
 }
@@ -0,0 +1,229 @@
+package com.smartgrid.batch;
+
+import com.smartgrid.services.SimulationEngine;
+import com.smartgrid.utils.ConfigLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs every combination of a {@link SweepDefinition} in one JVM. At most {@code parallelism}
+ * simulations execute at once, each driving its own clock on a runner thread, while all of
+ * them share one fork-join pool for tick and partition work, so thread count stays bounded
+ * however many runs the sweep expands to. Results are written to a single CSV summary.
+ */
+public class BatchRunner {
+    private static final Logger logger = LoggerFactory.getLogger(BatchRunner.class);
+
+    private final SweepDefinition definition;
+
+    public BatchRunner(SweepDefinition definition) {
+        this.definition = definition;
+    }
+
+    /**
+     * Executes all runs and writes the summary; a failed run is reported, not fatal.
+     * @return Results in run order
+     */
+    public List<RunResult> run() throws IOException, InterruptedException {
+        List<Map<String, String>> runs = definition.expand();
+        int parallelism = Math.min(definition.getParallelism(), runs.size());
+        logger.info("Starting batch of {} runs ({} at a time, {} shared threads)",
+                runs.size(), parallelism, definition.getSharedThreads());
+
+        long start = System.nanoTime();
+        AtomicInteger finished = new AtomicInteger();
+        ForkJoinPool sharedPool = new ForkJoinPool(definition.getSharedThreads());
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService runners = Executors.newFixedThreadPool(parallelism,
+                runnable -> new Thread(runnable, "batch-runner-" + threadIndex.incrementAndGet()));
+        List<RunResult> results = new ArrayList<>(runs.size());
+        try {
+            List<Future<RunResult>> futures = new ArrayList<>(runs.size());
+            for (int i = 0; i < runs.size(); i++) {
+                int run = i;
+                futures.add(runners.submit(() -> {
+                    RunResult result = runOne(run, runs.get(run), sharedPool);
+                    logger.info("Run {}/{} {} in {} s {}", finished.incrementAndGet(), runs.size(),
+                            result.isSucceeded() ? "finished" : "FAILED",
+                            String.format("%.1f", result.getWallNanos() / 1e9), result.getParameters());
+                    return result;
+                }));
+            }
+            for (Future<RunResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    // runOne reports its own failures; anything here is a bug in the runner
+                    throw new IllegalStateException("Batch run crashed", e.getCause());
+                }
+            }
+        } finally {
+            runners.shutdownNow();
+            sharedPool.shutdownNow();
+        }
+
+        writeSummary(results, definition.getSummaryFile());
+        long failed = results.stream().filter(result -> !result.isSucceeded()).count();
+        logger.info("Batch finished: {} runs, {} failed, {} s; summary written to {}", results.size(), failed,
+                String.format("%.1f", (System.nanoTime() - start) / 1e9), definition.getSummaryFile());
+        return results;
+    }
+
+    private RunResult runOne(int run, Map<String, String> parameters, ForkJoinPool sharedPool) {
+        long start = System.nanoTime();
+        SimulationEngine engine = null;
+        try {
+            ConfigLoader config = definition.configFor(run, parameters);
+            engine = new SimulationEngine(config, sharedPool);
+            engine.start();
+            engine.runFor(config.getSimulationDuration() * 1000L);
+            return new RunResult(run, parameters, engine.getSeed(), System.nanoTime() - start,
+                    engine.getMetrics().attributes(), null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new RunResult(run, parameters, 0, System.nanoTime() - start, Map.of(), "interrupted");
+        } catch (Exception e) {
+            logger.error("Run {} {} failed", run, parameters, e);
+            return new RunResult(run, parameters, engine == null ? 0 : engine.getSeed(),
+                    System.nanoTime() - start, Map.of(), String.valueOf(e.getMessage()));
+        } finally {
+            if (engine != null) {
+                engine.stop();
+            }
+        }
+    }
+
+    /**
+     * Writes one CSV row per run: run, status, seed, wall time, sweep parameters, then every
+     * metric attribute any run reported (empty where a run did not), and the error if failed.
+     */
+    void writeSummary(List<RunResult> results, Path file) throws IOException {
+        Set<String> metricNames = new TreeSet<>();
+        for (RunResult result : results) {
+            metricNames.addAll(result.getMetrics().keySet());
+        }
+        List<String> sweepKeys = definition.getSweepKeys();
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            StringBuilder line = new StringBuilder("run,status,seed,wall_seconds");
+            for (String key : sweepKeys) {
+                line.append(',').append(key);
+            }
+            for (String name : metricNames) {
+                line.append(',').append(name);
+            }
+            writer.write(line.append(",error").toString());
+            writer.newLine();
+
+            for (RunResult result : results) {
+                line.setLength(0);
+                line.append(result.getRun()).append(',')
+                        .append(result.isSucceeded() ? "ok" : "failed").append(',')
+                        .append(result.getSeed()).append(',')
+                        .append(String.format("%.3f", result.getWallNanos() / 1e9));
+                for (String key : sweepKeys) {
+                    line.append(',').append(quote(result.getParameters().get(key)));
+                }
+                for (String name : metricNames) {
+                    Double value = result.getMetrics().get(name);
+                    line.append(',');
+                    if (value != null) {
+                        line.append(value);
+                    }
+                }
+                line.append(',').append(quote(result.getError()));
+                writer.write(line.toString());
+                writer.newLine();
+            }
+        }
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"").replace('\n', ' ') + '"';
+    }
+
+    /**
+     * Outcome of one run of the sweep.
+     */
+    public static class RunResult {
+        private final int run;
+        private final Map<String, String> parameters;
+        private final long seed;
+        private final long wallNanos;
+        private final Map<String, Double> metrics;
+        private final String error;
+
+        RunResult(int run, Map<String, String> parameters, long seed, long wallNanos,
+                  Map<String, Double> metrics, String error) {
+            this.run = run;
+            this.parameters = Collections.unmodifiableMap(new LinkedHashMap<>(parameters));
+            this.seed = seed;
+            this.wallNanos = wallNanos;
+            this.metrics = Collections.unmodifiableMap(new LinkedHashMap<>(metrics));
+            this.error = error;
+        }
+
+        public int getRun() {
+            return run;
+        }
+
+        public Map<String, String> getParameters() {
+            return parameters;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        public long getWallNanos() {
+            return wallNanos;
+        }
+
+        /**
+         * @return Final metric values, as exposed over JMX; empty for failed runs
+         */
+        public Map<String, Double> getMetrics() {
+            return metrics;
+        }
+
+        /**
+         * @return Failure message, or null if the run completed
+         */
+        public String getError() {
+            return error;
+        }
+
+        public boolean isSucceeded() {
+            return error == null;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.smartgrid.batch;
+
+import com.smartgrid.utils.ConfigLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Parameter sweep: a base configuration, overrides applied to every run, and lists of values
+ * whose cartesian product defines the runs. Sweep files use properties syntax:
+ * <pre>
+ * base=simulation.properties              # classpath resource every run starts from
+ * parallelism=4                           # simulations executing at once (default: cores)
+ * sharedThreads=4                         # fork-join threads shared by all runs (default: cores)
+ * summary=batch-summary.csv               # aggregated results, one row per run
+ * set.simulation.duration=3600            # applied to every run
+ * sweep.grid.overloadThreshold=80,85,90   # one run per combination of sweep values
+ * sweep.simulation.seed=1,2,3
+ * </pre>
+ * Unless overridden with {@code set.}, runs use the virtual clock, the shared fork-join pool,
+ * and no API, HTTP or JMX endpoints, which would otherwise collide or flood between runs.
+ * Recordings and checkpoints, when enabled, are written per run.
+ */
+public class SweepDefinition {
+    static final Map<String, String> BATCH_DEFAULTS = Map.of(
+            "simulation.clock", "virtual",
+            "simulation.executor", "forkjoin",
+            "api.enabled", "false",
+            "metrics.httpEnabled", "false",
+            "metrics.jmxEnabled", "false");
+
+    private final Properties base;
+    private final Map<String, String> overrides;
+    private final Map<String, List<String>> sweeps;
+    private final int parallelism;
+    private final int sharedThreads;
+    private final Path summaryFile;
+
+    public SweepDefinition(Properties base, Map<String, String> overrides, Map<String, List<String>> sweeps,
+                           int parallelism, int sharedThreads, Path summaryFile) {
+        if (parallelism <= 0 || sharedThreads <= 0) {
+            throw new IllegalArgumentException("parallelism and sharedThreads must be positive");
+        }
+        this.base = new Properties();
+        this.base.putAll(base);
+        this.overrides = Collections.unmodifiableMap(new LinkedHashMap<>(overrides));
+        this.sweeps = Collections.unmodifiableMap(new LinkedHashMap<>(sweeps));
+        this.parallelism = parallelism;
+        this.sharedThreads = sharedThreads;
+        this.summaryFile = summaryFile;
+    }
+
+    /**
+     * Loads a sweep from a filesystem path, falling back to a classpath resource.
+     */
+    public static SweepDefinition load(String location) throws IOException {
+        Properties properties = new Properties();
+        Path path = Path.of(location);
+        if (Files.isRegularFile(path)) {
+            try (InputStream input = Files.newInputStream(path)) {
+                properties.load(new InputStreamReader(input, StandardCharsets.UTF_8));
+            }
+        } else {
+            try (InputStream input = SweepDefinition.class.getClassLoader().getResourceAsStream(location)) {
+                if (input == null) {
+                    throw new IOException("Unable to find " + location);
+                }
+                properties.load(new InputStreamReader(input, StandardCharsets.UTF_8));
+            }
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        Map<String, String> overrides = new TreeMap<>();
+        Map<String, List<String>> sweeps = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            String value = properties.getProperty(key).trim();
+            if (key.startsWith("set.")) {
+                overrides.put(key.substring("set.".length()), value);
+            } else if (key.startsWith("sweep.")) {
+                List<String> values = new ArrayList<>();
+                for (String field : value.split(",")) {
+                    if (!field.isBlank()) {
+                        values.add(field.trim());
+                    }
+                }
+                if (values.isEmpty()) {
+                    throw new IOException(location + ": " + key + " has no values");
+                }
+                sweeps.put(key.substring("sweep.".length()), values);
+            }
+        }
+        try {
+            return new SweepDefinition(
+                    new ConfigLoader(properties.getProperty("base", "simulation.properties")).toProperties(),
+                    overrides,
+                    sweeps,
+                    Integer.parseInt(properties.getProperty("parallelism", String.valueOf(cores)).trim()),
+                    Integer.parseInt(properties.getProperty("sharedThreads", String.valueOf(cores)).trim()),
+                    Path.of(properties.getProperty("summary", "batch-summary.csv").trim()));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(location + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return Every combination of sweep values, in sweep-key order with the last key varying fastest
+     */
+    public List<Map<String, String>> expand() {
+        List<Map<String, String>> combinations = new ArrayList<>();
+        combinations.add(new LinkedHashMap<>());
+        for (Map.Entry<String, List<String>> sweep : sweeps.entrySet()) {
+            List<Map<String, String>> next = new ArrayList<>(combinations.size() * sweep.getValue().size());
+            for (Map<String, String> combination : combinations) {
+                for (String value : sweep.getValue()) {
+                    Map<String, String> extended = new LinkedHashMap<>(combination);
+                    extended.put(sweep.getKey(), value);
+                    next.add(extended);
+                }
+            }
+            combinations = next;
+        }
+        return combinations;
+    }
+
+    /**
+     * @return Configuration for one run: base, batch defaults, overrides, then the run's sweep
+     *         values; recordings go to a per-run subdirectory and checkpoints to a per-run file,
+     *         so concurrent runs never share one
+     */
+    public ConfigLoader configFor(int run, Map<String, String> parameters) {
+        Properties properties = new Properties();
+        properties.putAll(base);
+        properties.putAll(BATCH_DEFAULTS);
+        properties.putAll(overrides);
+        properties.putAll(parameters);
+        ConfigLoader config = new ConfigLoader(properties);
+        boolean perRun = false;
+        if (config.isRecorderEnabled()) {
+            properties.setProperty("recorder.directory",
+                    Path.of(config.getRecorderDirectory(), "batch-run-" + run).toString());
+            perRun = true;
+        }
+        if (config.isCheckpointEnabled()) {
+            properties.setProperty("checkpoint.file", perRunFile(config.getCheckpointFile(), run));
+            perRun = true;
+        }
+        return perRun ? new ConfigLoader(properties) : config;
+    }
+
+    /**
+     * @return The file name with "-batch-run-N" inserted before its extension
+     */
+    private static String perRunFile(String file, int run) {
+        Path path = Path.of(file);
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String runName = dot > 0
+                ? name.substring(0, dot) + "-batch-run-" + run + name.substring(dot)
+                : name + "-batch-run-" + run;
+        return path.resolveSibling(runName).toString();
+    }
+
+    public List<String> getSweepKeys() {
+        return new ArrayList<>(sweeps.keySet());
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getSharedThreads() {
+        return sharedThreads;
+    }
+
+    public Path getSummaryFile() {
+        return summaryFile;
+    }
+}
@@ -0,0 +1,45 @@
+package com.smartgrid.metrics;
+
+import java.util.Map;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Monotonic counter; adds from many threads never contend on a single cell.
+ */
+public class Counter extends Metric {
+    private final DoubleAdder value = new DoubleAdder();
+
+    Counter(String name, String help) {
+        super(name, help);
+    }
+
+    public void increment() {
+        value.add(1.0);
+    }
+
+    public void add(double amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Counters only increase: " + amount);
+        }
+        value.add(amount);
+    }
+
+    public double get() {
+        return value.sum();
+    }
+
+    @Override
+    String type() {
+        return "counter";
+    }
+
+    @Override
+    void writeSamples(StringBuilder out) {
+        writeSample(out, getName(), null, get());
+    }
+
+    @Override
+    void collectAttributes(Map<String, Double> attributes) {
+        attributes.put(getName(), get());
+    }
+}
@@ -0,0 +1,57 @@
+package com.smartgrid.metrics;
+
+import java.util.Map;
+
+/**
+ * Base for named metrics held by a {@link MetricsRegistry}.
+ */
+public abstract class Metric {
+    private final String name;
+    private final String help;
+
+    protected Metric(String name, String help) {
+        this.name = name;
+        this.help = help;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHelp() {
+        return help;
+    }
+
+    /**
+     * @return Prometheus metric type ("counter", "gauge" or "summary")
+     */
+    abstract String type();
+
+    /**
+     * Appends this metric's sample lines in Prometheus text format (without HELP/TYPE).
+     */
+    abstract void writeSamples(StringBuilder out);
+
+    /**
+     * Adds this metric's JMX attributes, keyed by attribute name.
+     */
+    abstract void collectAttributes(Map<String, Double> attributes);
+
+    static void writeSample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (labels != null) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ');
+        if (Double.isNaN(value)) {
+            out.append("NaN");
+        } else if (Double.isInfinite(value)) {
+            out.append(value > 0 ? "+Inf" : "-Inf");
+        } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+}
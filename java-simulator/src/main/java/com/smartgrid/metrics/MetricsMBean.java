@@ -0,0 +1,103 @@
+package com.smartgrid.metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+/**
+ * Read-only JMX view of a registry: each counter and gauge is one attribute, each histogram
+ * contributes _count, _mean, _p50, _p99 and _max attributes in exported units.
+ */
+public class MetricsMBean implements DynamicMBean {
+    private final MetricsRegistry registry;
+    private final ObjectName objectName;
+
+    private MetricsMBean(MetricsRegistry registry, ObjectName objectName) {
+        this.registry = registry;
+        this.objectName = objectName;
+    }
+
+    /**
+     * Registers the registry with the platform MBean server under {@code objectName}.
+     */
+    public static MetricsMBean register(MetricsRegistry registry, String objectName) throws JMException {
+        MetricsMBean bean = new MetricsMBean(registry, new ObjectName(objectName));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(bean, bean.objectName);
+        return bean;
+    }
+
+    public void unregister() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            // Already gone; nothing to release
+        }
+    }
+
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Double value = registry.attributes().get(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        return value;
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        Map<String, Double> values = registry.attributes();
+        AttributeList list = new AttributeList();
+        for (String name : attributes) {
+            Double value = values.get(name);
+            if (value != null) {
+                list.add(new Attribute(name, value));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Rejects every write as the MBean server does for a read-only attribute.
+     */
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName), "No operations: " + actionName);
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        Map<String, Double> values = registry.attributes();
+        MBeanAttributeInfo[] infos = new MBeanAttributeInfo[values.size()];
+        int i = 0;
+        for (String name : values.keySet()) {
+            infos[i++] = new MBeanAttributeInfo(name, Double.class.getName(), name, true, false, false);
+        }
+        return new MBeanInfo(getClass().getName(), "Smart grid simulation metrics", infos, null, null, null);
+    }
+}
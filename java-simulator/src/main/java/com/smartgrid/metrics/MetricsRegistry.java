@@ -0,0 +1,108 @@
+package com.smartgrid.metrics;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Named set of counters, histograms and gauges. Metrics are created once at startup and
+ * updated without locks on hot paths; exporters read the current values on demand.
+ */
+public class MetricsRegistry {
+    public static final double NANOS_TO_SECONDS = 1e-9;
+
+    private final Map<String, Metric> metrics = new ConcurrentSkipListMap<>();
+
+    public Counter counter(String name, String help) {
+        return register(new Counter(name, help));
+    }
+
+    /**
+     * @param exportScale Multiplier from recorded units to exported units (1.0 for plain counts)
+     */
+    public Histogram histogram(String name, String help, double exportScale) {
+        return register(new Histogram(name, help, exportScale));
+    }
+
+    /**
+     * Registers a gauge whose value is read from {@code value} at export time.
+     */
+    public void gauge(String name, String help, DoubleSupplier value) {
+        register(new FunctionMetric(name, help, "gauge", value));
+    }
+
+    /**
+     * Registers a counter whose (monotonic) value is maintained elsewhere and read at export time.
+     */
+    public void counter(String name, String help, DoubleSupplier value) {
+        register(new FunctionMetric(name, help, "counter", value));
+    }
+
+    public Metric get(String name) {
+        return metrics.get(name);
+    }
+
+    public Collection<Metric> getMetrics() {
+        return metrics.values();
+    }
+
+    /**
+     * @return All metrics in Prometheus text exposition format (version 0.0.4)
+     */
+    public String toPrometheusText() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Metric metric : metrics.values()) {
+            out.append("# HELP ").append(metric.getName()).append(' ')
+                    .append(metric.getHelp().replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+            out.append("# TYPE ").append(metric.getName()).append(' ').append(metric.type()).append('\n');
+            metric.writeSamples(out);
+        }
+        return out.toString();
+    }
+
+    /**
+     * @return Flattened attribute view, as exposed over JMX
+     */
+    public Map<String, Double> attributes() {
+        Map<String, Double> attributes = new LinkedHashMap<>();
+        for (Metric metric : metrics.values()) {
+            metric.collectAttributes(attributes);
+        }
+        return attributes;
+    }
+
+    private <T extends Metric> T register(T metric) {
+        if (metrics.putIfAbsent(metric.getName(), metric) != null) {
+            throw new IllegalArgumentException("Metric already registered: " + metric.getName());
+        }
+        return metric;
+    }
+
+    private static final class FunctionMetric extends Metric {
+        private final String type;
+        private final DoubleSupplier value;
+
+        FunctionMetric(String name, String help, String type, DoubleSupplier value) {
+            super(name, help);
+            this.type = type;
+            this.value = value;
+        }
+
+        @Override
+        String type() {
+            return type;
+        }
+
+        @Override
+        void writeSamples(StringBuilder out) {
+            writeSample(out, getName(), null, value.getAsDouble());
+        }
+
+        @Override
+        void collectAttributes(Map<String, Double> attributes) {
+            attributes.put(getName(), value.getAsDouble());
+        }
+    }
+}
@@ -1,87 +1,68 @@
 package com.smartgrid.models;
 
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-
 /**
  * Represents a grid node (substation) in the smart grid network.
- * Thread-safe implementation using ReadWriteLock for concurrent access.
+ * Thin view over a {@link GridState} slot; all reads and writes go straight to the
+ * backing primitive arrays without locking.
  */
 public class GridNode {
-    private final String nodeId;
-    private final String region;
-    private volatile double currentLoad; // in MW
-    private volatile double capacity; // in MW
-    private final ReentrantReadWriteLock lock;
+    private final GridState state;
+    private final int ordinal;
 
     public GridNode(String nodeId, String region, double capacity) {
-        this.nodeId = nodeId;
-        this.region = region;
-        this.capacity = capacity;
-        this.currentLoad = 0.0;
-        this.lock = new ReentrantReadWriteLock();
+        this.state = new GridState(1);
+        this.ordinal = state.addNode(nodeId, region, capacity);
+    }
+
+    public GridNode(GridState state, int ordinal) {
+        this.state = state;
+        this.ordinal = ordinal;
+    }
+
+    public GridState getState() {
+        return state;
+    }
+
+    public int getOrdinal() {
+        return ordinal;
     }
 
     public String getNodeId() {
-        return nodeId;
+        return state.getNodeId(ordinal);
     }
 
     public String getRegion() {
-        return region;
+        return state.getRegion(ordinal);
     }
 
     public double getCurrentLoad() {
-        lock.readLock().lock();
-        try {
-            return currentLoad;
-        } finally {
-            lock.readLock().unlock();
-        }
+        return state.getLoad(ordinal);
     }
 
     public void setCurrentLoad(double currentLoad) {
-        lock.writeLock().lock();
-        try {
-            this.currentLoad = currentLoad;
-        } finally {
-            lock.writeLock().unlock();
-        }
+        state.setLoad(ordinal, currentLoad);
     }
 
     public double getCapacity() {
-        return capacity;
+        return state.getCapacity(ordinal);
     }
 
     public void setCapacity(double capacity) {
-        lock.writeLock().lock();
-        try {
-            this.capacity = capacity;
-        } finally {
-            lock.writeLock().unlock();
-        }
+        state.setCapacity(ordinal, capacity);
     }
 
     /**
      * @return Load utilization as a percentage (0-100+)
      */
     public double getUtilizationPercent() {
-        lock.readLock().lock();
-        try {
-            return (currentLoad / capacity) * 100.0;
-        } finally {
-            lock.readLock().unlock();
-        }
+        return state.getUtilizationPercent(ordinal);
     }
 
     /**
      * @return Available capacity in MW
      */
     public double getAvailableCapacity() {
-        lock.readLock().lock();
-        try {
-            return Math.max(0, capacity - currentLoad);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return state.getAvailableCapacity(ordinal);
     }
 
     public boolean isOverloaded(double threshold) {
@@ -90,7 +71,9 @@ public class GridNode {
 
     @Override
     public String toString() {
+        double load = getCurrentLoad();
+        double capacity = getCapacity();
         return String.format("GridNode[id=%s, region=%s, load=%.2f/%.2f MW, utilization=%.1f%%]",
-                nodeId, region, getCurrentLoad(), capacity, getUtilizationPercent());
+                getNodeId(), getRegion(), load, capacity, (load / capacity) * 100.0);
     }
 }
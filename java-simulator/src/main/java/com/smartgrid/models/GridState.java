@@ -0,0 +1,337 @@
+package com.smartgrid.models;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.DoubleBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Structure-of-arrays store for grid node state.
+ * Loads and capacities live in primitive arrays indexed by node ordinal, so hot loops
+ * read them without locks or pointer-chasing. Single-element access is atomic (opaque).
+ * <p>
+ * Writer phases (load updates, optimization) are bracketed by {@link #beginUpdate()} and
+ * {@link #endUpdate()}; phases run one at a time, and each completed phase publishes a
+ * tick-numbered {@link Snapshot} copy-on-write. Readers take {@link #snapshot()}
+ * lock-free and never observe a half-applied phase.
+ * <p>
+ * Snapshots are reference-counted so that publishing allocates nothing in steady state: once
+ * a snapshot is superseded and its last reader has closed it, its object and load array are
+ * reused for a later phase. A snapshot that is never closed is simply left to the garbage
+ * collector. Capacities are copied only when a phase changed one, into a new array that the
+ * following snapshots share, so that cost is bounded by the number of capacity changes.
+ */
+public class GridState {
+    private static final VarHandle DOUBLES = MethodHandles.arrayElementVarHandle(double[].class);
+
+    private final String[] nodeIds;
+    private final String[] regions;
+    private final String[] sensorIds; // derived lazily, see getSensorId
+    private final Map<String, Integer> ordinalsById;
+    private final double[] loads; // in MW
+    private final double[] capacities; // in MW
+    private final ReentrantLock writeLock;
+    private volatile Snapshot published; // null until first requested after nodes change
+    private final AtomicReference<Snapshot> spare; // superseded snapshot no reader holds, for reuse
+    private long epoch; // guarded by writeLock
+    private volatile boolean capacitiesChanged;
+    private volatile int size;
+
+    public GridState(int maxNodes) {
+        if (maxNodes <= 0) {
+            throw new IllegalArgumentException("maxNodes must be positive: " + maxNodes);
+        }
+        this.nodeIds = new String[maxNodes];
+        this.regions = new String[maxNodes];
+        this.sensorIds = new String[maxNodes];
+        this.ordinalsById = new ConcurrentHashMap<>();
+        this.loads = new double[maxNodes];
+        this.capacities = new double[maxNodes];
+        this.writeLock = new ReentrantLock();
+        this.spare = new AtomicReference<>();
+        this.size = 0;
+    }
+
+    /**
+     * Registers a node and returns its ordinal.
+     */
+    public synchronized int addNode(String nodeId, String region, double capacity) {
+        int ordinal = size;
+        if (ordinal >= nodeIds.length) {
+            throw new IllegalStateException("GridState is full (" + nodeIds.length + " nodes)");
+        }
+        nodeIds[ordinal] = nodeId;
+        regions[ordinal] = region;
+        ordinalsById.put(nodeId, ordinal);
+        DOUBLES.setOpaque(capacities, ordinal, capacity);
+        DOUBLES.setOpaque(loads, ordinal, 0.0);
+        size = ordinal + 1;
+        published = null;
+        return ordinal;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getNodeId(int ordinal) {
+        return nodeIds[ordinal];
+    }
+
+    /**
+     * @return Id of the node's sensor ("SENSOR-" + node id), built once on first use
+     */
+    public String getSensorId(int ordinal) {
+        String sensorId = sensorIds[ordinal];
+        if (sensorId == null) {
+            // Racing callers build equal strings; either may win
+            sensorId = "SENSOR-" + nodeIds[ordinal];
+            sensorIds[ordinal] = sensorId;
+        }
+        return sensorId;
+    }
+
+    /**
+     * @return Ordinal of the node with the given id, or -1 if there is none
+     */
+    public int ordinalOf(String nodeId) {
+        Integer ordinal = ordinalsById.get(nodeId);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    public String getRegion(int ordinal) {
+        return regions[ordinal];
+    }
+
+    public double getLoad(int ordinal) {
+        return (double) DOUBLES.getOpaque(loads, ordinal);
+    }
+
+    public void setLoad(int ordinal, double load) {
+        DOUBLES.setOpaque(loads, ordinal, load);
+    }
+
+    public double getCapacity(int ordinal) {
+        return (double) DOUBLES.getOpaque(capacities, ordinal);
+    }
+
+    public void setCapacity(int ordinal, double capacity) {
+        DOUBLES.setOpaque(capacities, ordinal, capacity);
+        capacitiesChanged = true;
+    }
+
+    /**
+     * @return Load utilization as a percentage (0-100+)
+     */
+    public double getUtilizationPercent(int ordinal) {
+        return (getLoad(ordinal) / getCapacity(ordinal)) * 100.0;
+    }
+
+    /**
+     * @return Available capacity in MW
+     */
+    public double getAvailableCapacity(int ordinal) {
+        return Math.max(0, getCapacity(ordinal) - getLoad(ordinal));
+    }
+
+    /**
+     * Starts a writer phase, waiting for any other phase to finish first.
+     * Calls must be paired with {@link #endUpdate()} in a finally block.
+     */
+    public void beginUpdate() {
+        writeLock.lock();
+    }
+
+    /**
+     * Ends the current writer phase and publishes its result as the next snapshot.
+     */
+    public void endUpdate() {
+        try {
+            epoch++;
+            publish();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Ends a writer phase that changed nothing, such as a checkpoint capture, without
+     * publishing a new tick.
+     */
+    public void endUpdateUnchanged() {
+        writeLock.unlock();
+    }
+
+    /**
+     * Overwrites every node's load and capacity and the tick number, as read from a checkpoint,
+     * and publishes them as the latest snapshot.
+     */
+    public void restore(long epoch, double[] loads, double[] capacities) {
+        writeLock.lock();
+        try {
+            int n = size;
+            if (loads.length != n || capacities.length != n) {
+                throw new IllegalArgumentException("Restored state covers " + loads.length + " nodes but grid has " + n);
+            }
+            for (int i = 0; i < n; i++) {
+                DOUBLES.setOpaque(this.loads, i, loads[i]);
+                DOUBLES.setOpaque(this.capacities, i, capacities[i]);
+            }
+            this.epoch = epoch;
+            capacitiesChanged = true;
+            publish();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return Number of completed writer phases (the tick number of the latest snapshot)
+     */
+    public long getEpoch() {
+        try (Snapshot current = snapshot()) {
+            return current.getEpoch();
+        }
+    }
+
+    /**
+     * Takes the latest published snapshot, to be closed once read, ideally in a
+     * try-with-resources block; never blocks unless nodes were added since the last one.
+     */
+    public Snapshot snapshot() {
+        while (true) {
+            Snapshot current = published;
+            if (current == null) {
+                break;
+            }
+            // Fails only if the snapshot was superseded and released meanwhile; reread
+            if (current.retain()) {
+                return current;
+            }
+        }
+        writeLock.lock();
+        try {
+            if (published == null) {
+                capacitiesChanged = true;
+                publish();
+            }
+            Snapshot current = published;
+            current.retain(); // holds while we own the lock: only publish() releases it
+            return current;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void publish() {
+        int n = size;
+        Snapshot previous = published;
+        Snapshot next = spare.getAndSet(null);
+        if (next == null || next.loads.length != n) {
+            next = new Snapshot(this, new double[n]);
+        }
+        System.arraycopy(loads, 0, next.loads, 0, n);
+        // Capacities rarely change, so consecutive snapshots share the same array
+        if (capacitiesChanged || previous == null || previous.capacities.length != n) {
+            next.capacities = new double[n];
+            System.arraycopy(capacities, 0, next.capacities, 0, n);
+            capacitiesChanged = false;
+        } else {
+            next.capacities = previous.capacities;
+        }
+        next.epoch = epoch;
+        next.references.set(1); // the published reference; readers can retain it from here on
+        published = next;
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Point-in-time copy of node loads and capacities, unchanged until its reader closes it.
+     * Close each snapshot taken from {@link GridState#snapshot()} exactly once, and do not read
+     * it afterwards: its arrays may already hold a later phase.
+     */
+    public static final class Snapshot implements AutoCloseable {
+        private final GridState owner;
+        private final double[] loads;
+        private final AtomicInteger references; // readers, plus one while published; 0 once recyclable
+        private double[] capacities; // shared with neighbouring snapshots, never written after publication
+        private long epoch;
+
+        private Snapshot(GridState owner, double[] loads) {
+            this.owner = owner;
+            this.loads = loads;
+            this.references = new AtomicInteger();
+        }
+
+        /**
+         * @return Whether the snapshot was still held, and is now held by one more reader
+         */
+        private boolean retain() {
+            int count;
+            do {
+                count = references.get();
+                if (count == 0) {
+                    return false;
+                }
+            } while (!references.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        /**
+         * Releases the reader's hold; the last release of a superseded snapshot offers it for reuse.
+         */
+        @Override
+        public void close() {
+            int count = references.decrementAndGet();
+            if (count == 0) {
+                owner.spare.set(this);
+            } else if (count < 0) {
+                throw new IllegalStateException("Snapshot of tick " + epoch + " closed more often than taken");
+            }
+        }
+
+        public long getEpoch() {
+            return epoch;
+        }
+
+        public int size() {
+            return loads.length;
+        }
+
+        public double getLoad(int ordinal) {
+            return loads[ordinal];
+        }
+
+        public double getCapacity(int ordinal) {
+            return capacities[ordinal];
+        }
+
+        public double getUtilizationPercent(int ordinal) {
+            return (loads[ordinal] / capacities[ordinal]) * 100.0;
+        }
+
+        public double getAvailableCapacity(int ordinal) {
+            return Math.max(0, capacities[ordinal] - loads[ordinal]);
+        }
+
+        /**
+         * Bulk-copies all loads, in ordinal order, into {@code target} (e.g. a mapped file region).
+         */
+        public void copyLoadsTo(DoubleBuffer target) {
+            target.put(loads, 0, loads.length);
+        }
+
+        /**
+         * Bulk-copies all capacities, in ordinal order, into {@code target}.
+         */
+        public void copyCapacitiesTo(DoubleBuffer target) {
+            target.put(capacities, 0, capacities.length);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.smartgrid.models;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Physical connectivity of the grid: undirected transmission lines with capacity limits,
+ * stored as a compressed sparse adjacency structure over {@link GridState} ordinals.
+ * Neighbours of node {@code n} are adjacency entries {@code offsets[n] .. offsets[n + 1] - 1}.
+ */
+public final class GridTopology {
+    private final int nodeCount;
+    private final int[] offsets;
+    private final int[] neighbors; // adjacency entry -> neighbouring node
+    private final int[] entryLines; // adjacency entry -> line index
+    private final int[] lineFrom;
+    private final int[] lineTo;
+    private final double[] lineCapacities; // in MW
+
+    private GridTopology(int nodeCount, int[] lineFrom, int[] lineTo, double[] lineCapacities) {
+        this.nodeCount = nodeCount;
+        this.lineFrom = lineFrom;
+        this.lineTo = lineTo;
+        this.lineCapacities = lineCapacities;
+        this.offsets = new int[nodeCount + 1];
+
+        for (int line = 0; line < lineFrom.length; line++) {
+            offsets[lineFrom[line] + 1]++;
+            offsets[lineTo[line] + 1]++;
+        }
+        for (int n = 0; n < nodeCount; n++) {
+            offsets[n + 1] += offsets[n];
+        }
+
+        int[] cursor = Arrays.copyOf(offsets, nodeCount);
+        this.neighbors = new int[offsets[nodeCount]];
+        this.entryLines = new int[offsets[nodeCount]];
+        for (int line = 0; line < lineFrom.length; line++) {
+            int a = lineFrom[line];
+            int b = lineTo[line];
+            neighbors[cursor[a]] = b;
+            entryLines[cursor[a]++] = line;
+            neighbors[cursor[b]] = a;
+            entryLines[cursor[b]++] = line;
+        }
+    }
+
+    /**
+     * Builds a topology from parallel line arrays of node ordinals and capacities.
+     */
+    public static GridTopology fromLines(int nodeCount, int[] from, int[] to, double[] capacities) {
+        if (from.length != to.length || from.length != capacities.length) {
+            throw new IllegalArgumentException("Line arrays must have equal length");
+        }
+        for (int line = 0; line < from.length; line++) {
+            if (from[line] < 0 || from[line] >= nodeCount || to[line] < 0 || to[line] >= nodeCount) {
+                throw new IllegalArgumentException("Line " + line + " references an unknown node");
+            }
+            if (from[line] == to[line]) {
+                throw new IllegalArgumentException("Line " + line + " connects a node to itself");
+            }
+            if (capacities[line] < 0) {
+                throw new IllegalArgumentException("Line " + line + " has negative capacity");
+            }
+        }
+        return new GridTopology(nodeCount, from.clone(), to.clone(), capacities.clone());
+    }
+
+    /**
+     * Loads lines from a filesystem path or, failing that, a classpath resource.
+     * Each non-blank, non-comment line is {@code fromNodeId,toNodeId,capacityMW}.
+     */
+    public static GridTopology load(String location, GridState state) throws IOException {
+        Path path = Path.of(location);
+        if (Files.isRegularFile(path)) {
+            try (InputStream input = Files.newInputStream(path)) {
+                return parse(input, location, state);
+            }
+        }
+        try (InputStream input = GridTopology.class.getClassLoader().getResourceAsStream(location)) {
+            if (input == null) {
+                throw new IOException("Unable to find " + location);
+            }
+            return parse(input, location, state);
+        }
+    }
+
+    private static GridTopology parse(InputStream input, String location, GridState state) throws IOException {
+        Map<String, Integer> ordinals = new HashMap<>();
+        for (int i = 0; i < state.size(); i++) {
+            ordinals.put(state.getNodeId(i), i);
+        }
+
+        int count = 0;
+        int[] from = new int[16];
+        int[] to = new int[16];
+        double[] capacities = new double[16];
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                if (fields.length != 3) {
+                    throw new IOException(location + ":" + lineNumber + ": expected fromNodeId,toNodeId,capacityMW");
+                }
+                Integer a = ordinals.get(fields[0].trim());
+                Integer b = ordinals.get(fields[1].trim());
+                if (a == null || b == null) {
+                    throw new IOException(location + ":" + lineNumber + ": unknown node in '" + line + "'");
+                }
+                if (count == from.length) {
+                    from = Arrays.copyOf(from, count * 2);
+                    to = Arrays.copyOf(to, count * 2);
+                    capacities = Arrays.copyOf(capacities, count * 2);
+                }
+                from[count] = a;
+                to[count] = b;
+                try {
+                    capacities[count] = Double.parseDouble(fields[2].trim());
+                } catch (NumberFormatException e) {
+                    throw new IOException(location + ":" + lineNumber + ": invalid capacity '" + fields[2] + "'", e);
+                }
+                count++;
+            }
+        }
+        return fromLines(state.size(), Arrays.copyOf(from, count), Arrays.copyOf(to, count),
+                Arrays.copyOf(capacities, count));
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getLineCount() {
+        return lineFrom.length;
+    }
+
+    public int start(int node) {
+        return offsets[node];
+    }
+
+    public int end(int node) {
+        return offsets[node + 1];
+    }
+
+    public int neighborAt(int entry) {
+        return neighbors[entry];
+    }
+
+    public int lineAt(int entry) {
+        return entryLines[entry];
+    }
+
+    public int getLineFrom(int line) {
+        return lineFrom[line];
+    }
+
+    public int getLineTo(int line) {
+        return lineTo[line];
+    }
+
+    public double getLineCapacity(int line) {
+        return lineCapacities[line];
+    }
+}
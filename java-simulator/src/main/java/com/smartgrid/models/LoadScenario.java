@@ -0,0 +1,298 @@
+package com.smartgrid.models;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * Load profile scenario: time-of-day curves for consumers and producers, correlated regional
+ * shocks, and timed events (surges, outages, weather) targeting a share of sources.
+ * Scenario files use properties syntax:
+ * <pre>
+ * startTime=06:00                   # time of day at simulated time zero
+ * timeScale=1.0                     # scenario seconds per simulated second
+ * consumer.curve=0.6,0.55,...       # 24 hourly multipliers, interpolated linearly
+ * producer.curve=0,0,...,1.0,...    # same, for producers
+ * noise.scale=1.0                   # multiplies each source's variability
+ * shock.sigma=0.02                  # per-update std-dev of the regional shock factor
+ * shock.persistence=0.95            # AR(1) coefficient; higher = slower-moving shocks
+ * event.ev.start=18:00              # events are keyed by id
+ * event.ev.durationMinutes=120
+ * event.ev.rampMinutes=20
+ * event.ev.multiplier=1.8
+ * event.ev.sources=consumer         # consumer, producer or all
+ * event.ev.region=North             # optional; all regions if unset
+ * event.ev.fraction=0.25            # share of matching sources affected (chosen by seed)
+ * event.ev.day=0                    # optional; 0-based scenario day, every day if unset
+ * </pre>
+ */
+public class LoadScenario {
+    public static final int SECONDS_PER_DAY = 24 * 60 * 60;
+
+    private final String name;
+    private final int startSecondOfDay;
+    private final double timeScale;
+    private final double[] consumerCurve;
+    private final double[] producerCurve;
+    private final double noiseScale;
+    private final double shockSigma;
+    private final double shockPersistence;
+    private final List<Event> events;
+
+    public LoadScenario(String name, int startSecondOfDay, double timeScale, double[] consumerCurve,
+                        double[] producerCurve, double noiseScale, double shockSigma, double shockPersistence,
+                        List<Event> events) {
+        if (consumerCurve.length != 24 || producerCurve.length != 24) {
+            throw new IllegalArgumentException("Curves need 24 hourly values");
+        }
+        this.name = name;
+        this.startSecondOfDay = startSecondOfDay;
+        this.timeScale = timeScale;
+        this.consumerCurve = consumerCurve.clone();
+        this.producerCurve = producerCurve.clone();
+        this.noiseScale = noiseScale;
+        this.shockSigma = shockSigma;
+        this.shockPersistence = shockPersistence;
+        this.events = Collections.unmodifiableList(new ArrayList<>(events));
+    }
+
+    /**
+     * Loads a scenario from a filesystem path, falling back to a classpath resource.
+     */
+    public static LoadScenario load(String location) throws IOException {
+        Properties properties = new Properties();
+        Path path = Path.of(location);
+        if (Files.isRegularFile(path)) {
+            try (InputStream input = Files.newInputStream(path)) {
+                properties.load(new InputStreamReader(input, StandardCharsets.UTF_8));
+            }
+        } else {
+            try (InputStream input = LoadScenario.class.getClassLoader().getResourceAsStream(location)) {
+                if (input == null) {
+                    throw new IOException("Unable to find " + location);
+                }
+                properties.load(new InputStreamReader(input, StandardCharsets.UTF_8));
+            }
+        }
+        try {
+            return parse(properties, location);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(location + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static LoadScenario parse(Properties properties, String location) {
+        String name = properties.getProperty("name", Path.of(location).getFileName().toString());
+        double[] flat = new double[24];
+        Arrays.fill(flat, 1.0);
+
+        TreeSet<String> eventIds = new TreeSet<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith("event.")) {
+                int dot = key.indexOf('.', "event.".length());
+                if (dot < 0) {
+                    throw new IllegalArgumentException("Malformed event key '" + key + "'");
+                }
+                eventIds.add(key.substring("event.".length(), dot));
+            }
+        }
+        List<Event> events = new ArrayList<>();
+        for (String id : eventIds) {
+            String prefix = "event." + id + ".";
+            String start = properties.getProperty(prefix + "start");
+            if (start == null) {
+                throw new IllegalArgumentException("Event '" + id + "' needs a start time");
+            }
+            String day = properties.getProperty(prefix + "day");
+            events.add(new Event(
+                    id,
+                    parseTimeOfDay(start),
+                    (int) Math.round(Double.parseDouble(properties.getProperty(prefix + "durationMinutes", "60")) * 60),
+                    (int) Math.round(Double.parseDouble(properties.getProperty(prefix + "rampMinutes", "0")) * 60),
+                    Double.parseDouble(properties.getProperty(prefix + "multiplier", "1.0")),
+                    SourceFilter.valueOf(properties.getProperty(prefix + "sources", "all").trim().toUpperCase()),
+                    properties.getProperty(prefix + "region"),
+                    Double.parseDouble(properties.getProperty(prefix + "fraction", "1.0")),
+                    day == null ? -1 : Integer.parseInt(day.trim())));
+        }
+
+        return new LoadScenario(
+                name,
+                parseTimeOfDay(properties.getProperty("startTime", "00:00")),
+                Double.parseDouble(properties.getProperty("timeScale", "1.0")),
+                parseCurve(properties.getProperty("consumer.curve"), flat),
+                parseCurve(properties.getProperty("producer.curve"), flat),
+                Double.parseDouble(properties.getProperty("noise.scale", "1.0")),
+                Double.parseDouble(properties.getProperty("shock.sigma", "0.0")),
+                Double.parseDouble(properties.getProperty("shock.persistence", "0.9")),
+                events);
+    }
+
+    private static double[] parseCurve(String value, double[] fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        String[] fields = value.split(",");
+        if (fields.length != 24) {
+            throw new IllegalArgumentException("Expected 24 hourly curve values, got " + fields.length);
+        }
+        double[] curve = new double[24];
+        for (int i = 0; i < 24; i++) {
+            curve[i] = Double.parseDouble(fields[i].trim());
+        }
+        return curve;
+    }
+
+    /**
+     * @return Seconds since midnight for "HH:mm" or "HH:mm:ss"
+     */
+    static int parseTimeOfDay(String value) {
+        String[] parts = value.trim().split(":");
+        if (parts.length < 2 || parts.length > 3) {
+            throw new IllegalArgumentException("Expected HH:mm, got '" + value + "'");
+        }
+        int seconds = Integer.parseInt(parts[0]) * 3600 + Integer.parseInt(parts[1]) * 60
+                + (parts.length == 3 ? Integer.parseInt(parts[2]) : 0);
+        if (seconds < 0 || seconds >= SECONDS_PER_DAY) {
+            throw new IllegalArgumentException("Time of day out of range: '" + value + "'");
+        }
+        return seconds;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getStartSecondOfDay() {
+        return startSecondOfDay;
+    }
+
+    public double getTimeScale() {
+        return timeScale;
+    }
+
+    public double getNoiseScale() {
+        return noiseScale;
+    }
+
+    public double getShockSigma() {
+        return shockSigma;
+    }
+
+    public double getShockPersistence() {
+        return shockPersistence;
+    }
+
+    public List<Event> getEvents() {
+        return events;
+    }
+
+    /**
+     * @return Consumer curve multiplier at the given second of day
+     */
+    public double consumerMultiplier(double secondOfDay) {
+        return interpolate(consumerCurve, secondOfDay);
+    }
+
+    /**
+     * @return Producer curve multiplier at the given second of day
+     */
+    public double producerMultiplier(double secondOfDay) {
+        return interpolate(producerCurve, secondOfDay);
+    }
+
+    private static double interpolate(double[] curve, double secondOfDay) {
+        double hour = secondOfDay / 3600.0;
+        int low = (int) Math.floor(hour) % 24;
+        int high = (low + 1) % 24;
+        double fraction = hour - Math.floor(hour);
+        return curve[low] + (curve[high] - curve[low]) * fraction;
+    }
+
+    public enum SourceFilter {
+        CONSUMER, PRODUCER, ALL;
+
+        public boolean matches(boolean producer) {
+            return this == ALL || (this == PRODUCER) == producer;
+        }
+    }
+
+    /**
+     * Multiplier applied to a share of matching sources for a window of each day (or one day).
+     */
+    public static final class Event {
+        private final String id;
+        private final int startSecondOfDay;
+        private final int durationSeconds;
+        private final int rampSeconds;
+        private final double multiplier;
+        private final SourceFilter sources;
+        private final String region;
+        private final double fraction;
+        private final int day;
+
+        public Event(String id, int startSecondOfDay, int durationSeconds, int rampSeconds, double multiplier,
+                     SourceFilter sources, String region, double fraction, int day) {
+            this.id = id;
+            this.startSecondOfDay = startSecondOfDay;
+            this.durationSeconds = Math.max(0, durationSeconds);
+            this.rampSeconds = Math.max(0, Math.min(rampSeconds, this.durationSeconds / 2));
+            this.multiplier = multiplier;
+            this.sources = sources;
+            this.region = region;
+            this.fraction = Math.min(1.0, Math.max(0.0, fraction));
+            this.day = day;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public SourceFilter getSources() {
+            return sources;
+        }
+
+        /**
+         * @return Target region, or null for all regions
+         */
+        public String getRegion() {
+            return region;
+        }
+
+        public double getFraction() {
+            return fraction;
+        }
+
+        /**
+         * @param scenarioSeconds Seconds since scenario start (start time of day included)
+         * @return Multiplier in effect, ramping linearly from 1 at the edges; 1 when inactive
+         */
+        public double multiplierAt(double scenarioSeconds) {
+            long dayIndex = (long) Math.floor(scenarioSeconds / SECONDS_PER_DAY);
+            double secondOfDay = scenarioSeconds - dayIndex * (double) SECONDS_PER_DAY;
+            double elapsed = secondOfDay - startSecondOfDay;
+            if (elapsed < 0) {
+                // Windows may run past midnight into the next day
+                elapsed += SECONDS_PER_DAY;
+                dayIndex--;
+            }
+            if ((day >= 0 && dayIndex != day) || elapsed >= durationSeconds) {
+                return 1.0;
+            }
+            double weight = 1.0;
+            if (rampSeconds > 0) {
+                weight = Math.min(1.0, Math.min(elapsed, durationSeconds - elapsed) / rampSeconds);
+            }
+            return 1.0 + (multiplier - 1.0) * weight;
+        }
+    }
+}
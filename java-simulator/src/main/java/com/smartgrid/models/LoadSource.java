@@ -1,20 +1,35 @@
 package com.smartgrid.models;
 
+import com.smartgrid.utils.SplitMix64;
+
 /**
  * Represents a load source (consumer or producer) in the grid.
  * Consumers have positive load, producers (e.g., solar panels) have negative load.
+ * Each source owns its random stream, so fluctuation is reproducible under a seed and
+ * never contends with other threads. A source must only be sampled by one thread at a time.
  */
 public class LoadSource {
     private final String sourceId;
     private final String type; // "CONSUMER" or "PRODUCER"
     private volatile double baseLoad; // in MW
     private volatile double variabilityFactor; // 0.0 to 1.0
+    private final boolean producer;
+    private final SplitMix64 random;
 
     public LoadSource(String sourceId, String type, double baseLoad, double variabilityFactor) {
+        this(sourceId, type, baseLoad, variabilityFactor, new SplitMix64(System.nanoTime() ^ sourceId.hashCode()));
+    }
+
+    /**
+     * @param random Stream the source samples; null for subclasses that override {@link #getCurrentLoad()}
+     */
+    public LoadSource(String sourceId, String type, double baseLoad, double variabilityFactor, SplitMix64 random) {
         this.sourceId = sourceId;
         this.type = type;
         this.baseLoad = baseLoad;
         this.variabilityFactor = Math.min(1.0, Math.max(0.0, variabilityFactor));
+        this.producer = type.equals("PRODUCER");
+        this.random = random;
     }
 
     public String getSourceId() {
@@ -29,18 +44,33 @@ public class LoadSource {
         return baseLoad;
     }
 
+    public void setBaseLoad(double baseLoad) {
+        this.baseLoad = baseLoad;
+    }
+
     public double getVariabilityFactor() {
         return variabilityFactor;
     }
 
+    public void setVariabilityFactor(double variabilityFactor) {
+        this.variabilityFactor = Math.min(1.0, Math.max(0.0, variabilityFactor));
+    }
+
+    /**
+     * @return The source's random stream, or null if a subclass supplies its readings
+     */
+    public SplitMix64 getRandom() {
+        return random;
+    }
+
     /**
      * Calculates current load with random fluctuation based on variability factor.
      * @return Current load in MW
      */
     public double getCurrentLoad() {
-        double variation = (Math.random() - 0.5) * 2 * variabilityFactor;
+        double variation = (random.nextDouble() - 0.5) * 2 * variabilityFactor;
         double load = baseLoad * (1 + variation);
-        return type.equals("PRODUCER") ? -Math.abs(load) : Math.abs(load);
+        return producer ? -Math.abs(load) : Math.abs(load);
     }
 
     @Override
@@ -14,9 +14,14 @@ public class Sensor {
     private final double frequency; // in Hz
 
     public Sensor(String sensorId, String nodeId, double loadReading, double voltage, double frequency) {
+        this(sensorId, nodeId, LocalDateTime.now(), loadReading, voltage, frequency);
+    }
+
+    public Sensor(String sensorId, String nodeId, LocalDateTime timestamp,
+                  double loadReading, double voltage, double frequency) {
         this.sensorId = sensorId;
         this.nodeId = nodeId;
-        this.timestamp = LocalDateTime.now();
+        this.timestamp = timestamp;
         this.loadReading = loadReading;
         this.voltage = voltage;
         this.frequency = frequency;
@@ -0,0 +1,105 @@
+package com.smartgrid.models;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One status report's sensor readings, one per node, stored in primitive arrays indexed by
+ * node ordinal and stamped with a single UTC epoch-nanosecond timestamp. Frames are refilled
+ * report after report instead of allocating a {@link Sensor} per node; sensor and node ids are
+ * looked up in {@link GridState} only when a frame is serialized.
+ * <p>
+ * Frames taken from a {@link SensorFrameRing} are reference counted: whoever keeps a frame
+ * past the report that filled it (the async publisher) calls {@link #retain()}, and every
+ * holder calls {@link #release()} once, after which the ring may hand the frame out again.
+ */
+public final class SensorFrame {
+    private long epoch;
+    private long timestampNanos;
+    private int size;
+    private double[] loads; // in MW
+    private double[] voltages; // in kV
+    private double[] frequencies; // in Hz
+    private final AtomicInteger references = new AtomicInteger();
+
+    public SensorFrame(int capacity) {
+        int initial = Math.max(1, capacity);
+        this.loads = new double[initial];
+        this.voltages = new double[initial];
+        this.frequencies = new double[initial];
+    }
+
+    /**
+     * Prepares the frame for {@code size} readings, growing it if needed.
+     * @param epoch Grid tick the readings were taken at
+     * @param timestampNanos UTC epoch nanoseconds of the readings
+     */
+    public void reset(long epoch, long timestampNanos, int size) {
+        if (size > loads.length) {
+            loads = Arrays.copyOf(loads, size);
+            voltages = Arrays.copyOf(voltages, size);
+            frequencies = Arrays.copyOf(frequencies, size);
+        }
+        this.epoch = epoch;
+        this.timestampNanos = timestampNanos;
+        this.size = size;
+    }
+
+    public void set(int ordinal, double load, double voltage, double frequency) {
+        loads[ordinal] = load;
+        voltages[ordinal] = voltage;
+        frequencies[ordinal] = frequency;
+    }
+
+    /**
+     * Adds a holder that will call {@link #release()} when done with the frame.
+     */
+    public void retain() {
+        references.incrementAndGet();
+    }
+
+    /**
+     * Drops one holder; the last release returns the frame to its ring.
+     */
+    public void release() {
+        if (references.decrementAndGet() < 0) {
+            references.incrementAndGet();
+            throw new IllegalStateException("Frame released more often than acquired");
+        }
+    }
+
+    /**
+     * Claims a free frame for its first holder.
+     */
+    boolean tryAcquire() {
+        return references.compareAndSet(0, 1);
+    }
+
+    boolean isInUse() {
+        return references.get() > 0;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getLoad(int ordinal) {
+        return loads[ordinal];
+    }
+
+    public double getVoltage(int ordinal) {
+        return voltages[ordinal];
+    }
+
+    public double getFrequency(int ordinal) {
+        return frequencies[ordinal];
+    }
+}
@@ -0,0 +1,57 @@
+package com.smartgrid.models;
+
+/**
+ * Fixed ring of preallocated {@link SensorFrame}s for status reports. A report takes the next
+ * free frame, fills it from grid state and hands it on by reference; the frame comes back once
+ * every holder has released it. Only the ring's frames are ever allocated, so steady-state
+ * reporting produces no per-node garbage however many nodes the grid has.
+ */
+public final class SensorFrameRing {
+    private final SensorFrame[] frames;
+    private int next; // only advanced by the report task, which never overlaps itself
+
+    /**
+     * @param slots Frames in the ring; bounds how many reports can be in flight at once
+     * @param capacity Readings each frame holds before it has to grow
+     */
+    public SensorFrameRing(int slots, int capacity) {
+        if (slots <= 0) {
+            throw new IllegalArgumentException("A frame ring needs at least one slot: " + slots);
+        }
+        this.frames = new SensorFrame[slots];
+        for (int i = 0; i < slots; i++) {
+            frames[i] = new SensorFrame(capacity);
+        }
+    }
+
+    /**
+     * @return The next free frame, held once by the caller, or null if every frame is still in flight
+     */
+    public SensorFrame acquire() {
+        for (int i = 0; i < frames.length; i++) {
+            SensorFrame frame = frames[next];
+            next = (next + 1) % frames.length;
+            if (frame.tryAcquire()) {
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Frames currently held by a report or the publisher
+     */
+    public int inFlight() {
+        int count = 0;
+        for (SensorFrame frame : frames) {
+            if (frame.isInUse()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int slots() {
+        return frames.length;
+    }
+}
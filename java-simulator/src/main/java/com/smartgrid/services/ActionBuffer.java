@@ -0,0 +1,124 @@
+package com.smartgrid.services;
+
+import java.util.Arrays;
+
+/**
+ * Growable, reusable list of optimization actions stored as parallel primitive arrays
+ * (node ordinals, amount, type), so recording actions allocates nothing once the buffer has
+ * grown to a pass's size. Call {@link #clear()} to reuse it; node ids are resolved only when
+ * actions are serialized. Not thread-safe.
+ */
+public final class ActionBuffer {
+    private static final ActionType[] TYPES = ActionType.values();
+
+    private int[] fromNodes;
+    private int[] toNodes;
+    private double[] amounts;
+    private byte[] types;
+    private int size;
+
+    public ActionBuffer() {
+        this(64);
+    }
+
+    public ActionBuffer(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        this.fromNodes = new int[capacity];
+        this.toNodes = new int[capacity];
+        this.amounts = new double[capacity];
+        this.types = new byte[capacity];
+    }
+
+    public void add(int fromNode, int toNode, double amount, ActionType type) {
+        if (size == amounts.length) {
+            grow(size + 1);
+        }
+        fromNodes[size] = fromNode;
+        toNodes[size] = toNode;
+        amounts[size] = amount;
+        types[size] = (byte) type.ordinal();
+        size++;
+    }
+
+    public void addAll(ActionBuffer other) {
+        if (size + other.size > amounts.length) {
+            grow(size + other.size);
+        }
+        System.arraycopy(other.fromNodes, 0, fromNodes, size, other.size);
+        System.arraycopy(other.toNodes, 0, toNodes, size, other.size);
+        System.arraycopy(other.amounts, 0, amounts, size, other.size);
+        System.arraycopy(other.types, 0, types, size, other.size);
+        size += other.size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getFromNode(int index) {
+        return fromNodes[checkIndex(index)];
+    }
+
+    public int getToNode(int index) {
+        return toNodes[checkIndex(index)];
+    }
+
+    public double getAmount(int index) {
+        return amounts[checkIndex(index)];
+    }
+
+    public ActionType getType(int index) {
+        return TYPES[types[checkIndex(index)]];
+    }
+
+    /**
+     * @return Sum of all action amounts in MW
+     */
+    public double totalAmount() {
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            total += amounts[i];
+        }
+        return total;
+    }
+
+    /**
+     * @return The action at {@code index} as a standalone object
+     */
+    public LoadBalancer.OptimizationAction get(int index) {
+        checkIndex(index);
+        return new LoadBalancer.OptimizationAction(fromNodes[index], toNodes[index], amounts[index], TYPES[types[index]]);
+    }
+
+    /**
+     * @return Independent copy holding exactly this buffer's actions
+     */
+    public ActionBuffer copy() {
+        ActionBuffer copy = new ActionBuffer(size);
+        copy.addAll(this);
+        return copy;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return index;
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, amounts.length * 2);
+        fromNodes = Arrays.copyOf(fromNodes, capacity);
+        toNodes = Arrays.copyOf(toNodes, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        types = Arrays.copyOf(types, capacity);
+    }
+}
@@ -0,0 +1,8 @@
+package com.smartgrid.services;
+
+/**
+ * Kind of adjustment an optimization action applies; the constant name is the wire value.
+ */
+public enum ActionType {
+    LOAD_TRANSFER
+}
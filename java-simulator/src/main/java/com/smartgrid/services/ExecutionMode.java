@@ -0,0 +1,122 @@
+package com.smartgrid.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * How the engine maps its work onto threads. Periodic tasks (which block on API calls in
+ * synchronous mode and on partition futures during optimization) run on the clock's scheduler
+ * threads; partition optimization is CPU-bound.
+ * <ul>
+ *   <li>PLATFORM: platform scheduler threads and a fixed worker pool for partitions</li>
+ *   <li>FORKJOIN: platform scheduler threads; partitions share the ForkJoin tick pool</li>
+ *   <li>VIRTUAL: virtual scheduler threads, so blocked tasks release their carrier;
+ *       partitions share the ForkJoin tick pool</li>
+ * </ul>
+ * Virtual threads need Java 21. They are looked up reflectively so the simulator still builds
+ * and runs on older JDKs, where VIRTUAL falls back to platform threads.
+ */
+public enum ExecutionMode {
+    PLATFORM, VIRTUAL, FORKJOIN;
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionMode.class);
+
+    /**
+     * Resolves a mode by its configuration name ("platform", "virtual" or "forkjoin").
+     */
+    public static ExecutionMode forName(String name) {
+        return switch (name.trim().toLowerCase()) {
+            case "platform" -> PLATFORM;
+            case "virtual" -> VIRTUAL;
+            case "forkjoin" -> FORKJOIN;
+            default -> throw new IllegalArgumentException("Unknown execution mode: " + name);
+        };
+    }
+
+    /**
+     * @return Factory for the clock's scheduler threads
+     */
+    public ThreadFactory schedulerThreadFactory(String namePrefix) {
+        if (this == VIRTUAL) {
+            ThreadFactory virtual = virtualThreadFactory(namePrefix);
+            if (virtual != null) {
+                return virtual;
+            }
+            logger.warn("Virtual threads need Java 21 (running {}); using platform threads",
+                    System.getProperty("java.version"));
+        }
+        return Executors.defaultThreadFactory();
+    }
+
+    /**
+     * @return Scheduler threads for the clock; with virtual threads one per periodic task is
+     *         cheap, so a blocked report never delays a tick
+     */
+    public int schedulerThreads() {
+        return this == VIRTUAL && isSupported() ? 4 : 2;
+    }
+
+    /**
+     * @return Executor for partition optimization; {@code tickPool} itself unless PLATFORM
+     */
+    public ExecutorService createWorkerPool(int threads, ForkJoinPool tickPool) {
+        return this == PLATFORM ? Executors.newFixedThreadPool(threads) : tickPool;
+    }
+
+    /**
+     * Changes the number of threads of a running pool: a fixed worker pool is resized in place,
+     * a fork-join pool through {@code ForkJoinPool.setParallelism} (Java 19+).
+     * @return false if the pool cannot be resized on this JVM
+     */
+    public static boolean resize(ExecutorService pool, int threads) {
+        if (pool instanceof ThreadPoolExecutor fixed) {
+            // The core size may never exceed the maximum, so order the two updates by direction
+            if (threads > fixed.getMaximumPoolSize()) {
+                fixed.setMaximumPoolSize(threads);
+                fixed.setCorePoolSize(threads);
+            } else {
+                fixed.setCorePoolSize(threads);
+                fixed.setMaximumPoolSize(threads);
+            }
+            return true;
+        }
+        if (pool instanceof ForkJoinPool forkJoin) {
+            try {
+                ForkJoinPool.class.getMethod("setParallelism", int.class).invoke(forkJoin, threads);
+                return true;
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // Absent before 19
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return Whether this mode runs as described on the current JVM
+     */
+    public boolean isSupported() {
+        return this != VIRTUAL || virtualThreadFactory("probe-") != null;
+    }
+
+    /**
+     * @return {@code Thread.ofVirtual().name(prefix, 0).factory()}, or null before Java 21
+     */
+    static ThreadFactory virtualThreadFactory(String namePrefix) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Absent before 19, preview-only (UnsupportedOperationException) in 19 and 20
+            return null;
+        }
+    }
+}
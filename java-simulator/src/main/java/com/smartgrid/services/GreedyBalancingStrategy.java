@@ -0,0 +1,81 @@
+package com.smartgrid.services;
+
+import com.smartgrid.models.GridNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Original greedy matching: sort both sides once, then scan every underloaded node for each
+ * overloaded node. O(O·U); kept as the reference strategy for comparison.
+ */
+public class GreedyBalancingStrategy implements LoadBalancingStrategy {
+    private static final Logger logger = LoggerFactory.getLogger(GreedyBalancingStrategy.class);
+
+    @Override
+    public void optimize(List<GridNode> nodes, double overloadThreshold, double underloadThreshold,
+                         ActionBuffer actions) {
+
+        // Identify overloaded and underloaded nodes
+        List<GridNode> overloaded = new ArrayList<>();
+        List<GridNode> underloaded = new ArrayList<>();
+
+        for (GridNode node : nodes) {
+            double utilization = node.getUtilizationPercent();
+            if (utilization > overloadThreshold) {
+                overloaded.add(node);
+            } else if (utilization < underloadThreshold && node.getAvailableCapacity() > 0) {
+                underloaded.add(node);
+            }
+        }
+
+        if (overloaded.isEmpty()) {
+            logger.debug("No overloaded nodes detected");
+            return;
+        }
+
+        // Sort overloaded by utilization (descending), underloaded by available capacity (descending)
+        overloaded.sort(Comparator.comparingDouble(GridNode::getUtilizationPercent).reversed());
+        underloaded.sort(Comparator.comparingDouble(GridNode::getAvailableCapacity).reversed());
+
+        // Redistribute load
+        for (GridNode overloadedNode : overloaded) {
+            double excessLoad = overloadedNode.getCurrentLoad() -
+                               (overloadedNode.getCapacity() * (overloadThreshold / 100.0));
+
+            if (excessLoad <= 0) continue;
+
+            for (GridNode underloadedNode : underloaded) {
+                if (excessLoad <= 0) break;
+
+                double availableCapacity = underloadedNode.getAvailableCapacity();
+                if (availableCapacity <= 0) continue;
+
+                double transferAmount = Math.min(excessLoad, availableCapacity * 0.5); // Transfer up to 50% of available
+
+                // Perform the transfer
+                overloadedNode.setCurrentLoad(overloadedNode.getCurrentLoad() - transferAmount);
+                underloadedNode.setCurrentLoad(underloadedNode.getCurrentLoad() + transferAmount);
+
+                actions.add(overloadedNode.getOrdinal(), underloadedNode.getOrdinal(), transferAmount,
+                    ActionType.LOAD_TRANSFER);
+
+                excessLoad -= transferAmount;
+
+                logger.info("Transferred {} MW from {} to {}",
+                           String.format("%.2f", transferAmount),
+                           overloadedNode.getNodeId(),
+                           underloadedNode.getNodeId());
+            }
+        }
+
+    }
+
+    @Override
+    public String getName() {
+        return "greedy";
+    }
+}
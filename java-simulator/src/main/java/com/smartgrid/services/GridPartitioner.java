@@ -0,0 +1,64 @@
+package com.smartgrid.services;
+
+import com.smartgrid.models.GridNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Splits the grid into disjoint node groups that can be optimized independently.
+ * Implementations must return partitions in a deterministic order.
+ */
+public interface GridPartitioner {
+
+    List<List<GridNode>> partition(List<GridNode> nodes);
+
+    String getName();
+
+    /**
+     * Resolves a partitioner by its configuration name ("none" or "region").
+     */
+    static GridPartitioner forName(String name) {
+        return switch (name.trim().toLowerCase()) {
+            case "none" -> new SinglePartitioner();
+            case "region" -> new RegionPartitioner();
+            default -> throw new IllegalArgumentException("Unknown grid partitioner: " + name);
+        };
+    }
+
+    /**
+     * Keeps the whole grid in one partition.
+     */
+    class SinglePartitioner implements GridPartitioner {
+        @Override
+        public List<List<GridNode>> partition(List<GridNode> nodes) {
+            return List.of(nodes);
+        }
+
+        @Override
+        public String getName() {
+            return "none";
+        }
+    }
+
+    /**
+     * Groups nodes by {@link GridNode#getRegion()}, ordered by region name.
+     */
+    class RegionPartitioner implements GridPartitioner {
+        @Override
+        public List<List<GridNode>> partition(List<GridNode> nodes) {
+            Map<String, List<GridNode>> byRegion = new TreeMap<>();
+            for (GridNode node : nodes) {
+                byRegion.computeIfAbsent(node.getRegion(), region -> new ArrayList<>()).add(node);
+            }
+            return new ArrayList<>(byRegion.values());
+        }
+
+        @Override
+        public String getName() {
+            return "region";
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.smartgrid.services;
+
+import com.smartgrid.models.GridState;
+import com.smartgrid.models.SensorFrame;
+import com.smartgrid.utils.SplitMix64;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/**
+ * Status report computed in a single pass over a published snapshot: the pass fills the
+ * report's sensor frame and, alongside, the grid totals, utilization spread, threshold counts,
+ * the most utilized nodes and per-region rollups. All state lives in arrays sized once at
+ * construction and overwritten by each {@link #compute}, so a report allocates nothing.
+ * Not thread-safe: one report task computes and reads it.
+ */
+public class GridReport {
+    private final String[] regionNames;
+    private final int[] regionOf; // region index per node ordinal
+    private final double[] regionLoads;
+    private final double[] regionCapacities;
+    private final int[] regionNodes;
+    private final int[] regionOverloaded;
+    private final int[] top;
+    private final double[] topUtilization;
+    private int topSize;
+    private int nodeCount;
+    private double totalLoad;
+    private double totalCapacity;
+    private double minUtilization;
+    private double maxUtilization;
+    private double sumUtilization;
+    private int overloaded;
+    private int underloaded;
+
+    /**
+     * @param topCount Most utilized nodes to track (report.topNodes)
+     */
+    public GridReport(GridState gridState, int topCount) {
+        TreeSet<String> regions = new TreeSet<>();
+        for (int i = 0; i < gridState.size(); i++) {
+            regions.add(gridState.getRegion(i));
+        }
+        this.regionNames = regions.toArray(new String[0]);
+        this.regionOf = new int[gridState.size()];
+        for (int i = 0; i < regionOf.length; i++) {
+            regionOf[i] = Arrays.binarySearch(regionNames, gridState.getRegion(i));
+        }
+        this.regionLoads = new double[regionNames.length];
+        this.regionCapacities = new double[regionNames.length];
+        this.regionNodes = new int[regionNames.length];
+        this.regionOverloaded = new int[regionNames.length];
+        int tracked = Math.max(0, Math.min(topCount, gridState.size()));
+        this.top = new int[tracked];
+        this.topUtilization = new double[tracked];
+    }
+
+    /**
+     * Fills {@code frame} with one reading per node (voltage and frequency drawn from
+     * {@code random}) and recomputes every aggregate.
+     * @param timestampNanos UTC epoch nanoseconds stamped on the frame
+     */
+    public void compute(GridState.Snapshot snapshot, long timestampNanos, SensorFrame frame, SplitMix64 random,
+                        double overloadThreshold, double underloadThreshold) {
+        int count = snapshot.size();
+        frame.reset(snapshot.getEpoch(), timestampNanos, count);
+        Arrays.fill(regionLoads, 0.0);
+        Arrays.fill(regionCapacities, 0.0);
+        Arrays.fill(regionNodes, 0);
+        Arrays.fill(regionOverloaded, 0);
+        nodeCount = count;
+        topSize = 0;
+        totalLoad = 0;
+        totalCapacity = 0;
+        minUtilization = Double.MAX_VALUE;
+        maxUtilization = 0;
+        sumUtilization = 0;
+        overloaded = 0;
+        underloaded = 0;
+        int topCount = top.length;
+
+        for (int i = 0; i < count; i++) {
+            double load = snapshot.getLoad(i);
+            double capacity = snapshot.getCapacity(i);
+            double utilization = snapshot.getUtilizationPercent(i);
+            frame.set(i,
+                load,
+                400 + (random.nextDouble() * 20), // Voltage
+                60 + (random.nextDouble() * 0.5)  // Frequency
+            );
+
+            totalLoad += load;
+            totalCapacity += capacity;
+            sumUtilization += utilization;
+            minUtilization = Math.min(minUtilization, utilization);
+            maxUtilization = Math.max(maxUtilization, utilization);
+            int region = regionOf[i];
+            regionLoads[region] += load;
+            regionCapacities[region] += capacity;
+            regionNodes[region]++;
+            if (utilization > overloadThreshold) {
+                overloaded++;
+                regionOverloaded[region]++;
+            } else if (utilization < underloadThreshold) {
+                underloaded++;
+            }
+
+            // Keep the top nodes sorted by descending utilization with an insertion step
+            if (topSize < topCount || (topCount > 0 && utilization > topUtilization[topSize - 1])) {
+                int position = topSize < topCount ? topSize++ : topSize - 1;
+                while (position > 0 && topUtilization[position - 1] < utilization) {
+                    top[position] = top[position - 1];
+                    topUtilization[position] = topUtilization[position - 1];
+                    position--;
+                }
+                top[position] = i;
+                topUtilization[position] = utilization;
+            }
+        }
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public double getTotalLoad() {
+        return totalLoad;
+    }
+
+    public double getTotalCapacity() {
+        return totalCapacity;
+    }
+
+    public double getMinUtilization() {
+        return minUtilization;
+    }
+
+    public double getMaxUtilization() {
+        return maxUtilization;
+    }
+
+    public double getMeanUtilization() {
+        return nodeCount == 0 ? 0.0 : sumUtilization / nodeCount;
+    }
+
+    public int getOverloadedCount() {
+        return overloaded;
+    }
+
+    public int getUnderloadedCount() {
+        return underloaded;
+    }
+
+    /**
+     * @return Tracked top nodes, at most report.topNodes
+     */
+    public int getTopCount() {
+        return topSize;
+    }
+
+    /**
+     * @return Ordinal of the k-th most utilized node
+     */
+    public int getTopNode(int k) {
+        return top[k];
+    }
+
+    public int getRegionCount() {
+        return regionNames.length;
+    }
+
+    /**
+     * @return Name of the r-th region, in alphabetical order
+     */
+    public String getRegionName(int region) {
+        return regionNames[region];
+    }
+
+    public int getRegionNodes(int region) {
+        return regionNodes[region];
+    }
+
+    public double getRegionLoad(int region) {
+        return regionLoads[region];
+    }
+
+    public double getRegionCapacity(int region) {
+        return regionCapacities[region];
+    }
+
+    public int getRegionOverloaded(int region) {
+        return regionOverloaded[region];
+    }
+}
@@ -0,0 +1,100 @@
+package com.smartgrid.services;
+
+import com.smartgrid.models.GridNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Heap-based matching: overloaded nodes keyed by excess load and underloaded nodes keyed by
+ * available capacity live in indexed max-heaps. Each transfer pairs the two current maxima and
+ * re-ranks both in O(log n), so ordering never goes stale. Node state is read once into local
+ * arrays and only changed loads are written back.
+ */
+public class HeapBalancingStrategy implements LoadBalancingStrategy {
+    private static final Logger logger = LoggerFactory.getLogger(HeapBalancingStrategy.class);
+    private static final double MIN_TRANSFER = 1e-6; // in MW
+
+    @Override
+    public void optimize(List<GridNode> nodes, double overloadThreshold, double underloadThreshold,
+                         ActionBuffer actions) {
+        int n = nodes.size();
+        double[] loads = new double[n];
+        double[] capacities = new double[n];
+        boolean[] changed = new boolean[n];
+        IndexedMaxHeap excessHeap = new IndexedMaxHeap(n);
+        IndexedMaxHeap availableHeap = new IndexedMaxHeap(n);
+        double overloadFraction = overloadThreshold / 100.0;
+        double underloadFraction = underloadThreshold / 100.0;
+
+        for (int i = 0; i < n; i++) {
+            GridNode node = nodes.get(i);
+            double load = node.getCurrentLoad();
+            double capacity = node.getCapacity();
+            loads[i] = load;
+            capacities[i] = capacity;
+            double utilization = (load / capacity) * 100.0;
+            if (utilization > overloadThreshold) {
+                double excess = load - capacity * overloadFraction;
+                if (excess > 0) {
+                    excessHeap.insert(i, excess);
+                }
+            } else if (utilization < underloadThreshold && capacity - load > 0) {
+                availableHeap.insert(i, capacity - load);
+            }
+        }
+
+        if (excessHeap.isEmpty()) {
+            logger.debug("No overloaded nodes detected");
+            return;
+        }
+
+        while (!excessHeap.isEmpty() && !availableHeap.isEmpty()) {
+            int from = excessHeap.peek();
+            int to = availableHeap.peek();
+            double excess = excessHeap.key(from);
+            double available = availableHeap.key(to);
+
+            double transferAmount = Math.min(excess, available * 0.5); // Transfer up to 50% of available
+            if (transferAmount < MIN_TRANSFER) {
+                break;
+            }
+
+            loads[from] -= transferAmount;
+            loads[to] += transferAmount;
+            changed[from] = true;
+            changed[to] = true;
+            actions.add(nodes.get(from).getOrdinal(), nodes.get(to).getOrdinal(), transferAmount,
+                ActionType.LOAD_TRANSFER);
+
+            double remainingExcess = excess - transferAmount;
+            if (remainingExcess < MIN_TRANSFER) {
+                excessHeap.remove(from);
+            } else {
+                excessHeap.update(from, remainingExcess);
+            }
+
+            double remainingAvailable = capacities[to] - loads[to];
+            if (loads[to] >= capacities[to] * underloadFraction || remainingAvailable < MIN_TRANSFER) {
+                availableHeap.remove(to);
+            } else {
+                availableHeap.update(to, remainingAvailable);
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            if (changed[i]) {
+                nodes.get(i).setCurrentLoad(loads[i]);
+            }
+        }
+
+        logger.debug("Heap strategy applied {} transfers, {} overloaded nodes unresolved",
+                actions.size(), excessHeap.size());
+    }
+
+    @Override
+    public String getName() {
+        return "heap";
+    }
+}
@@ -0,0 +1,236 @@
+package com.smartgrid.services;
+
+import com.smartgrid.models.GridState;
+import com.smartgrid.models.LoadSource;
+import com.smartgrid.utils.SplitMix64;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Change-driven load aggregation. Each tick only a random subset of sources (each with
+ * probability {@code changeProbability}) draws a new reading; the difference is applied as a
+ * delta to its node's running total, and only nodes whose totals moved are written back and
+ * re-checked for overload. Every {@code fullRecomputeInterval} ticks all sources are re-read and
+ * totals rebuilt from scratch to bound floating-point drift.
+ * <p>
+ * Not thread-safe: call it only inside a {@link GridState#beginUpdate()} phase.
+ */
+public class IncrementalLoadAggregator {
+    private final GridState gridState;
+    private final List<LoadSource> loadSources;
+    private final SplitMix64 selector;
+    private final double changeProbability;
+    private final int fullRecomputeInterval;
+
+    private final double[] sourceLoads;
+    private int[] nodeOfSource;
+    private final double[] nodeTotals;
+    private final int[] dirtyNodes;
+    private final boolean[] dirty;
+    private int dirtyCount;
+    private final int[] overloadedNodes;
+    private final int[] overloadedPosition; // index into overloadedNodes, -1 when not overloaded
+    private int overloadedCount;
+    private long ticksSinceFullRecompute;
+
+    public IncrementalLoadAggregator(GridState gridState, List<LoadSource> loadSources, SourceAssignment assignment,
+                                     SplitMix64 selector, double changeProbability, int fullRecomputeInterval) {
+        this.gridState = gridState;
+        this.loadSources = loadSources;
+        this.selector = selector;
+        this.changeProbability = Math.min(1.0, Math.max(0.0, changeProbability));
+        this.fullRecomputeInterval = Math.max(1, fullRecomputeInterval);
+        int nodeCount = assignment.getNodeCount();
+        this.sourceLoads = new double[loadSources.size()];
+        this.nodeTotals = new double[nodeCount];
+        this.dirtyNodes = new int[nodeCount];
+        this.dirty = new boolean[nodeCount];
+        this.overloadedNodes = new int[nodeCount];
+        this.overloadedPosition = new int[nodeCount];
+        Arrays.fill(overloadedPosition, -1);
+        reset(assignment);
+    }
+
+    /**
+     * Switches to a new assignment; the next tick performs a full recompute.
+     */
+    public void reset(SourceAssignment assignment) {
+        if (assignment.getNodeCount() != nodeTotals.length) {
+            throw new IllegalArgumentException("Assignment covers " + assignment.getNodeCount()
+                    + " nodes but aggregator was built for " + nodeTotals.length);
+        }
+        int[] nodes = new int[loadSources.size()];
+        Arrays.fill(nodes, -1);
+        for (int node = 0; node < assignment.getNodeCount(); node++) {
+            for (int p = assignment.start(node), end = assignment.end(node); p < end; p++) {
+                nodes[assignment.sourceAt(p)] = node;
+            }
+        }
+        this.nodeOfSource = nodes;
+        this.ticksSinceFullRecompute = fullRecomputeInterval;
+    }
+
+    /**
+     * Advances one tick.
+     * @return Number of sources that produced a new reading
+     */
+    public int tick(double overloadThreshold) {
+        int changed;
+        if (ticksSinceFullRecompute >= fullRecomputeInterval) {
+            changed = fullRecompute();
+            ticksSinceFullRecompute = 0;
+        } else {
+            changed = applyChangedSources();
+        }
+        ticksSinceFullRecompute++;
+        flushDirtyNodes(overloadThreshold);
+        return changed;
+    }
+
+    /**
+     * Flags a node whose published load was changed outside aggregation (e.g. by a transfer),
+     * so the next tick restores it from its source total.
+     */
+    public void markDirty(int node) {
+        if (!dirty[node]) {
+            dirty[node] = true;
+            dirtyNodes[dirtyCount++] = node;
+        }
+    }
+
+    /**
+     * Re-evaluates every node against a new overload threshold; ticks otherwise re-check only
+     * the nodes whose totals moved.
+     */
+    public void rethreshold(double overloadThreshold) {
+        Arrays.fill(overloadedPosition, -1);
+        overloadedCount = 0;
+        for (int node = 0; node < nodeTotals.length; node++) {
+            double load = Math.max(0, nodeTotals[node]);
+            if ((load / gridState.getCapacity(node)) * 100.0 > overloadThreshold) {
+                overloadedPosition[node] = overloadedCount;
+                overloadedNodes[overloadedCount++] = node;
+            }
+        }
+    }
+
+    public int getOverloadedCount() {
+        return overloadedCount;
+    }
+
+    /**
+     * @return Ordinal of the i-th currently overloaded node, in no particular order
+     */
+    public int getOverloadedNode(int i) {
+        return overloadedNodes[i];
+    }
+
+    public boolean isOverloaded(int node) {
+        return overloadedPosition[node] >= 0;
+    }
+
+    /**
+     * @return Copy of the running totals, pending dirty nodes and overloaded set
+     */
+    public SimulationCheckpoint.Aggregation captureState() {
+        return new SimulationCheckpoint.Aggregation(ticksSinceFullRecompute, sourceLoads.clone(), nodeTotals.clone(),
+                Arrays.copyOf(dirtyNodes, dirtyCount), Arrays.copyOf(overloadedNodes, overloadedCount));
+    }
+
+    /**
+     * Overwrites the aggregation state with a captured one; the current assignment must be the
+     * one it was captured under.
+     */
+    public void restoreState(SimulationCheckpoint.Aggregation state) {
+        if (state.getSourceLoads().length != sourceLoads.length || state.getNodeTotals().length != nodeTotals.length) {
+            throw new IllegalArgumentException("Captured aggregation state covers " + state.getNodeTotals().length
+                    + " nodes and " + state.getSourceLoads().length + " sources, aggregator has "
+                    + nodeTotals.length + " and " + sourceLoads.length);
+        }
+        System.arraycopy(state.getSourceLoads(), 0, sourceLoads, 0, sourceLoads.length);
+        System.arraycopy(state.getNodeTotals(), 0, nodeTotals, 0, nodeTotals.length);
+        Arrays.fill(dirty, false);
+        dirtyCount = 0;
+        for (int node : state.getDirtyNodes()) {
+            markDirty(node);
+        }
+        Arrays.fill(overloadedPosition, -1);
+        int[] overloaded = state.getOverloadedNodes();
+        for (int i = 0; i < overloaded.length; i++) {
+            overloadedNodes[i] = overloaded[i];
+            overloadedPosition[overloaded[i]] = i;
+        }
+        overloadedCount = overloaded.length;
+        ticksSinceFullRecompute = state.getTicksSinceFullRecompute();
+    }
+
+    private int fullRecompute() {
+        Arrays.fill(nodeTotals, 0.0);
+        for (int s = 0; s < sourceLoads.length; s++) {
+            double load = loadSources.get(s).getCurrentLoad();
+            sourceLoads[s] = load;
+            int node = nodeOfSource[s];
+            if (node >= 0) {
+                nodeTotals[node] += load;
+            }
+        }
+        for (int node = 0; node < nodeTotals.length; node++) {
+            markDirty(node);
+        }
+        return sourceLoads.length;
+    }
+
+    private int applyChangedSources() {
+        int count = sourceLoads.length;
+        if (changeProbability <= 0.0 || count == 0) {
+            return 0;
+        }
+        int changed = 0;
+        // Geometric skipping visits only the selected sources instead of testing every one
+        double logSkip = changeProbability < 1.0 ? Math.log(1.0 - changeProbability) : 0.0;
+        int s = changeProbability < 1.0 ? nextSkip(logSkip) : 0;
+        while (s < count) {
+            double load = loadSources.get(s).getCurrentLoad();
+            double delta = load - sourceLoads[s];
+            sourceLoads[s] = load;
+            int node = nodeOfSource[s];
+            if (node >= 0 && delta != 0.0) {
+                nodeTotals[node] += delta;
+                markDirty(node);
+            }
+            changed++;
+            int skip = changeProbability < 1.0 ? nextSkip(logSkip) : 0;
+            s = (skip >= count - s) ? count : s + 1 + skip;
+        }
+        return changed;
+    }
+
+    private int nextSkip(double logSkip) {
+        double u = 1.0 - selector.nextDouble(); // (0, 1]
+        double skip = Math.floor(Math.log(u) / logSkip);
+        return skip >= Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) skip;
+    }
+
+    private void flushDirtyNodes(double overloadThreshold) {
+        for (int i = 0; i < dirtyCount; i++) {
+            int node = dirtyNodes[i];
+            dirty[node] = false;
+            double load = Math.max(0, nodeTotals[node]);
+            gridState.setLoad(node, load);
+            boolean nowOverloaded = (load / gridState.getCapacity(node)) * 100.0 > overloadThreshold;
+            int position = overloadedPosition[node];
+            if (nowOverloaded && position < 0) {
+                overloadedPosition[node] = overloadedCount;
+                overloadedNodes[overloadedCount++] = node;
+            } else if (!nowOverloaded && position >= 0) {
+                // Swap-remove keeps the set dense
+                int last = overloadedNodes[--overloadedCount];
+                overloadedNodes[position] = last;
+                overloadedPosition[last] = position;
+                overloadedPosition[node] = -1;
+            }
+        }
+        dirtyCount = 0;
+    }
+}
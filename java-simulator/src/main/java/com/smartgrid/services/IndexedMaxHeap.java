@@ -0,0 +1,131 @@
+package com.smartgrid.services;
+
+import java.util.Arrays;
+
+/**
+ * Binary max-heap over integer ids {@code 0..capacity-1} with O(log n) key updates and removal.
+ * Not thread-safe.
+ */
+public final class IndexedMaxHeap {
+    private final int[] heap; // heap slot -> id
+    private final double[] keys; // heap slot -> key, kept beside ids to avoid indirection
+    private final int[] position; // id -> heap slot, -1 when absent
+    private int size;
+
+    public IndexedMaxHeap(int capacity) {
+        this.heap = new int[capacity];
+        this.position = new int[capacity];
+        this.keys = new double[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int id) {
+        return position[id] >= 0;
+    }
+
+    /**
+     * @return Current key of {@code id}; id must be present
+     */
+    public double key(int id) {
+        return keys[position[id]];
+    }
+
+    public void insert(int id, double key) {
+        if (contains(id)) {
+            update(id, key);
+            return;
+        }
+        int slot = size++;
+        siftUp(slot, id, key);
+    }
+
+    /**
+     * @return Id with the largest key; heap must not be empty
+     */
+    public int peek() {
+        return heap[0];
+    }
+
+    public int poll() {
+        int top = heap[0];
+        remove(top);
+        return top;
+    }
+
+    public void update(int id, double key) {
+        int slot = position[id];
+        if (key > keys[slot]) {
+            siftUp(slot, id, key);
+        } else {
+            siftDown(slot, id, key);
+        }
+    }
+
+    public void remove(int id) {
+        int slot = position[id];
+        if (slot < 0) {
+            return;
+        }
+        position[id] = -1;
+        int last = --size;
+        if (slot != last) {
+            int movedId = heap[last];
+            double movedKey = keys[last];
+            if (movedKey > keys[slot]) {
+                siftUp(slot, movedId, movedKey);
+            } else {
+                siftDown(slot, movedId, movedKey);
+            }
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int slot, int id, double key) {
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (keys[parent] >= key) {
+                break;
+            }
+            move(heap[parent], keys[parent], slot);
+            slot = parent;
+        }
+        move(id, key, slot);
+    }
+
+    private void siftDown(int slot, int id, double key) {
+        int half = size >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            int right = child + 1;
+            if (right < size && keys[right] > keys[child]) {
+                child = right;
+            }
+            if (key >= keys[child]) {
+                break;
+            }
+            move(heap[child], keys[child], slot);
+            slot = child;
+        }
+        move(id, key, slot);
+    }
+
+    private void move(int id, double key, int slot) {
+        heap[slot] = id;
+        keys[slot] = key;
+        position[id] = slot;
+    }
+}
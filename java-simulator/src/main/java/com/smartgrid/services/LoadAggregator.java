@@ -0,0 +1,87 @@
+package com.smartgrid.services;
+
+import com.smartgrid.models.GridState;
+import com.smartgrid.models.LoadSource;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Sums load source readings into node loads for one tick.
+ * Small grids are summed inline; larger ones are split into contiguous node chunks covering
+ * roughly {@code grainSize} sources each and run on a {@link ForkJoinPool}.
+ */
+public class LoadAggregator {
+    private final GridState gridState;
+    private final List<LoadSource> loadSources;
+    private final ForkJoinPool pool;
+
+    public LoadAggregator(GridState gridState, List<LoadSource> loadSources, ForkJoinPool pool) {
+        this.gridState = gridState;
+        this.loadSources = loadSources;
+        this.pool = pool;
+    }
+
+    /**
+     * Recomputes every node's load, choosing sequential or fork-join execution by source count.
+     */
+    public void aggregate(SourceAssignment assignment, int grainSize, int parallelThreshold) {
+        int nodeCount = assignment.getNodeCount();
+        if (nodeCount == 0) {
+            return;
+        }
+
+        // Small grids are cheaper to sum inline than to fan out
+        if (nodeCount < 2 || assignment.getAssignedSourceCount() <= parallelThreshold) {
+            aggregateRange(assignment, 0, nodeCount);
+            return;
+        }
+
+        pool.invoke(new AggregationTask(assignment, 0, nodeCount, Math.max(1, grainSize)));
+    }
+
+    /**
+     * Sums source loads into each node in {@code [fromNode, toNode)} on the calling thread.
+     */
+    public void aggregateRange(SourceAssignment assignment, int fromNode, int toNode) {
+        for (int node = fromNode; node < toNode; node++) {
+            double totalLoad = 0.0;
+            for (int p = assignment.start(node), end = assignment.end(node); p < end; p++) {
+                totalLoad += loadSources.get(assignment.sourceAt(p)).getCurrentLoad();
+            }
+            gridState.setLoad(node, Math.max(0, totalLoad));
+        }
+    }
+
+    /**
+     * Splits a contiguous node range until each chunk covers roughly {@code grainSize} sources.
+     */
+    private final class AggregationTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final SourceAssignment assignment;
+        private final int fromNode;
+        private final int toNode;
+        private final int grainSize;
+
+        AggregationTask(SourceAssignment assignment, int fromNode, int toNode, int grainSize) {
+            this.assignment = assignment;
+            this.fromNode = fromNode;
+            this.toNode = toNode;
+            this.grainSize = grainSize;
+        }
+
+        @Override
+        protected void compute() {
+            int work = assignment.end(toNode - 1) - assignment.start(fromNode);
+            if (toNode - fromNode < 2 || work <= grainSize) {
+                aggregateRange(assignment, fromNode, toNode);
+                return;
+            }
+            int mid = (fromNode + toNode) >>> 1;
+            invokeAll(new AggregationTask(assignment, fromNode, mid, grainSize),
+                    new AggregationTask(assignment, mid, toNode, grainSize));
+        }
+    }
+}
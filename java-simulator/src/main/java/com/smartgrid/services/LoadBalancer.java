@@ -1,137 +1,125 @@
 package com.smartgrid.services;
 
 import com.smartgrid.models.GridNode;
+import com.smartgrid.models.GridState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 
 /**
  * Load balancer implementing optimization logic for grid load distribution.
- * Uses thread-safe operations to redistribute load during peak demand.
+ * Delegates the redistribution algorithm to a pluggable {@link LoadBalancingStrategy}.
  */
 public class LoadBalancer {
     private static final Logger logger = LoggerFactory.getLogger(LoadBalancer.class);
-    private final double overloadThreshold; // percentage
-    private final double underloadThreshold; // percentage
+    private volatile double overloadThreshold; // percentage
+    private volatile double underloadThreshold; // percentage
+    private final LoadBalancingStrategy strategy;
 
     public LoadBalancer(double overloadThreshold, double underloadThreshold) {
+        this(overloadThreshold, underloadThreshold, new GreedyBalancingStrategy());
+    }
+
+    public LoadBalancer(double overloadThreshold, double underloadThreshold, LoadBalancingStrategy strategy) {
         this.overloadThreshold = overloadThreshold;
         this.underloadThreshold = underloadThreshold;
+        this.strategy = strategy;
+        logger.debug("Using {} load balancing strategy", strategy.getName());
     }
 
     /**
-     * Optimizes load distribution across grid nodes.
-     * Returns list of optimization actions taken.
+     * Optimizes load distribution across grid nodes, appending the actions taken to {@code actions}.
      */
-    public List<OptimizationAction> optimize(List<GridNode> nodes) {
-        List<OptimizationAction> actions = new ArrayList<>();
-        
-        // Identify overloaded and underloaded nodes
-        List<GridNode> overloaded = new ArrayList<>();
-        List<GridNode> underloaded = new ArrayList<>();
-        
-        for (GridNode node : nodes) {
-            double utilization = node.getUtilizationPercent();
-            if (utilization > overloadThreshold) {
-                overloaded.add(node);
-            } else if (utilization < underloadThreshold && node.getAvailableCapacity() > 0) {
-                underloaded.add(node);
-            }
-        }
+    public void optimize(List<GridNode> nodes, ActionBuffer actions) {
+        strategy.optimize(nodes, overloadThreshold, underloadThreshold, actions);
+    }
 
-        if (overloaded.isEmpty()) {
-            logger.debug("No overloaded nodes detected");
-            return actions;
-        }
+    /**
+     * Like {@link #optimize(List, ActionBuffer)}, drawing line capacity from {@code residualLineCapacity}
+     * so that several calls in one pass share it.
+     * @param residualLineCapacity From {@link #resetLineCapacity}; may be null if the strategy ignores lines
+     */
+    public void optimize(List<GridNode> nodes, ActionBuffer actions, double[] residualLineCapacity) {
+        strategy.optimize(nodes, overloadThreshold, underloadThreshold, actions, residualLineCapacity);
+    }
 
-        // Sort overloaded by utilization (descending), underloaded by available capacity (descending)
-        overloaded.sort(Comparator.comparingDouble(GridNode::getUtilizationPercent).reversed());
-        underloaded.sort(Comparator.comparingDouble(GridNode::getAvailableCapacity).reversed());
-
-        // Redistribute load
-        for (GridNode overloadedNode : overloaded) {
-            double excessLoad = overloadedNode.getCurrentLoad() - 
-                               (overloadedNode.getCapacity() * (overloadThreshold / 100.0));
-            
-            if (excessLoad <= 0) continue;
-
-            for (GridNode underloadedNode : underloaded) {
-                if (excessLoad <= 0) break;
-                
-                double availableCapacity = underloadedNode.getAvailableCapacity();
-                if (availableCapacity <= 0) continue;
-
-                double transferAmount = Math.min(excessLoad, availableCapacity * 0.5); // Transfer up to 50% of available
-                
-                // Perform the transfer
-                overloadedNode.setCurrentLoad(overloadedNode.getCurrentLoad() - transferAmount);
-                underloadedNode.setCurrentLoad(underloadedNode.getCurrentLoad() + transferAmount);
-                
-                OptimizationAction action = new OptimizationAction(
-                    overloadedNode.getNodeId(),
-                    underloadedNode.getNodeId(),
-                    transferAmount,
-                    "LOAD_TRANSFER"
-                );
-                actions.add(action);
-                
-                excessLoad -= transferAmount;
-                
-                logger.info("Transferred {} MW from {} to {}", 
-                           String.format("%.2f", transferAmount), 
-                           overloadedNode.getNodeId(), 
-                           underloadedNode.getNodeId());
-            }
-        }
+    /**
+     * @see LoadBalancingStrategy#resetLineCapacity(double[])
+     */
+    public double[] resetLineCapacity(double[] residual) {
+        return strategy.resetLineCapacity(residual);
+    }
+
+    /**
+     * Replaces both thresholds; call between passes, never while one is running.
+     */
+    public void setThresholds(double overloadThreshold, double underloadThreshold) {
+        this.overloadThreshold = overloadThreshold;
+        this.underloadThreshold = underloadThreshold;
+    }
 
-        return actions;
+    public LoadBalancingStrategy getStrategy() {
+        return strategy;
     }
 
     /**
-     * Detects nodes that exceed the threshold.
+     * Detects nodes that exceed the threshold, writing their ordinals in ascending order.
+     * @param overloaded Receives the ordinals; must hold {@code gridState.size()} entries
+     * @return Number of overloaded nodes
      */
-    public List<GridNode> detectOverloadedNodes(List<GridNode> nodes) {
-        return nodes.stream()
-                .filter(node -> node.isOverloaded(overloadThreshold))
-                .toList();
+    public int detectOverloadedNodes(GridState gridState, int[] overloaded) {
+        double threshold = overloadThreshold;
+        int count = 0;
+        for (int i = 0, n = gridState.size(); i < n; i++) {
+            if (gridState.getUtilizationPercent(i) > threshold) {
+                overloaded[count++] = i;
+            }
+        }
+        return count;
     }
 
+    /**
+     * A single action as a standalone value, e.g. for handing one action to another thread.
+     * Passes produce actions in an {@link ActionBuffer}.
+     */
     public static class OptimizationAction {
-        private final String fromNodeId;
-        private final String toNodeId;
+        private final int fromNode;
+        private final int toNode;
         private final double amount;
-        private final String actionType;
-
-        public OptimizationAction(String fromNodeId, String toNodeId, double amount, String actionType) {
-            this.fromNodeId = fromNodeId;
-            this.toNodeId = toNodeId;
+        private final ActionType type;
+
+        /**
+         * @param fromNode Ordinal of the node shedding load
+         * @param toNode Ordinal of the node receiving it
+         */
+        public OptimizationAction(int fromNode, int toNode, double amount, ActionType type) {
+            this.fromNode = fromNode;
+            this.toNode = toNode;
             this.amount = amount;
-            this.actionType = actionType;
+            this.type = type;
         }
 
-        public String getFromNodeId() {
-            return fromNodeId;
+        public int getFromNode() {
+            return fromNode;
         }
 
-        public String getToNodeId() {
-            return toNodeId;
+        public int getToNode() {
+            return toNode;
         }
 
         public double getAmount() {
             return amount;
         }
 
-        public String getActionType() {
-            return actionType;
+        public ActionType getType() {
+            return type;
         }
 
         @Override
         public String toString() {
-            return String.format("OptimizationAction[%s: %.2f MW from %s to %s]",
-                    actionType, amount, fromNodeId, toNodeId);
+            return String.format("OptimizationAction[%s: %.2f MW from #%d to #%d]",
+                    type, amount, fromNode, toNode);
         }
     }
 }
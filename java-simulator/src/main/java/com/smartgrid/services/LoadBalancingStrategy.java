@@ -0,0 +1,54 @@
+package com.smartgrid.services;
+
+import com.smartgrid.models.GridNode;
+
+import java.util.List;
+
+/**
+ * Algorithm used by {@link LoadBalancer} to move load from overloaded to underloaded nodes.
+ * Implementations mutate node loads in place and must be safe to call from several threads
+ * on disjoint node lists.
+ */
+public interface LoadBalancingStrategy {
+
+    /**
+     * Redistributes load across the given nodes.
+     * @param overloadThreshold Utilization percentage above which a node sheds load
+     * @param underloadThreshold Utilization percentage below which a node may receive load
+     * @param actions Receives the actions applied, in the order they were applied
+     */
+    void optimize(List<GridNode> nodes, double overloadThreshold, double underloadThreshold, ActionBuffer actions);
+
+    /**
+     * Redistributes load, drawing line capacity from {@code residualLineCapacity} and leaving
+     * what is unused in it, so several calls within one pass never exceed a line's rating.
+     * Strategies that ignore lines delegate to {@link #optimize(List, double, double, ActionBuffer)}.
+     */
+    default void optimize(List<GridNode> nodes, double overloadThreshold, double underloadThreshold,
+                          ActionBuffer actions, double[] residualLineCapacity) {
+        optimize(nodes, overloadThreshold, underloadThreshold, actions);
+    }
+
+    /**
+     * Sets every line to its full capacity at the start of a pass.
+     * @return {@code residual}, or a new array if it is null or of the wrong length; null if the
+     *         strategy ignores lines
+     */
+    default double[] resetLineCapacity(double[] residual) {
+        return null;
+    }
+
+    String getName();
+
+    /**
+     * Resolves a self-contained strategy by its configuration name ("greedy" or "heap").
+     * The "topology" strategy needs a {@link com.smartgrid.models.GridTopology} and is built directly.
+     */
+    static LoadBalancingStrategy forName(String name) {
+        return switch (name.trim().toLowerCase()) {
+            case "greedy" -> new GreedyBalancingStrategy();
+            case "heap" -> new HeapBalancingStrategy();
+            default -> throw new IllegalArgumentException("Unknown load balancing strategy: " + name);
+        };
+    }
+}
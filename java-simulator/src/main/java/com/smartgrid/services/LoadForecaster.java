@@ -0,0 +1,124 @@
+package com.smartgrid.services;
+
+import com.smartgrid.models.GridState;
+
+/**
+ * Per-node online load forecast using Holt's linear (double exponential) smoothing. Each
+ * tick updates every node's smoothed level and trend in place, so a forecast {@code h} ticks
+ * ahead is {@code level + h * trend} and costs nothing to produce. State lives in primitive
+ * arrays indexed by node ordinal.
+ * <p>
+ * Forecasts for the horizon are also kept in a ring of {@code horizon} slots (slot-major, one
+ * contiguous row of nodes per tick), so when a forecast matures it is compared against the
+ * observed load and the mean absolute error is reported.
+ * <p>
+ * Not thread-safe: call {@link #observe} inside a {@link GridState#beginUpdate()} phase.
+ */
+public class LoadForecaster {
+    private final double alpha;
+    private final double beta;
+    private final int horizon;
+    private final int nodeCount;
+    private final double[] level;
+    private final double[] trend;
+    private final double[] forecasts; // [slot * nodeCount + node], forecast for tick + horizon
+    private long observations;
+
+    /**
+     * @param alpha   Level smoothing factor in (0, 1]; higher follows the latest load more closely
+     * @param beta    Trend smoothing factor in (0, 1]
+     * @param horizon Ticks ahead that overloads are predicted
+     */
+    public LoadForecaster(int nodeCount, double alpha, double beta, int horizon) {
+        if (!(alpha > 0 && alpha <= 1) || !(beta > 0 && beta <= 1)) {
+            throw new IllegalArgumentException("Smoothing factors must be in (0, 1]: alpha=" + alpha + ", beta=" + beta);
+        }
+        if (horizon <= 0) {
+            throw new IllegalArgumentException("Forecast horizon must be positive: " + horizon);
+        }
+        this.alpha = alpha;
+        this.beta = beta;
+        this.horizon = horizon;
+        this.nodeCount = nodeCount;
+        this.level = new double[nodeCount];
+        this.trend = new double[nodeCount];
+        this.forecasts = new double[nodeCount * horizon];
+    }
+
+    /**
+     * Folds the tick's loads into every node's level and trend.
+     * @return Mean absolute error, in MW, of the forecasts made {@code horizon} ticks ago, or
+     *         NaN while none has matured yet
+     */
+    public double observe(GridState gridState) {
+        int row = (int) (observations % horizon) * nodeCount;
+        boolean matured = observations >= horizon;
+        double absoluteError = 0;
+        if (observations == 0) {
+            for (int i = 0; i < nodeCount; i++) {
+                level[i] = gridState.getLoad(i);
+                forecasts[row + i] = level[i];
+            }
+        } else {
+            for (int i = 0; i < nodeCount; i++) {
+                double load = gridState.getLoad(i);
+                if (matured) {
+                    absoluteError += Math.abs(load - forecasts[row + i]);
+                }
+                double previousLevel = level[i];
+                double nextLevel = alpha * load + (1 - alpha) * (previousLevel + trend[i]);
+                double nextTrend = beta * (nextLevel - previousLevel) + (1 - beta) * trend[i];
+                level[i] = nextLevel;
+                trend[i] = nextTrend;
+                forecasts[row + i] = nextLevel + horizon * nextTrend;
+            }
+        }
+        observations++;
+        return matured && nodeCount > 0 ? absoluteError / nodeCount : Double.NaN;
+    }
+
+    /**
+     * @return Forecast load {@code steps} ticks after the last observation
+     */
+    public double forecast(int node, int steps) {
+        return level[node] + steps * trend[node];
+    }
+
+    /**
+     * @return Highest forecast load within the horizon; on a linear forecast that is one tick
+     *         ahead when load is falling and the full horizon when it is rising
+     */
+    public double peakForecast(int node) {
+        return level[node] + Math.max(trend[node], horizon * trend[node]);
+    }
+
+    public int getHorizon() {
+        return horizon;
+    }
+
+    public long getObservations() {
+        return observations;
+    }
+
+    /**
+     * @return Copy of levels, trends and pending forecasts
+     */
+    public SimulationCheckpoint.Forecast captureState() {
+        return new SimulationCheckpoint.Forecast(observations, level.clone(), trend.clone(), forecasts.clone());
+    }
+
+    /**
+     * Overwrites the forecaster with a captured state of the same node count and horizon.
+     */
+    public void restoreState(SimulationCheckpoint.Forecast state) {
+        if (state.getLevels().length != nodeCount || state.getPendingForecasts().length != forecasts.length) {
+            throw new IllegalArgumentException("Captured forecast covers " + state.getLevels().length + " nodes and "
+                    + state.getPendingForecasts().length + " pending forecasts, forecaster has " + nodeCount
+                    + " and " + forecasts.length);
+        }
+        System.arraycopy(state.getLevels(), 0, level, 0, nodeCount);
+        System.arraycopy(state.getTrends(), 0, trend, 0, nodeCount);
+        System.arraycopy(state.getPendingForecasts(), 0, forecasts, 0, forecasts.length);
+        observations = state.getObservations();
+    }
+}
@@ -0,0 +1,281 @@
+package com.smartgrid.services;
+
+import com.smartgrid.models.GridState;
+import com.smartgrid.models.LoadScenario;
+import com.smartgrid.models.LoadSource;
+import com.smartgrid.utils.SplitMix64;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Evaluates a {@link LoadScenario} for every source once per tick. Source parameters and
+ * random states live in primitive arrays, and everything that is uniform across a tick
+ * (curve multipliers, regional shock factors, event multipliers) is resolved to a few
+ * scalars first, so the per-source loop is a handful of multiplies over contiguous arrays.
+ * Large populations are evaluated in fork-join chunks.
+ * <p>
+ * Noise uses each template source's own random stream, and shocks and event membership
+ * derive from the given generator, so a run is reproducible under the simulation seed.
+ * Not thread-safe: call {@link #evaluate} and {@link #assign} from one writer phase at a time.
+ */
+public class LoadProfileEngine {
+    private static final byte CONSUMER = 0;
+    private static final byte PRODUCER = 1;
+    private static final double[] SIGNS = {1.0, -1.0};
+
+    private final LoadScenario scenario;
+    private final GridState gridState;
+    private final ForkJoinPool pool;
+    private final String[] sourceIds;
+    private final String[] sourceTypes;
+    private final double[] baseLoads;
+    private final double[] variability;
+    private final byte[] sourceClass;
+    private final long[] randomStates;
+    private final double[] loads;
+    private final String[] regionNames;
+    private final double[] regionShocks;
+    private final SplitMix64 shockRandom;
+    private final long eventSeed;
+    private int[] regionSlot; // region index + 1 per source; 0 when unassigned
+    private int[][] eventMembers;
+
+    public LoadProfileEngine(LoadScenario scenario, List<LoadSource> templates, GridState gridState,
+                             SplitMix64 random, ForkJoinPool pool) {
+        this.scenario = scenario;
+        this.gridState = gridState;
+        this.pool = pool;
+        int count = templates.size();
+        this.sourceIds = new String[count];
+        this.sourceTypes = new String[count];
+        this.baseLoads = new double[count];
+        this.variability = new double[count];
+        this.sourceClass = new byte[count];
+        this.randomStates = new long[count];
+        this.loads = new double[count];
+        for (int i = 0; i < count; i++) {
+            LoadSource template = templates.get(i);
+            sourceIds[i] = template.getSourceId();
+            sourceTypes[i] = template.getType();
+            baseLoads[i] = template.getBaseLoad();
+            variability[i] = template.getVariabilityFactor() * scenario.getNoiseScale();
+            sourceClass[i] = "PRODUCER".equals(template.getType()) ? PRODUCER : CONSUMER;
+            randomStates[i] = template.getRandom().getState();
+        }
+
+        TreeSet<String> regions = new TreeSet<>();
+        for (int i = 0; i < gridState.size(); i++) {
+            regions.add(gridState.getRegion(i));
+        }
+        this.regionNames = regions.toArray(new String[0]);
+        this.regionShocks = new double[regionNames.length];
+        this.shockRandom = random.split();
+        this.eventSeed = random.nextLong();
+        this.regionSlot = new int[count];
+        this.eventMembers = new int[scenario.getEvents().size()][];
+        Arrays.fill(eventMembers, new int[0]);
+    }
+
+    /**
+     * Creates one source per template, reading its value from the latest evaluation.
+     */
+    public List<LoadSource> createSources() {
+        List<LoadSource> sources = new ArrayList<>(sourceIds.length);
+        for (int i = 0; i < sourceIds.length; i++) {
+            sources.add(new ProfiledLoadSource(i));
+        }
+        return sources;
+    }
+
+    /**
+     * Resolves each source's region through its node and picks event members.
+     */
+    public void assign(SourceAssignment assignment) {
+        int[] slots = new int[sourceIds.length];
+        for (int node = 0; node < assignment.getNodeCount(); node++) {
+            int slot = Arrays.binarySearch(regionNames, gridState.getRegion(node)) + 1;
+            for (int p = assignment.start(node), end = assignment.end(node); p < end; p++) {
+                slots[assignment.sourceAt(p)] = slot;
+            }
+        }
+        this.regionSlot = slots;
+
+        List<LoadScenario.Event> events = scenario.getEvents();
+        int[][] members = new int[events.size()][];
+        for (int e = 0; e < events.size(); e++) {
+            LoadScenario.Event event = events.get(e);
+            int regionFilter = 0;
+            if (event.getRegion() != null) {
+                regionFilter = Arrays.binarySearch(regionNames, event.getRegion()) + 1;
+                if (regionFilter <= 0) {
+                    throw new IllegalArgumentException("Event '" + event.getId() + "' targets unknown region "
+                            + event.getRegion());
+                }
+            }
+            int[] selected = new int[16];
+            int size = 0;
+            long eventKey = SplitMix64.mix(eventSeed + e);
+            for (int i = 0; i < sourceIds.length; i++) {
+                if (!event.getSources().matches(sourceClass[i] == PRODUCER)
+                        || (regionFilter != 0 && slots[i] != regionFilter)) {
+                    continue;
+                }
+                // Hash-based choice keeps membership stable across runs and independent of evaluation order
+                double draw = (SplitMix64.mix(eventKey ^ i) >>> 11) * 0x1.0p-53;
+                if (draw < event.getFraction()) {
+                    if (size == selected.length) {
+                        selected = Arrays.copyOf(selected, size * 2);
+                    }
+                    selected[size++] = i;
+                }
+            }
+            members[e] = Arrays.copyOf(selected, size);
+        }
+        this.eventMembers = members;
+    }
+
+    /**
+     * Computes every source's load for the given simulated time.
+     */
+    public void evaluate(long simulatedMillis, int grainSize, int parallelThreshold) {
+        double scenarioSeconds = scenario.getStartSecondOfDay() + simulatedMillis / 1000.0 * scenario.getTimeScale();
+        double secondOfDay = scenarioSeconds % LoadScenario.SECONDS_PER_DAY;
+        double[] classMultipliers = {
+                scenario.consumerMultiplier(secondOfDay),
+                scenario.producerMultiplier(secondOfDay)
+        };
+        double[] regionFactors = advanceShocks();
+
+        int count = sourceIds.length;
+        if (count <= parallelThreshold) {
+            evaluateRange(0, count, classMultipliers, regionFactors);
+        } else {
+            pool.invoke(new EvaluationTask(0, count, Math.max(1, grainSize), classMultipliers, regionFactors));
+        }
+
+        List<LoadScenario.Event> events = scenario.getEvents();
+        for (int e = 0; e < events.size(); e++) {
+            double multiplier = events.get(e).multiplierAt(scenarioSeconds);
+            if (multiplier != 1.0) {
+                for (int source : eventMembers[e]) {
+                    loads[source] *= multiplier;
+                }
+            }
+        }
+    }
+
+    public LoadScenario getScenario() {
+        return scenario;
+    }
+
+    /**
+     * @return Copy of every source's parameters and random state, and of the regional shocks
+     */
+    public SimulationCheckpoint.Sources captureState() {
+        return new SimulationCheckpoint.Sources(baseLoads.clone(), variability.clone(), randomStates.clone(),
+                regionShocks.clone(), shockRandom.getState());
+    }
+
+    /**
+     * Overwrites source parameters, random states and regional shocks with a captured state.
+     */
+    public void restoreState(SimulationCheckpoint.Sources state) {
+        if (state.size() != sourceIds.length || state.getRegionShocks() == null
+                || state.getRegionShocks().length != regionShocks.length) {
+            throw new IllegalArgumentException("Captured scenario state does not match " + sourceIds.length
+                    + " sources in " + regionShocks.length + " regions");
+        }
+        System.arraycopy(state.getBaseLoads(), 0, baseLoads, 0, baseLoads.length);
+        System.arraycopy(state.getVariability(), 0, variability, 0, variability.length);
+        System.arraycopy(state.getRandomStates(), 0, randomStates, 0, randomStates.length);
+        System.arraycopy(state.getRegionShocks(), 0, regionShocks, 0, regionShocks.length);
+        shockRandom.setState(state.getShockRandomState());
+    }
+
+    /**
+     * Steps each region's AR(1) shock once.
+     * @return Multipliers indexed by region slot (slot 0, unassigned sources, stays 1)
+     */
+    private double[] advanceShocks() {
+        double[] factors = new double[regionNames.length + 1];
+        factors[0] = 1.0;
+        double sigma = scenario.getShockSigma();
+        double persistence = scenario.getShockPersistence();
+        for (int r = 0; r < regionShocks.length; r++) {
+            if (sigma > 0) {
+                regionShocks[r] = persistence * regionShocks[r] + sigma * nextGaussian();
+            }
+            factors[r + 1] = Math.max(0.0, 1.0 + regionShocks[r]);
+        }
+        return factors;
+    }
+
+    private double nextGaussian() {
+        // Box-Muller; 1 - u keeps the logarithm finite
+        double u = 1.0 - shockRandom.nextDouble();
+        double v = shockRandom.nextDouble();
+        return Math.sqrt(-2.0 * Math.log(u)) * Math.cos(2.0 * Math.PI * v);
+    }
+
+    private void evaluateRange(int from, int to, double[] classMultipliers, double[] regionFactors) {
+        int[] slots = regionSlot;
+        for (int i = from; i < to; i++) {
+            int c = sourceClass[i];
+            double noise = (SplitMix64.nextDouble(randomStates, i) - 0.5) * 2 * variability[i];
+            double load = baseLoads[i] * classMultipliers[c] * regionFactors[slots[i]] * (1 + noise);
+            loads[i] = SIGNS[c] * Math.abs(load);
+        }
+    }
+
+    private final class EvaluationTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int grainSize;
+        private final double[] classMultipliers;
+        private final double[] regionFactors;
+
+        EvaluationTask(int from, int to, int grainSize, double[] classMultipliers, double[] regionFactors) {
+            this.from = from;
+            this.to = to;
+            this.grainSize = grainSize;
+            this.classMultipliers = classMultipliers;
+            this.regionFactors = regionFactors;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grainSize) {
+                evaluateRange(from, to, classMultipliers, regionFactors);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new EvaluationTask(from, mid, grainSize, classMultipliers, regionFactors),
+                    new EvaluationTask(mid, to, grainSize, classMultipliers, regionFactors));
+        }
+    }
+
+    /**
+     * Source whose reading is its slot of the latest evaluation. Its random stream lives in
+     * {@code randomStates}, so it carries no generator of its own.
+     */
+    private final class ProfiledLoadSource extends LoadSource {
+        private final int index;
+
+        ProfiledLoadSource(int index) {
+            super(sourceIds[index], sourceTypes[index], baseLoads[index], variability[index], null);
+            this.index = index;
+        }
+
+        @Override
+        public double getCurrentLoad() {
+            return loads[index];
+        }
+    }
+}
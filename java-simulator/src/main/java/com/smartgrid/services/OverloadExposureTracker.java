@@ -0,0 +1,178 @@
+package com.smartgrid.services;
+
+import com.smartgrid.models.GridState;
+
+/**
+ * Measures how long nodes stay overloaded, and how much of that overload the last optimization
+ * pass saw coming.
+ * <p>
+ * Overload-seconds are integrated over simulated time from the loads the grid actually holds:
+ * the count of overloaded nodes is taken after every tick and after every pass's transfers, and
+ * held until the next one. They measure the balancing mode the run uses, so runs with the same
+ * seeds that differ only in {@code forecast.predictiveBalancing} compare the two modes.
+ * <p>
+ * Each pass also flags nodes: those overloaded at the pass, and those overloaded or forecast
+ * to overload within the horizon. Every tick, each overloaded node outside a flag set adds the
+ * tick's length to that set's unflagged seconds. The forecast set contains the other, so its
+ * total never exceeds the other's; the gap is overload the forecast flagged early, not an
+ * outcome of either balancing mode.
+ * <p>
+ * A forecast alert is a node flagged only by the forecast; it is false if the node did not
+ * overload before the next pass. Not thread-safe: call it inside writer phases; totals may be
+ * read from any thread.
+ */
+public class OverloadExposureTracker {
+    private static final byte OVERLOADED = 1; // overloaded at the last pass
+    private static final byte FORECAST = 2; // overloaded or forecast to overload at the last pass
+    private static final byte SEEN = 4; // checkpointed flag bit for overloadSeen
+
+    private final byte[] flags;
+    private final boolean[] overloadSeen;
+    private int overloadedCount; // overloaded nodes as of observedAtMillis
+    private long observedAtMillis = -1; // simulated time of the last observation, -1 before the first
+    private volatile double overloadSeconds;
+    private volatile double unflaggedSeconds;
+    private volatile double unforecastSeconds;
+    private volatile long alerts;
+    private volatile long falseAlerts;
+
+    public OverloadExposureTracker(int nodeCount) {
+        this.flags = new byte[nodeCount];
+        this.overloadSeen = new boolean[nodeCount];
+    }
+
+    /**
+     * Closes the previous pass's window and flags nodes from the loads the pass starts with.
+     */
+    public void beginPass(GridState gridState, LoadForecaster forecaster, double overloadThreshold) {
+        long raised = 0;
+        long missed = 0;
+        for (int i = 0; i < flags.length; i++) {
+            if (flags[i] == FORECAST && !overloadSeen[i]) {
+                missed++;
+            }
+            double capacity = gridState.getCapacity(i);
+            boolean overloaded = (gridState.getLoad(i) / capacity) * 100.0 > overloadThreshold;
+            boolean predicted = (forecaster.peakForecast(i) / capacity) * 100.0 > overloadThreshold;
+            flags[i] = (byte) ((overloaded ? OVERLOADED | FORECAST : 0) | (predicted ? FORECAST : 0));
+            if (predicted && !overloaded) {
+                raised++;
+            }
+            overloadSeen[i] = false;
+        }
+        alerts += raised;
+        falseAlerts += missed;
+    }
+
+    /**
+     * Charges the time since the last observation and recounts overloaded nodes from the loads
+     * the pass's transfers left.
+     */
+    public void endPass(GridState gridState, double overloadThreshold, long nowMillis) {
+        int overloaded = 0;
+        for (int i = 0; i < flags.length; i++) {
+            if (gridState.getUtilizationPercent(i) > overloadThreshold) {
+                overloaded++;
+            }
+        }
+        advanceTo(nowMillis, overloaded);
+    }
+
+    /**
+     * Charges the time since the last observation, recounts overloaded nodes from the tick's
+     * loads and charges them to the flag sets that missed them.
+     */
+    public void observeTick(GridState gridState, double overloadThreshold, double tickSeconds, long nowMillis) {
+        int overloaded = 0;
+        long unflagged = 0;
+        long unforecast = 0;
+        for (int i = 0; i < flags.length; i++) {
+            if (gridState.getUtilizationPercent(i) > overloadThreshold) {
+                overloaded++;
+                int flagged = flags[i];
+                if ((flagged & OVERLOADED) == 0) {
+                    unflagged++;
+                }
+                if ((flagged & FORECAST) == 0) {
+                    unforecast++;
+                }
+                overloadSeen[i] = true;
+            }
+        }
+        unflaggedSeconds += unflagged * tickSeconds;
+        unforecastSeconds += unforecast * tickSeconds;
+        advanceTo(nowMillis, overloaded);
+    }
+
+    private void advanceTo(long nowMillis, int overloaded) {
+        if (observedAtMillis >= 0 && nowMillis > observedAtMillis) {
+            overloadSeconds += overloadedCount * (nowMillis - observedAtMillis) / 1000.0;
+        }
+        overloadedCount = overloaded;
+        observedAtMillis = nowMillis;
+    }
+
+    /**
+     * @return Copy of the totals and the current pass window
+     */
+    public SimulationCheckpoint.Exposure captureState() {
+        byte[] nodeFlags = new byte[flags.length];
+        for (int i = 0; i < nodeFlags.length; i++) {
+            nodeFlags[i] = (byte) (flags[i] | (overloadSeen[i] ? SEEN : 0));
+        }
+        return new SimulationCheckpoint.Exposure(overloadSeconds, unflaggedSeconds, unforecastSeconds, alerts,
+                falseAlerts, observedAtMillis, overloadedCount, nodeFlags);
+    }
+
+    /**
+     * Overwrites the tracker with a captured state of the same node count.
+     */
+    public void restoreState(SimulationCheckpoint.Exposure state) {
+        byte[] nodeFlags = state.getNodeFlags();
+        if (nodeFlags.length != flags.length) {
+            throw new IllegalArgumentException("Captured exposure covers " + nodeFlags.length + " nodes, tracker has "
+                    + flags.length);
+        }
+        for (int i = 0; i < nodeFlags.length; i++) {
+            flags[i] = (byte) (nodeFlags[i] & (OVERLOADED | FORECAST));
+            overloadSeen[i] = (nodeFlags[i] & SEEN) != 0;
+        }
+        overloadSeconds = state.getOverloadSeconds();
+        unflaggedSeconds = state.getUnflaggedSeconds();
+        unforecastSeconds = state.getUnforecastSeconds();
+        alerts = state.getAlerts();
+        falseAlerts = state.getFalseAlerts();
+        observedAtMillis = state.getObservedAtMillis();
+        overloadedCount = state.getOverloadedCount();
+    }
+
+    /**
+     * @return Simulated node-seconds spent overloaded, up to the last observation
+     */
+    public double getOverloadSeconds() {
+        return overloadSeconds;
+    }
+
+    /**
+     * @return Simulated node-seconds overloaded on nodes that were not overloaded at the preceding pass
+     */
+    public double getUnflaggedSeconds() {
+        return unflaggedSeconds;
+    }
+
+    /**
+     * @return Simulated node-seconds overloaded on nodes neither overloaded nor forecast to
+     *         overload at the preceding pass
+     */
+    public double getUnforecastSeconds() {
+        return unforecastSeconds;
+    }
+
+    public long getAlerts() {
+        return alerts;
+    }
+
+    public long getFalseAlerts() {
+        return falseAlerts;
+    }
+}
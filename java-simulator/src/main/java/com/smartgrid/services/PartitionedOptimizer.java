@@ -0,0 +1,233 @@
+package com.smartgrid.services;
+
+import com.smartgrid.models.GridNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a {@link LoadBalancer} over each partition concurrently, then settles cross-partition
+ * transfers with a single reconciliation pass over the whole grid. Both phases draw on the same
+ * residual line capacity, so a pass never moves more over a line than it is rated for. Actions
+ * are returned in partition order followed by reconciliation actions, so results are
+ * deterministic for deterministic strategies regardless of scheduling.
+ */
+public class PartitionedOptimizer {
+    private final LoadBalancer loadBalancer;
+    private final GridPartitioner partitioner;
+    private final ExecutorService executorService;
+    private final List<ActionBuffer> partitionActions = new ArrayList<>();
+    private final ActionBuffer actions = new ActionBuffer();
+    private double[] loadsBefore = new double[0]; // node loads at the start of the pass, for rollback
+    private double[] residualLineCapacity; // null for strategies that ignore lines
+
+    public PartitionedOptimizer(LoadBalancer loadBalancer, GridPartitioner partitioner,
+                                ExecutorService executorService) {
+        this.loadBalancer = loadBalancer;
+        this.partitioner = partitioner;
+        this.executorService = executorService;
+    }
+
+    /**
+     * Runs one pass. Action buffers are reused between passes, so the returned result's actions
+     * are only valid until the next call; passes must not overlap.
+     * <p>
+     * Reconciliation starts only once every partition task has finished. If any partition fails,
+     * the pass is abandoned: all node loads are rolled back to where the pass found them and an
+     * {@link IllegalStateException} is thrown, so no transfer is left applied without being reported.
+     */
+    public Result optimize(List<GridNode> nodes) {
+        residualLineCapacity = loadBalancer.resetLineCapacity(residualLineCapacity);
+        return optimize(nodes, residualLineCapacity);
+    }
+
+    /**
+     * Like {@link #optimize(List)}, but draws on line capacity the caller has already partly
+     * spent, so transfers made earlier in the same pass count against each line's rating.
+     * @param residual From {@link #resetLineCapacity}, less what earlier transfers used; may be
+     *                 null if the strategy ignores lines
+     */
+    public Result optimize(List<GridNode> nodes, double[] residual) {
+        List<List<GridNode>> partitions = partitioner.partition(nodes);
+        actions.clear();
+        while (partitionActions.size() < partitions.size()) {
+            partitionActions.add(new ActionBuffer());
+        }
+        if (loadsBefore.length < nodes.size()) {
+            loadsBefore = new double[nodes.size()];
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            loadsBefore[i] = nodes.get(i).getCurrentLoad();
+        }
+        // Line capacity left is shared by the partitions (which use disjoint lines) and reconciliation
+
+        if (partitions.size() == 1) {
+            long start = System.nanoTime();
+            try {
+                loadBalancer.optimize(partitions.get(0), actions, residual);
+            } catch (RuntimeException e) {
+                rollBack(nodes);
+                throw e;
+            }
+            PartitionResult only = new PartitionResult(partitionLabel(partitions.get(0), 0),
+                    partitions.get(0).size(), actions.size(), System.nanoTime() - start);
+            return new Result(actions, List.of(only), 0, 0);
+        }
+
+        List<Future<PartitionResult>> futures = new ArrayList<>(partitions.size());
+        for (int i = 0; i < partitions.size(); i++) {
+            List<GridNode> partition = partitions.get(i);
+            String label = partitionLabel(partition, i);
+            ActionBuffer buffer = partitionActions.get(i);
+            buffer.clear();
+            futures.add(executorService.submit(() -> {
+                long start = System.nanoTime();
+                loadBalancer.optimize(partition, buffer, residual);
+                return new PartitionResult(label, partition.size(), buffer.size(), System.nanoTime() - start);
+            }));
+        }
+
+        // Partition tasks cannot be stopped safely mid-pass, so wait for every one of them, however long
+        List<PartitionResult> partitionResults = new ArrayList<>(partitions.size());
+        Throwable failure = null;
+        boolean interrupted = false;
+        for (int i = 0; i < futures.size(); i++) {
+            Future<PartitionResult> future = futures.get(i);
+            while (true) {
+                try {
+                    partitionResults.add(future.get());
+                    actions.addAll(partitionActions.get(i));
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null || interrupted) {
+            rollBack(nodes);
+            actions.clear();
+            throw new IllegalStateException(interrupted ? "Interrupted during partitioned optimization"
+                    : "Partition optimization failed; pass rolled back", failure);
+        }
+
+        // Settle what partitions could not resolve locally
+        int before = actions.size();
+        long reconcileStart = System.nanoTime();
+        try {
+            loadBalancer.optimize(nodes, actions, residual);
+        } catch (RuntimeException e) {
+            rollBack(nodes);
+            actions.clear();
+            throw e;
+        }
+        long reconcileNanos = System.nanoTime() - reconcileStart;
+
+        return new Result(actions, partitionResults, actions.size() - before, reconcileNanos);
+    }
+
+    /**
+     * @see LoadBalancer#resetLineCapacity(double[])
+     */
+    public double[] resetLineCapacity(double[] residual) {
+        return loadBalancer.resetLineCapacity(residual);
+    }
+
+    private void rollBack(List<GridNode> nodes) {
+        for (int i = 0; i < nodes.size(); i++) {
+            nodes.get(i).setCurrentLoad(loadsBefore[i]);
+        }
+    }
+
+    private static String partitionLabel(List<GridNode> partition, int index) {
+        if (partition.isEmpty()) {
+            return "partition-" + index;
+        }
+        String region = partition.get(0).getRegion();
+        return region != null ? region : "partition-" + index;
+    }
+
+    public GridPartitioner getPartitioner() {
+        return partitioner;
+    }
+
+    /**
+     * Timing and action count for a single partition.
+     */
+    public static class PartitionResult {
+        private final String label;
+        private final int nodeCount;
+        private final int actionCount;
+        private final long elapsedNanos;
+
+        PartitionResult(String label, int nodeCount, int actionCount, long elapsedNanos) {
+            this.label = label;
+            this.nodeCount = nodeCount;
+            this.actionCount = actionCount;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public int getNodeCount() {
+            return nodeCount;
+        }
+
+        public int getActionCount() {
+            return actionCount;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+
+    /**
+     * Outcome of a full partitioned pass.
+     */
+    public static class Result {
+        private final ActionBuffer actions;
+        private final List<PartitionResult> partitions;
+        private final int reconciliationActions;
+        private final long reconciliationNanos;
+
+        Result(ActionBuffer actions, List<PartitionResult> partitions,
+               int reconciliationActions, long reconciliationNanos) {
+            this.actions = actions;
+            this.partitions = partitions;
+            this.reconciliationActions = reconciliationActions;
+            this.reconciliationNanos = reconciliationNanos;
+        }
+
+        /**
+         * @return Partition actions in partition order, then reconciliation actions; reused by the next pass
+         */
+        public ActionBuffer getActions() {
+            return actions;
+        }
+
+        public List<PartitionResult> getPartitions() {
+            return partitions;
+        }
+
+        public int getReconciliationActions() {
+            return reconciliationActions;
+        }
+
+        public long getReconciliationNanos() {
+            return reconciliationNanos;
+        }
+    }
+}
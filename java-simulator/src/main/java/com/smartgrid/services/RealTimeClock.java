@@ -0,0 +1,130 @@
+package com.smartgrid.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Wall-clock mode: tasks run on a scheduled thread pool at fixed rates and
+ * {@link #run(long)} simply waits for the duration to pass.
+ */
+public class RealTimeClock implements SimulationClock {
+    private static final Logger logger = LoggerFactory.getLogger(RealTimeClock.class);
+
+    private final ScheduledExecutorService scheduler;
+    private final CountDownLatch stopped;
+    private final long startNanos;
+    private final Map<String, Periodic> periodic = new HashMap<>(); // guarded by this
+
+    public RealTimeClock() {
+        this(Executors.defaultThreadFactory(), 2);
+    }
+
+    public RealTimeClock(ThreadFactory threadFactory, int threads) {
+        this.scheduler = Executors.newScheduledThreadPool(threads, threadFactory);
+        this.stopped = new CountDownLatch(1);
+        this.startNanos = System.nanoTime();
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    @Override
+    public Instant now() {
+        return Instant.now();
+    }
+
+    @Override
+    public synchronized void schedulePeriodic(String name, Runnable task, long initialDelayMillis, long periodMillis) {
+        Periodic registered = new Periodic(name, task);
+        registered.future = scheduler.scheduleAtFixedRate(registered, initialDelayMillis, periodMillis,
+                TimeUnit.MILLISECONDS);
+        periodic.put(name, registered);
+    }
+
+    @Override
+    public synchronized void reschedule(String name, long periodMillis) {
+        Periodic registered = periodic.get(name);
+        if (registered == null) {
+            throw new IllegalArgumentException("No task named " + name);
+        }
+        long nextDelay = Math.max(0, registered.future.getDelay(TimeUnit.MILLISECONDS));
+        registered.future.cancel(false);
+        registered.future = scheduler.scheduleAtFixedRate(registered, nextDelay, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void run(long durationMillis) throws InterruptedException {
+        stopped.await(durationMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        stopped.countDown();
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public synchronized long nextRunMillis(String name) {
+        Periodic registered = periodic.get(name);
+        if (registered == null) {
+            throw new IllegalArgumentException("No task named " + name);
+        }
+        return currentTimeMillis() + Math.max(0, registered.future.getDelay(TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public String getName() {
+        return "realtime";
+    }
+
+    /**
+     * A periodic task; runs are serialized, so a rescheduled task never overlaps a run still in progress.
+     * Tasks block on API calls and partition futures, so runs are guarded by a lock rather than a
+     * monitor, which would pin a virtual scheduler thread to its carrier.
+     */
+    private static final class Periodic implements Runnable {
+        private final String name;
+        private final Runnable task;
+        private final ReentrantLock runLock = new ReentrantLock();
+        private ScheduledFuture<?> future; // guarded by the clock
+
+        Periodic(String name, Runnable task) {
+            this.name = name;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            runLock.lock();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                // An escaping exception would silently cancel the periodic task
+                logger.error("Error in {} task", name, e);
+            } finally {
+                runLock.unlock();
+            }
+        }
+    }
+}
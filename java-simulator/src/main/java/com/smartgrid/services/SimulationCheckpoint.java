@@ -0,0 +1,609 @@
+package com.smartgrid.services;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Engine state at a tick boundary: node capacities and loads, the source assignment, source
+ * parameters and random states, the report and change-selection generators, the tick number,
+ * the simulated time and when each periodic task runs next, and in incremental aggregation
+ * the running totals and the nodes whose transfers are still to be reconciled, and with
+ * forecasting the per-node forecaster and overload exposure state. Restoring it
+ * into an engine built from the same configuration continues the same trajectory.
+ * <p>
+ * Files are little-endian, every section 8-byte aligned, so both directions are bulk copies
+ * through a memory mapping:
+ * <pre>
+ * header   magic, version, flags, node count, source count, region count, task count,
+ *          seed, tick, simulated ms, report / selector / shock generator states
+ * tasks    per task: name length (u16), UTF-8 name, padding, next run (simulated ms)
+ * nodes    capacities, loads (f64)
+ * assign   node each source feeds (i32, -1 when unassigned)
+ * sources  base loads, variability (f64), random states (i64), region shocks (f64, scenarios only)
+ * totals   incremental aggregation only: ticks since full recompute, dirty and overloaded
+ *          counts, source loads, node totals (f64), dirty nodes, overloaded nodes (i32)
+ * forecast forecasting only: observations, horizon, levels, trends, pending forecasts (f64)
+ * exposure forecasting only: overload, unflagged and unforecast seconds (f64), alerts, false
+ *          alerts, last observation (simulated ms), overloaded count (i64), per-node flag and
+ *          overload-seen bits (u8)
+ * </pre>
+ * Files are written to a temporary sibling and moved into place, so a crash mid-write leaves
+ * the previous checkpoint intact.
+ */
+public final class SimulationCheckpoint {
+    static final int MAGIC = 0x53474b50; // "SGKP"
+    static final short VERSION = 3; // 2 added the forecast and exposure sections, 3 measured overload-seconds
+    private static final short FLAG_SCENARIO = 1;
+    private static final short FLAG_INCREMENTAL = 2;
+    private static final short FLAG_FORECAST = 4;
+    private static final int HEADER_SIZE = 72;
+
+    private final long seed;
+    private final long epoch;
+    private final long simulatedMillis;
+    private final long reportRandomState;
+    private final long changeSelectorState;
+    private final Map<String, Long> nextRuns;
+    private final double[] capacities;
+    private final double[] loads;
+    private final int[] nodeOfSource;
+    private final Sources sources;
+    private final Aggregation aggregation; // null in full aggregation mode
+    private final Forecast forecast; // null without forecasting
+    private final Exposure exposure; // null without forecasting
+
+    /**
+     * @param nextRuns     Simulated time of each periodic task's next run, in registration order
+     * @param nodeOfSource Node each source feeds, or -1 when unassigned
+     */
+    public SimulationCheckpoint(long seed, long epoch, long simulatedMillis, long reportRandomState,
+                                long changeSelectorState, Map<String, Long> nextRuns, double[] capacities,
+                                double[] loads, int[] nodeOfSource, Sources sources, Aggregation aggregation,
+                                Forecast forecast, Exposure exposure) {
+        if (loads.length != capacities.length || nodeOfSource.length != sources.size()) {
+            throw new IllegalArgumentException("Inconsistent checkpoint: " + capacities.length + " capacities, "
+                    + loads.length + " loads, " + nodeOfSource.length + " assigned and " + sources.size() + " sources");
+        }
+        if ((forecast == null) != (exposure == null)) {
+            throw new IllegalArgumentException("Inconsistent checkpoint: forecast and exposure state go together");
+        }
+        this.seed = seed;
+        this.epoch = epoch;
+        this.simulatedMillis = simulatedMillis;
+        this.reportRandomState = reportRandomState;
+        this.changeSelectorState = changeSelectorState;
+        this.nextRuns = Collections.unmodifiableMap(new LinkedHashMap<>(nextRuns));
+        this.capacities = capacities;
+        this.loads = loads;
+        this.nodeOfSource = nodeOfSource;
+        this.sources = sources;
+        this.aggregation = aggregation;
+        this.forecast = forecast;
+        this.exposure = exposure;
+    }
+
+    /**
+     * Maps a checkpoint file and bulk-copies its sections out.
+     */
+    public static SimulationCheckpoint read(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large for a checkpoint (" + channel.size() + " bytes)");
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException(file + " is not a simulation checkpoint");
+            }
+            short version = buffer.getShort();
+            if (version != VERSION) {
+                throw new IOException(file + " has unsupported checkpoint version " + version);
+            }
+            short flags = buffer.getShort();
+            int nodeCount = buffer.getInt();
+            int sourceCount = buffer.getInt();
+            int regionCount = buffer.getInt();
+            int taskCount = buffer.getInt();
+            long seed = buffer.getLong();
+            long epoch = buffer.getLong();
+            long simulatedMillis = buffer.getLong();
+            long reportRandomState = buffer.getLong();
+            long changeSelectorState = buffer.getLong();
+            long shockRandomState = buffer.getLong();
+            buffer.position(HEADER_SIZE);
+
+            Map<String, Long> nextRuns = new LinkedHashMap<>();
+            for (int t = 0; t < taskCount; t++) {
+                byte[] name = new byte[Short.toUnsignedInt(buffer.getShort())];
+                buffer.get(name);
+                buffer.position(align8(buffer.position()));
+                nextRuns.put(new String(name, StandardCharsets.UTF_8), buffer.getLong());
+            }
+
+            double[] capacities = doubles(buffer, nodeCount);
+            double[] loads = doubles(buffer, nodeCount);
+            int[] nodeOfSource = ints(buffer, sourceCount);
+            double[] baseLoads = doubles(buffer, sourceCount);
+            double[] variability = doubles(buffer, sourceCount);
+            long[] randomStates = longs(buffer, sourceCount);
+            double[] regionShocks = (flags & FLAG_SCENARIO) != 0 ? doubles(buffer, regionCount) : null;
+            Sources sources = new Sources(baseLoads, variability, randomStates, regionShocks, shockRandomState);
+
+            Aggregation aggregation = null;
+            if ((flags & FLAG_INCREMENTAL) != 0) {
+                long ticksSinceFullRecompute = buffer.getLong();
+                int dirtyCount = buffer.getInt();
+                int overloadedCount = buffer.getInt();
+                aggregation = new Aggregation(ticksSinceFullRecompute, doubles(buffer, sourceCount),
+                        doubles(buffer, nodeCount), ints(buffer, dirtyCount), ints(buffer, overloadedCount));
+            }
+
+            Forecast forecast = null;
+            Exposure exposure = null;
+            if ((flags & FLAG_FORECAST) != 0) {
+                long observations = buffer.getLong();
+                int horizon = (int) buffer.getLong();
+                forecast = new Forecast(observations, doubles(buffer, nodeCount), doubles(buffer, nodeCount),
+                        doubles(buffer, Math.multiplyExact(nodeCount, horizon)));
+                double overloadSeconds = buffer.getDouble();
+                double unflaggedSeconds = buffer.getDouble();
+                double unforecastSeconds = buffer.getDouble();
+                long alerts = buffer.getLong();
+                long falseAlerts = buffer.getLong();
+                long observedAtMillis = buffer.getLong();
+                int overloadedCount = Math.toIntExact(buffer.getLong());
+                exposure = new Exposure(overloadSeconds, unflaggedSeconds, unforecastSeconds, alerts, falseAlerts,
+                        observedAtMillis, overloadedCount, bytes(buffer, nodeCount));
+            }
+            return new SimulationCheckpoint(seed, epoch, simulatedMillis, reportRandomState, changeSelectorState,
+                    nextRuns, capacities, loads, nodeOfSource, sources, aggregation, forecast, exposure);
+        } catch (RuntimeException e) {
+            // Buffer under- and overflows, negative counts
+            throw new IOException(file + " is truncated or corrupt", e);
+        }
+    }
+
+    /**
+     * Writes the checkpoint through a mapping of a temporary file, forces it to disk, then
+     * replaces {@code file} with it.
+     */
+    public void write(Path file) throws IOException {
+        byte[][] names = new byte[nextRuns.size()][];
+        long size = HEADER_SIZE;
+        int t = 0;
+        for (String name : nextRuns.keySet()) {
+            names[t] = name.getBytes(StandardCharsets.UTF_8);
+            size += align8(2L + names[t].length) + 8;
+            t++;
+        }
+        int nodeCount = capacities.length;
+        int sourceCount = sources.size();
+        double[] regionShocks = sources.getRegionShocks();
+        size += 16L * nodeCount + align8(4L * sourceCount) + 24L * sourceCount;
+        if (regionShocks != null) {
+            size += 8L * regionShocks.length;
+        }
+        if (aggregation != null) {
+            size += 16 + 8L * sourceCount + 8L * nodeCount + align8(4L * aggregation.getDirtyNodes().length)
+                    + align8(4L * aggregation.getOverloadedNodes().length);
+        }
+        if (forecast != null) {
+            size += 16 + 16L * nodeCount + 8L * forecast.getPendingForecasts().length;
+            size += 56 + align8(nodeCount);
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Checkpoint of " + size + " bytes is too large");
+        }
+
+        Path absolute = file.toAbsolutePath();
+        if (absolute.getParent() != null) {
+            Files.createDirectories(absolute.getParent());
+        }
+        Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        ByteBuffer buffer = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putShort((short) ((regionShocks != null ? FLAG_SCENARIO : 0) | (aggregation != null ? FLAG_INCREMENTAL : 0)
+                | (forecast != null ? FLAG_FORECAST : 0)));
+        buffer.putInt(nodeCount);
+        buffer.putInt(sourceCount);
+        buffer.putInt(regionShocks != null ? regionShocks.length : 0);
+        buffer.putInt(names.length);
+        buffer.putLong(seed);
+        buffer.putLong(epoch);
+        buffer.putLong(simulatedMillis);
+        buffer.putLong(reportRandomState);
+        buffer.putLong(changeSelectorState);
+        buffer.putLong(sources.getShockRandomState());
+        buffer.position(HEADER_SIZE);
+
+        t = 0;
+        for (long nextRun : nextRuns.values()) {
+            buffer.putShort((short) names[t].length);
+            buffer.put(names[t]);
+            buffer.position(align8(buffer.position()));
+            buffer.putLong(nextRun);
+            t++;
+        }
+
+        put(buffer, capacities);
+        put(buffer, loads);
+        put(buffer, nodeOfSource);
+        put(buffer, sources.getBaseLoads());
+        put(buffer, sources.getVariability());
+        put(buffer, sources.getRandomStates());
+        if (regionShocks != null) {
+            put(buffer, regionShocks);
+        }
+        if (aggregation != null) {
+            buffer.putLong(aggregation.getTicksSinceFullRecompute());
+            buffer.putInt(aggregation.getDirtyNodes().length);
+            buffer.putInt(aggregation.getOverloadedNodes().length);
+            put(buffer, aggregation.getSourceLoads());
+            put(buffer, aggregation.getNodeTotals());
+            put(buffer, aggregation.getDirtyNodes());
+            put(buffer, aggregation.getOverloadedNodes());
+        }
+        if (forecast != null) {
+            buffer.putLong(forecast.getObservations());
+            buffer.putLong(forecast.getPendingForecasts().length / Math.max(1, nodeCount));
+            put(buffer, forecast.getLevels());
+            put(buffer, forecast.getTrends());
+            put(buffer, forecast.getPendingForecasts());
+            buffer.putDouble(exposure.getOverloadSeconds());
+            buffer.putDouble(exposure.getUnflaggedSeconds());
+            buffer.putDouble(exposure.getUnforecastSeconds());
+            buffer.putLong(exposure.getAlerts());
+            buffer.putLong(exposure.getFalseAlerts());
+            buffer.putLong(exposure.getObservedAtMillis());
+            buffer.putLong(exposure.getOverloadedCount());
+            put(buffer, exposure.getNodeFlags());
+        }
+        mapped.force();
+        Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static double[] doubles(ByteBuffer buffer, int count) {
+        double[] values = new double[count];
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + 8 * count);
+        return values;
+    }
+
+    private static long[] longs(ByteBuffer buffer, int count) {
+        long[] values = new long[count];
+        buffer.asLongBuffer().get(values);
+        buffer.position(buffer.position() + 8 * count);
+        return values;
+    }
+
+    private static int[] ints(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(align8(buffer.position() + 4 * count));
+        return values;
+    }
+
+    private static byte[] bytes(ByteBuffer buffer, int count) {
+        byte[] values = new byte[count];
+        buffer.get(values);
+        buffer.position(align8(buffer.position()));
+        return values;
+    }
+
+    private static void put(ByteBuffer buffer, byte[] values) {
+        buffer.put(values);
+        buffer.position(align8(buffer.position()));
+    }
+
+    private static void put(ByteBuffer buffer, double[] values) {
+        buffer.asDoubleBuffer().put(values);
+        buffer.position(buffer.position() + 8 * values.length);
+    }
+
+    private static void put(ByteBuffer buffer, long[] values) {
+        buffer.asLongBuffer().put(values);
+        buffer.position(buffer.position() + 8 * values.length);
+    }
+
+    private static void put(ByteBuffer buffer, int[] values) {
+        buffer.asIntBuffer().put(values);
+        buffer.position(align8(buffer.position() + 4 * values.length));
+    }
+
+    private static int align8(int value) {
+        return (value + 7) & ~7;
+    }
+
+    private static long align8(long value) {
+        return (value + 7) & ~7L;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return Tick number of the captured state
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public long getSimulatedMillis() {
+        return simulatedMillis;
+    }
+
+    public long getReportRandomState() {
+        return reportRandomState;
+    }
+
+    public long getChangeSelectorState() {
+        return changeSelectorState;
+    }
+
+    /**
+     * @return Simulated time of each periodic task's next run, by task name
+     */
+    public Map<String, Long> getNextRuns() {
+        return nextRuns;
+    }
+
+    public int getNodeCount() {
+        return capacities.length;
+    }
+
+    public double[] getCapacities() {
+        return capacities;
+    }
+
+    public double[] getLoads() {
+        return loads;
+    }
+
+    public int[] getNodeOfSource() {
+        return nodeOfSource;
+    }
+
+    public Sources getSources() {
+        return sources;
+    }
+
+    /**
+     * @return Incremental aggregation state, or null if captured in full aggregation mode
+     */
+    public Aggregation getAggregation() {
+        return aggregation;
+    }
+
+    /**
+     * @return Forecaster state, or null if captured without forecasting
+     */
+    public Forecast getForecast() {
+        return forecast;
+    }
+
+    /**
+     * @return Overload exposure tracker state, or null if captured without forecasting
+     */
+    public Exposure getExposure() {
+        return exposure;
+    }
+
+    /**
+     * Per-source parameters and random states, plus regional shocks when a scenario drives them.
+     */
+    public static final class Sources {
+        private final double[] baseLoads;
+        private final double[] variability;
+        private final long[] randomStates;
+        private final double[] regionShocks; // null without a scenario
+        private final long shockRandomState;
+
+        public Sources(double[] baseLoads, double[] variability, long[] randomStates, double[] regionShocks,
+                       long shockRandomState) {
+            if (variability.length != baseLoads.length || randomStates.length != baseLoads.length) {
+                throw new IllegalArgumentException("Source arrays differ in length");
+            }
+            this.baseLoads = baseLoads;
+            this.variability = variability;
+            this.randomStates = randomStates;
+            this.regionShocks = regionShocks;
+            this.shockRandomState = shockRandomState;
+        }
+
+        public int size() {
+            return baseLoads.length;
+        }
+
+        public double[] getBaseLoads() {
+            return baseLoads;
+        }
+
+        public double[] getVariability() {
+            return variability;
+        }
+
+        public long[] getRandomStates() {
+            return randomStates;
+        }
+
+        /**
+         * @return AR(1) shock per region in name order, or null without a scenario
+         */
+        public double[] getRegionShocks() {
+            return regionShocks;
+        }
+
+        public long getShockRandomState() {
+            return shockRandomState;
+        }
+    }
+
+    /**
+     * Running state of {@link IncrementalLoadAggregator}.
+     */
+    public static final class Aggregation {
+        private final long ticksSinceFullRecompute;
+        private final double[] sourceLoads;
+        private final double[] nodeTotals;
+        private final int[] dirtyNodes;
+        private final int[] overloadedNodes;
+
+        public Aggregation(long ticksSinceFullRecompute, double[] sourceLoads, double[] nodeTotals,
+                           int[] dirtyNodes, int[] overloadedNodes) {
+            this.ticksSinceFullRecompute = ticksSinceFullRecompute;
+            this.sourceLoads = sourceLoads;
+            this.nodeTotals = nodeTotals;
+            this.dirtyNodes = dirtyNodes;
+            this.overloadedNodes = overloadedNodes;
+        }
+
+        public long getTicksSinceFullRecompute() {
+            return ticksSinceFullRecompute;
+        }
+
+        public double[] getSourceLoads() {
+            return sourceLoads;
+        }
+
+        public double[] getNodeTotals() {
+            return nodeTotals;
+        }
+
+        /**
+         * @return Nodes whose published load a transfer overwrote, restored from their totals next tick
+         */
+        public int[] getDirtyNodes() {
+            return dirtyNodes;
+        }
+
+        /**
+         * @return Overloaded nodes, in the aggregator's order
+         */
+        public int[] getOverloadedNodes() {
+            return overloadedNodes;
+        }
+    }
+
+    /**
+     * Running state of {@link LoadForecaster}.
+     */
+    public static final class Forecast {
+        private final long observations;
+        private final double[] levels;
+        private final double[] trends;
+        private final double[] pendingForecasts;
+
+        public Forecast(long observations, double[] levels, double[] trends, double[] pendingForecasts) {
+            this.observations = observations;
+            this.levels = levels;
+            this.trends = trends;
+            this.pendingForecasts = pendingForecasts;
+        }
+
+        public long getObservations() {
+            return observations;
+        }
+
+        public double[] getLevels() {
+            return levels;
+        }
+
+        public double[] getTrends() {
+            return trends;
+        }
+
+        /**
+         * @return Forecasts not yet matured, one row of nodes per horizon slot
+         */
+        public double[] getPendingForecasts() {
+            return pendingForecasts;
+        }
+    }
+
+    /**
+     * Running state of {@link OverloadExposureTracker}.
+     */
+    public static final class Exposure {
+        private final double overloadSeconds;
+        private final double unflaggedSeconds;
+        private final double unforecastSeconds;
+        private final long alerts;
+        private final long falseAlerts;
+        private final long observedAtMillis;
+        private final int overloadedCount;
+        private final byte[] nodeFlags;
+
+        /**
+         * @param observedAtMillis Simulated time of the last observation, or -1 before the first
+         * @param overloadedCount  Nodes overloaded as of that observation
+         */
+        public Exposure(double overloadSeconds, double unflaggedSeconds, double unforecastSeconds, long alerts,
+                        long falseAlerts, long observedAtMillis, int overloadedCount, byte[] nodeFlags) {
+            this.overloadSeconds = overloadSeconds;
+            this.unflaggedSeconds = unflaggedSeconds;
+            this.unforecastSeconds = unforecastSeconds;
+            this.alerts = alerts;
+            this.falseAlerts = falseAlerts;
+            this.observedAtMillis = observedAtMillis;
+            this.overloadedCount = overloadedCount;
+            this.nodeFlags = nodeFlags;
+        }
+
+        public double getOverloadSeconds() {
+            return overloadSeconds;
+        }
+
+        public double getUnflaggedSeconds() {
+            return unflaggedSeconds;
+        }
+
+        public double getUnforecastSeconds() {
+            return unforecastSeconds;
+        }
+
+        public long getAlerts() {
+            return alerts;
+        }
+
+        public long getFalseAlerts() {
+            return falseAlerts;
+        }
+
+        public long getObservedAtMillis() {
+            return observedAtMillis;
+        }
+
+        public int getOverloadedCount() {
+            return overloadedCount;
+        }
+
+        /**
+         * @return Per node, the flag sets holding it in the current pass window and whether it
+         *         has overloaded since the pass, as {@link OverloadExposureTracker} packs them
+         */
+        public byte[] getNodeFlags() {
+            return nodeFlags;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.smartgrid.services;
+
+import java.time.Instant;
+
+/**
+ * Time source and event scheduler driving a {@link SimulationEngine}.
+ * Periodic tasks registered before {@link #run(long)} fire at simulated times; tasks registered
+ * earlier win ties at the same timestamp.
+ */
+public interface SimulationClock {
+
+    /**
+     * @return Simulated milliseconds elapsed since the clock started
+     */
+    long currentTimeMillis();
+
+    /**
+     * @return Simulated wall-clock instant, used to timestamp readings
+     */
+    Instant now();
+
+    /**
+     * Registers a task that first fires after {@code initialDelayMillis} and then every {@code periodMillis}.
+     */
+    void schedulePeriodic(String name, Runnable task, long initialDelayMillis, long periodMillis);
+
+    /**
+     * Changes the period of the task registered under {@code name}. Its next run keeps its
+     * scheduled time; the new period applies from there.
+     */
+    void reschedule(String name, long periodMillis);
+
+    /**
+     * @return Simulated time, on this clock, at which the task registered under {@code name} runs next
+     */
+    long nextRunMillis(String name);
+
+    /**
+     * Runs the simulation for {@code durationMillis} of simulated time, blocking until done or stopped.
+     */
+    void run(long durationMillis) throws InterruptedException;
+
+    /**
+     * Stops dispatching events and releases any threads.
+     */
+    void stop();
+
+    String getName();
+
+    /**
+     * Resolves a clock by its configuration name ("realtime" or "virtual").
+     */
+    static SimulationClock forName(String name) {
+        return forName(name, ExecutionMode.PLATFORM);
+    }
+
+    /**
+     * Resolves a clock by name; a real-time clock runs its tasks on threads chosen by {@code mode}.
+     */
+    static SimulationClock forName(String name, ExecutionMode mode) {
+        return switch (name.trim().toLowerCase()) {
+            case "realtime" -> new RealTimeClock(mode.schedulerThreadFactory("sim-clock-"), mode.schedulerThreads());
+            case "virtual" -> new VirtualClock(Instant.now());
+            default -> throw new IllegalArgumentException("Unknown simulation clock: " + name);
+        };
+    }
+}
@@ -1,16 +1,47 @@
 package com.smartgrid.services;
 
+import com.smartgrid.metrics.AllocationMeter;
+import com.smartgrid.metrics.Counter;
+import com.smartgrid.metrics.Histogram;
+import com.smartgrid.metrics.MetricsHttpServer;
+import com.smartgrid.metrics.MetricsMBean;
+import com.smartgrid.metrics.MetricsRegistry;
 import com.smartgrid.models.GridNode;
+import com.smartgrid.models.GridState;
+import com.smartgrid.models.GridTopology;
+import com.smartgrid.models.LoadScenario;
 import com.smartgrid.models.LoadSource;
-import com.smartgrid.models.Sensor;
+import com.smartgrid.models.SensorFrame;
+import com.smartgrid.models.SensorFrameRing;
 import com.smartgrid.utils.ApiClient;
+import com.smartgrid.utils.AsyncApiPublisher;
+import com.smartgrid.utils.BinaryTelemetryCodec;
 import com.smartgrid.utils.ConfigLoader;
+import com.smartgrid.utils.ConfigWatcher;
+import com.smartgrid.utils.LoadTrace;
+import com.smartgrid.utils.SplitMix64;
+import com.smartgrid.utils.TimeSeriesRecorder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.management.JMException;
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Multi-threaded simulation engine for the smart grid.
@@ -18,209 +49,1211 @@ import java.util.concurrent.*;
  */
 public class SimulationEngine {
     private static final Logger logger = LoggerFactory.getLogger(SimulationEngine.class);
+
+    /**
+     * Keys {@link #reloadConfig} applies to a running engine; changes to any other key need a restart.
+     */
+    static final Set<String> RELOADABLE_KEYS = Set.of(
+            "grid.overloadThreshold",
+            "grid.underloadThreshold",
+            "simulation.loadUpdateInterval",
+            "simulation.optimizationInterval",
+            "simulation.reportingInterval",
+            "simulation.threadPoolSize",
+            "simulation.tickGrainSize",
+            "simulation.parallelTickThreshold");
     
+    private final GridState gridState;
     private final List<GridNode> gridNodes;
     private final List<LoadSource> loadSources;
     private final LoadBalancer loadBalancer;
+    private final PartitionedOptimizer optimizer;
+    private final ActionBuffer passActions = new ActionBuffer(); // predictive then reactive actions of the last pass
+    private final LoadForecaster forecaster; // null unless forecasting
+    private final OverloadExposureTracker exposureTracker; // null unless forecasting
+    private final GridState planState; // forecast loads the predictive pass plans on; null unless predictive
+    private final List<GridNode> planNodes;
+    private final PartitionedOptimizer planner; // null unless predictive
+    private double[] passLineCapacity; // line capacity left in the current pass; null if the strategy ignores lines
     private final ExecutorService executorService;
-    private final ScheduledExecutorService scheduler;
+    private final ForkJoinPool tickPool;
+    private final boolean ownsTickPool; // false when the pool is shared with other engines
+    private final LoadAggregator loadAggregator;
+    private final IncrementalLoadAggregator incrementalAggregator; // null in full aggregation mode
+    private final SimulationClock clock;
+    private final boolean apiEnabled;
     private final ApiClient apiClient;
-    private final ConfigLoader config;
+    private final AsyncApiPublisher apiPublisher; // null when API calls are synchronous
+    private final TimeSeriesRecorder recorder; // null when recording is disabled
+    private TraceReplay traceReplay; // null when sources draw random loads
+    private LoadProfileEngine loadProfile; // null when no scenario is configured
+    private volatile ConfigLoader config; // replaced whole by reloadConfig; phases read it once
+    private ConfigLoader balancerConfig; // config the balancer thresholds were last taken from
+    private ConfigWatcher configWatcher; // null unless watching the configuration file
+    private final ReentrantLock reloadLock = new ReentrantLock(); // serializes reloadConfig
+    private final MetricsRegistry metrics;
+    private final Histogram tickDuration;
+    private final Histogram optimizationDuration;
+    private final Histogram reportDuration;
+    private final Histogram transfersPerPass;
+    private final Counter transfersTotal;
+    private final Counter megawattsMoved;
+    private final Counter overloadedNodeSeconds;
+    private final Counter unpublishedReports;
+    private final Histogram tickAllocations;
+    private final Histogram optimizationAllocations;
+    private final Histogram reportAllocations;
+    private final Histogram checkpointPause;
+    private final Histogram forecastError;
+    private final Counter predictiveTransfers;
+    private volatile int lastOverloadedCount;
+    private int[] overloadedScratch = new int[0]; // ordinals of the pass's overloaded nodes
+    private MetricsHttpServer metricsServer; // null when the HTTP endpoint is disabled or failed to bind
+    private MetricsMBean metricsBean; // null when JMX export is disabled
+    private final long seed;
+    private final long resumedAtMillis; // simulated time a restored run continues from; 0 for a fresh run
+    private final Map<String, Long> resumeNextRuns; // next run of each task after a restore; empty otherwise
+    private final List<String> scheduledTasks = new ArrayList<>();
+    private final Path checkpointFile; // null when checkpointing is off
+    private final ExecutorService checkpointWriter; // null when checkpointing is off
+    private final AtomicBoolean checkpointInFlight = new AtomicBoolean();
+    private SplitMix64 reportRandom; // advanced only by reports, which run outside the grid's writer lock
+    private volatile long reportRandomState; // reportRandom as the last completed report left it, for checkpoints
+    private SplitMix64 changeSelector;
+    private final SensorFrameRing frameRing;
+    private final SensorFrame overflowFrame; // filled when every ring frame is still queued for the API
+    private final GridReport gridReport;
+    private volatile double lastTotalLoad;
+    private volatile double lastTotalCapacity;
+    private SourceAssignment appliedAssignment; // assignment the aggregator and load profile were last set up for
+    private volatile SourceAssignment sourceAssignment;
     private volatile boolean running;
 
     public SimulationEngine(ConfigLoader config) {
+        this(config, null);
+    }
+
+    /**
+     * @param sharedPool Fork-join pool for tick and partition work shared with other engines
+     *                   (left running on {@link #stop()}), or null for a pool of simulation.threadPoolSize
+     */
+    public SimulationEngine(ConfigLoader config, ForkJoinPool sharedPool) {
+        this(config, sharedPool, null);
+    }
+
+    /**
+     * @param restore Checkpoint taken from an engine with the same configuration to continue
+     *                from, or null to start fresh; its seed replaces simulation.seed
+     */
+    public SimulationEngine(ConfigLoader config, ForkJoinPool sharedPool, SimulationCheckpoint restore) {
         this.config = config;
+        this.gridState = new GridState(Math.max(1, config.getNumberOfNodes()));
         this.gridNodes = new ArrayList<>();
         this.loadSources = new ArrayList<>();
-        this.loadBalancer = new LoadBalancer(
-            config.getOverloadThreshold(),
-            config.getUnderloadThreshold()
-        );
-        this.executorService = Executors.newFixedThreadPool(config.getThreadPoolSize());
-        this.scheduler = Executors.newScheduledThreadPool(2);
-        this.apiClient = new ApiClient(config.getApiEndpoint());
+        ExecutionMode executionMode = ExecutionMode.forName(config.getExecutionMode());
+        this.ownsTickPool = sharedPool == null;
+        this.tickPool = ownsTickPool ? new ForkJoinPool(config.getThreadPoolSize()) : sharedPool;
+        this.executorService = executionMode.createWorkerPool(config.getThreadPoolSize(), tickPool);
+        this.clock = SimulationClock.forName(config.getClockMode(), executionMode);
+        this.metrics = new MetricsRegistry();
+        this.tickDuration = metrics.histogram("smartgrid_tick_duration_seconds",
+            "Duration of a load update phase", MetricsRegistry.NANOS_TO_SECONDS);
+        this.optimizationDuration = metrics.histogram("smartgrid_optimization_duration_seconds",
+            "Duration of an optimization phase", MetricsRegistry.NANOS_TO_SECONDS);
+        this.reportDuration = metrics.histogram("smartgrid_report_duration_seconds",
+            "Duration of a status report, including handing readings to the API", MetricsRegistry.NANOS_TO_SECONDS);
+        this.transfersPerPass = metrics.histogram("smartgrid_transfers_per_pass",
+            "Load transfers applied by one optimization pass", 1.0);
+        this.transfersTotal = metrics.counter("smartgrid_transfers_total", "Load transfers applied");
+        this.megawattsMoved = metrics.counter("smartgrid_transferred_megawatts_total", "MW moved by load transfers");
+        this.overloadedNodeSeconds = metrics.counter("smartgrid_overloaded_node_seconds_total",
+            "Simulated seconds nodes spent overloaded, sampled at each optimization pass");
+        this.unpublishedReports = metrics.counter("smartgrid_report_unpublished_total",
+            "Status reports not sent to the API because every report frame was still queued");
+        this.tickAllocations = metrics.histogram("smartgrid_tick_allocated_bytes",
+            "Bytes allocated by the thread running a load update (fork-join chunks excluded)", 1.0);
+        this.optimizationAllocations = metrics.histogram("smartgrid_optimization_allocated_bytes",
+            "Bytes allocated by the thread running an optimization phase (partition workers excluded)", 1.0);
+        this.reportAllocations = metrics.histogram("smartgrid_report_allocated_bytes",
+            "Bytes allocated by the thread running a status report", 1.0);
+        this.checkpointPause = metrics.histogram("smartgrid_checkpoint_pause_seconds",
+            "Time grid updates were held back while checkpoint state was copied", MetricsRegistry.NANOS_TO_SECONDS);
+        this.forecastError = metrics.histogram("smartgrid_forecast_abs_error_megawatts",
+            "Mean absolute error per tick of node load forecasts as they mature", 1e-3);
+        this.predictiveTransfers = metrics.counter("smartgrid_predictive_transfers_total",
+            "Load transfers planned on forecast loads by the predictive pass");
+        this.apiEnabled = config.isApiEnabled();
+        this.apiClient = new ApiClient(config.getApiEndpoint(), gridState, config.getApiMaxConnections(),
+            config.isApiGzip(), config.getApiFormat(),
+            metrics.histogram("smartgrid_api_send_duration_seconds",
+                "Duration of API requests, successful or not", MetricsRegistry.NANOS_TO_SECONDS));
+        this.apiPublisher = apiEnabled && config.isApiAsync()
+            ? new AsyncApiPublisher(
+                apiClient,
+                config.getApiQueueCapacity(),
+                config.getApiBatchSize(),
+                config.getApiLingerMillis(),
+                config.getApiOverflowPolicy(),
+                config.getApiBlockTimeoutMillis())
+            : null;
+        this.seed = restore != null ? restore.getSeed() : config.getSimulationSeed().orElseGet(System::nanoTime);
+        this.resumedAtMillis = restore != null ? restore.getSimulatedMillis() : 0;
+        this.resumeNextRuns = restore != null ? restore.getNextRuns() : Map.of();
+        this.frameRing = new SensorFrameRing(config.getReportFrameRingSize(), config.getNumberOfNodes());
+        this.overflowFrame = new SensorFrame(config.getNumberOfNodes());
         this.running = false;
         
         initializeGrid();
+        this.gridReport = new GridReport(gridState, config.getReportTopNodes());
+        this.recorder = createRecorder();
+        this.loadAggregator = new LoadAggregator(gridState, loadSources, tickPool);
+        this.incrementalAggregator = createIncrementalAggregator();
+        this.appliedAssignment = sourceAssignment;
+        this.loadBalancer = new LoadBalancer(
+            config.getOverloadThreshold(),
+            config.getUnderloadThreshold(),
+            createBalancingStrategy()
+        );
+        this.balancerConfig = config;
+        this.optimizer = new PartitionedOptimizer(
+            loadBalancer,
+            GridPartitioner.forName(config.getPartitioner()),
+            executorService
+        );
+        if (config.isForecastEnabled()) {
+            this.forecaster = new LoadForecaster(gridNodes.size(), config.getForecastAlpha(), config.getForecastBeta(),
+                config.getForecastHorizonTicks());
+            this.exposureTracker = new OverloadExposureTracker(gridNodes.size());
+        } else {
+            this.forecaster = null;
+            this.exposureTracker = null;
+        }
+        if (config.isPredictiveBalancing()) {
+            // A twin of the grid holding forecast loads; ordinals match, so planned actions apply directly
+            this.planState = new GridState(Math.max(1, gridNodes.size()));
+            this.planNodes = new ArrayList<>(gridNodes.size());
+            for (int i = 0; i < gridNodes.size(); i++) {
+                planNodes.add(new GridNode(planState, planState.addNode(gridState.getNodeId(i),
+                    gridState.getRegion(i), gridState.getCapacity(i))));
+            }
+            this.planner = new PartitionedOptimizer(
+                loadBalancer,
+                GridPartitioner.forName(config.getPartitioner()),
+                executorService
+            );
+        } else {
+            this.planState = null;
+            this.planNodes = List.of();
+            this.planner = null;
+        }
+        if (restore != null) {
+            applyCheckpoint(restore);
+        }
+
+        boolean checkpointing = config.isCheckpointEnabled();
+        if (checkpointing && traceReplay != null) {
+            logger.warn("Checkpoints are not supported while replaying a load trace; ignoring checkpoint.enabled");
+            checkpointing = false;
+        }
+        this.checkpointFile = checkpointing ? Paths.get(config.getCheckpointFile()) : null;
+        this.checkpointWriter = checkpointing ? Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "checkpoint-writer");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        registerGauges();
+    }
+
+    private void registerGauges() {
+        metrics.gauge("smartgrid_tick", "Number of completed grid update phases", gridState::getEpoch);
+        metrics.gauge("smartgrid_nodes", "Grid nodes", gridState::size);
+        metrics.gauge("smartgrid_overloaded_nodes", "Overloaded nodes at the last optimization pass",
+            () -> lastOverloadedCount);
+        metrics.gauge("smartgrid_total_load_megawatts", "Total grid load at the last status report",
+            () -> lastTotalLoad);
+        metrics.gauge("smartgrid_total_capacity_megawatts", "Total grid capacity at the last status report",
+            () -> lastTotalCapacity);
+        metrics.gauge("smartgrid_report_frames_in_flight", "Report frames held by a report or queued for the API",
+            frameRing::inFlight);
+        if (exposureTracker != null) {
+            // Named by mode, so a sweep over forecast.predictiveBalancing puts the two side by side
+            String mode = config.isPredictiveBalancing() ? "predictive" : "reactive";
+            metrics.counter("smartgrid_overload_seconds_" + mode + "_total",
+                "Simulated node-seconds nodes spent overloaded after " + mode + " balancing",
+                exposureTracker::getOverloadSeconds);
+            metrics.counter("smartgrid_overload_seconds_unflagged_total",
+                "Simulated node-seconds overloaded on nodes not overloaded at the preceding pass",
+                exposureTracker::getUnflaggedSeconds);
+            metrics.counter("smartgrid_overload_seconds_unforecast_total",
+                "Simulated node-seconds overloaded on nodes neither overloaded nor forecast to overload "
+                    + "at the preceding pass",
+                exposureTracker::getUnforecastSeconds);
+            metrics.counter("smartgrid_forecast_alerts_total",
+                "Nodes not overloaded at a pass but forecast to overload within the horizon",
+                exposureTracker::getAlerts);
+            metrics.counter("smartgrid_forecast_false_alerts_total",
+                "Forecast alerts whose node did not overload before the next pass",
+                exposureTracker::getFalseAlerts);
+        }
+        if (apiPublisher != null) {
+            metrics.gauge("smartgrid_api_queue_depth", "Records waiting in the API publisher queue",
+                apiPublisher::getQueueDepth);
+            metrics.counter("smartgrid_api_sent_records_total", "Records accepted by the API",
+                apiPublisher::getSentRecords);
+            metrics.counter("smartgrid_api_dropped_records_total", "Records dropped by the API publisher overflow policy",
+                apiPublisher::getDroppedRecords);
+            metrics.counter("smartgrid_api_failed_batches_total", "API batches that were rejected or failed",
+                apiPublisher::getFailedBatches);
+        }
+    }
+
+    /**
+     * Starts the Prometheus endpoint and JMX bean if configured. Failures are logged, not fatal.
+     */
+    private void startMetricsExport() {
+        if (config.isMetricsHttpEnabled()) {
+            try {
+                metricsServer = new MetricsHttpServer(metrics, config.getMetricsHttpHost(), config.getMetricsHttpPort());
+                logger.info("Serving metrics at http://{}:{}/metrics", config.getMetricsHttpHost(), metricsServer.getPort());
+            } catch (IOException e) {
+                logger.error("Failed to start metrics endpoint on port {}", config.getMetricsHttpPort(), e);
+            }
+        }
+        if (config.isMetricsJmxEnabled()) {
+            String name = "com.smartgrid:type=SimulationMetrics,seed=" + seed;
+            try {
+                metricsBean = MetricsMBean.register(metrics, name);
+            } catch (JMException e) {
+                logger.error("Failed to register metrics MBean {}", name, e);
+            }
+        }
+    }
+
+    private LoadBalancingStrategy createBalancingStrategy() {
+        String name = config.getBalancingStrategy();
+        if (!name.trim().equalsIgnoreCase("topology")) {
+            return LoadBalancingStrategy.forName(name);
+        }
+        String topologyFile = config.getTopologyFile();
+        if (topologyFile == null) {
+            throw new IllegalStateException("grid.topologyFile is required for the topology strategy");
+        }
+        try {
+            GridTopology topology = GridTopology.load(topologyFile, gridState);
+            logger.info("Loaded grid topology with {} lines from {}", topology.getLineCount(), topologyFile);
+            return new TopologyBalancingStrategy(topology, config.getTopologyMaxHops());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load grid topology", e);
+        }
+    }
+
+    private IncrementalLoadAggregator createIncrementalAggregator() {
+        String mode = config.getAggregationMode().trim().toLowerCase();
+        switch (mode) {
+            case "full":
+                return null;
+            case "incremental":
+                return new IncrementalLoadAggregator(gridState, loadSources, sourceAssignment, changeSelector,
+                        config.getSourceChangeProbability(), config.getFullRecomputeInterval());
+            default:
+                throw new IllegalArgumentException("Unknown aggregation mode: " + mode);
+        }
+    }
+
+    private TimeSeriesRecorder createRecorder() {
+        if (!config.isRecorderEnabled()) {
+            return null;
+        }
+        String run = "run-" + DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").format(LocalDateTime.now()) + "-seed" + seed;
+        Path directory = Paths.get(config.getRecorderDirectory(), run);
+        try {
+            TimeSeriesRecorder created = new TimeSeriesRecorder(directory, gridState,
+                    config.getRecorderSegmentSizeMB() * 1024L * 1024L, config.getRecorderMaxSegments());
+            logger.info("Recording simulation history to {}", directory);
+            return created;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create recorder in " + directory, e);
+        }
     }
 
     private void initializeGrid() {
+        SplitMix64 master = new SplitMix64(seed);
+        SplitMix64 gridRandom = master.split();
+        long sourceSeed = master.nextLong(); // each source draws from stream i of it
+        reportRandom = master.split();
+        reportRandomState = reportRandom.getState();
+        changeSelector = master.split();
+        SplitMix64 scenarioRandom = master.split();
+
         // Create grid nodes
         String[] regions = {"North", "South", "East", "West", "Central"};
         for (int i = 0; i < config.getNumberOfNodes(); i++) {
             String region = regions[i % regions.length];
-            GridNode node = new GridNode(
+            int ordinal = gridState.addNode(
                 "NODE-" + (i + 1),
                 region,
-                config.getNodeBaseCapacity() + (Math.random() * 50)
+                config.getNodeBaseCapacity() + (gridRandom.nextDouble() * 50)
             );
-            gridNodes.add(node);
+            gridNodes.add(new GridNode(gridState, ordinal));
         }
 
         // Create load sources
-        for (int i = 0; i < config.getNumberOfLoadSources(); i++) {
-            String type = (i % 5 == 0) ? "PRODUCER" : "CONSUMER";
-            LoadSource source = new LoadSource(
-                "SOURCE-" + (i + 1),
-                type,
-                10 + (Math.random() * 30),
-                0.3 + (Math.random() * 0.4)
-            );
-            loadSources.add(source);
+        String traceFile = config.getTraceFile();
+        String scenarioFile = config.getScenarioFile();
+        if (traceFile != null && scenarioFile != null) {
+            throw new IllegalStateException("trace.file and simulation.scenario cannot be combined");
+        }
+        if (traceFile != null) {
+            try {
+                traceReplay = new TraceReplay(LoadTrace.open(traceFile), config.getTraceSpeed(),
+                        config.getTraceBufferFrames());
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to open load trace " + traceFile, e);
+            }
+            loadSources.addAll(traceReplay.createSources());
+            logger.info("Replaying {} source columns from {} at speed {}",
+                    loadSources.size(), traceFile, config.getTraceSpeed());
+        } else {
+            for (int i = 0; i < config.getNumberOfLoadSources(); i++) {
+                String type = (i % 5 == 0) ? "PRODUCER" : "CONSUMER";
+                LoadSource source = new LoadSource(
+                    "SOURCE-" + (i + 1),
+                    type,
+                    10 + (gridRandom.nextDouble() * 30),
+                    0.3 + (gridRandom.nextDouble() * 0.4),
+                    SplitMix64.stream(sourceSeed, i)
+                );
+                loadSources.add(source);
+            }
+            if (scenarioFile != null) {
+                try {
+                    loadProfile = new LoadProfileEngine(LoadScenario.load(scenarioFile), loadSources, gridState,
+                            scenarioRandom, tickPool);
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to load scenario " + scenarioFile, e);
+                }
+                List<LoadSource> profiled = loadProfile.createSources();
+                loadSources.clear();
+                loadSources.addAll(profiled);
+                logger.info("Driving sources from scenario '{}' ({} events)",
+                        loadProfile.getScenario().getName(), loadProfile.getScenario().getEvents().size());
+            }
+        }
+
+        sourceAssignment = SourceAssignment.contiguous(gridNodes.size(), loadSources.size());
+        if (loadProfile != null) {
+            loadProfile.assign(sourceAssignment);
         }
 
-        logger.info("Initialized grid with {} nodes and {} load sources",
-                gridNodes.size(), loadSources.size());
+        logger.info("Initialized grid with {} nodes and {} load sources (seed={})",
+                gridNodes.size(), loadSources.size(), seed);
     }
 
     public void start() {
         running = true;
         logger.info("Starting simulation engine...");
+        startMetricsExport();
+        startConfigWatcher();
 
         // Schedule periodic load updates
-        scheduler.scheduleAtFixedRate(
+        schedule(
+            "load-update",
             this::updateLoads,
             0,
-            config.getLoadUpdateInterval(),
-            TimeUnit.SECONDS
+            TimeUnit.SECONDS.toMillis(config.getLoadUpdateInterval())
         );
 
         // Schedule periodic optimization
-        scheduler.scheduleAtFixedRate(
+        schedule(
+            "optimization",
             this::runOptimization,
-            config.getOptimizationInterval(),
-            config.getOptimizationInterval(),
-            TimeUnit.SECONDS
+            TimeUnit.SECONDS.toMillis(config.getOptimizationInterval()),
+            TimeUnit.SECONDS.toMillis(config.getOptimizationInterval())
         );
 
         // Schedule periodic status reporting
-        scheduler.scheduleAtFixedRate(
+        schedule(
+            "report",
             this::reportStatus,
-            config.getReportingInterval(),
-            config.getReportingInterval(),
-            TimeUnit.SECONDS
+            TimeUnit.SECONDS.toMillis(config.getReportingInterval()),
+            TimeUnit.SECONDS.toMillis(config.getReportingInterval())
         );
+
+        // Registered last, so it runs after every other task due at the same time
+        if (checkpointFile != null) {
+            schedule(
+                "checkpoint",
+                this::checkpoint,
+                TimeUnit.SECONDS.toMillis(config.getCheckpointInterval()),
+                TimeUnit.SECONDS.toMillis(config.getCheckpointInterval())
+            );
+        }
+    }
+
+    /**
+     * Registers a periodic task; after a restore it first runs when the checkpointed run would have.
+     */
+    private void schedule(String name, Runnable task, long initialDelayMillis, long periodMillis) {
+        Long nextRun = resumeNextRuns.get(name);
+        long delay = nextRun != null ? Math.max(0, nextRun - resumedAtMillis) : initialDelayMillis;
+        clock.schedulePeriodic(name, task, delay, periodMillis);
+        scheduledTasks.add(name);
+    }
+
+    /**
+     * @return Simulated milliseconds since the run started, counting time before a restore
+     */
+    private long simulatedMillis() {
+        return resumedAtMillis + clock.currentTimeMillis();
+    }
+
+    /**
+     * Watches the configuration file if it was loaded from one and watching is enabled.
+     * Failures are logged, not fatal.
+     */
+    private void startConfigWatcher() {
+        if (!config.isWatchEnabled() || config.getSourcePath() == null) {
+            return;
+        }
+        try {
+            configWatcher = new ConfigWatcher(config, this::reloadConfig);
+            logger.info("Watching {} for configuration changes", configWatcher.getFile());
+        } catch (IOException e) {
+            logger.error("Failed to watch {} for configuration changes", config.getSourcePath(), e);
+        }
+    }
+
+    /**
+     * Drives the simulation for the given simulated duration. Blocks for that long in real-time
+     * mode; returns as soon as the events are processed in virtual mode.
+     */
+    public void runFor(long durationMillis) throws InterruptedException {
+        logger.info("Running {} clock for {} s of simulated time", clock.getName(), durationMillis / 1000);
+        clock.run(durationMillis);
     }
 
     private void updateLoads() {
-        List<Future<?>> futures = new ArrayList<>();
-        
-        for (GridNode node : gridNodes) {
-            Future<?> future = executorService.submit(() -> {
-                double totalLoad = 0.0;
-                
-                // Simulate load from sources assigned to this node
-                int sourcesPerNode = loadSources.size() / gridNodes.size();
-                int startIdx = gridNodes.indexOf(node) * sourcesPerNode;
-                int endIdx = Math.min(startIdx + sourcesPerNode, loadSources.size());
-                
-                for (int i = startIdx; i < endIdx; i++) {
-                    totalLoad += loadSources.get(i).getCurrentLoad();
-                }
-                
-                node.setCurrentLoad(Math.max(0, totalLoad));
-            });
-            futures.add(future);
+        gridState.beginUpdate();
+        long start = System.nanoTime();
+        long allocated = AllocationMeter.currentThreadAllocatedBytes();
+        try {
+            updateLoadsInternal();
+        } finally {
+            gridState.endUpdate();
+            tickDuration.record(System.nanoTime() - start);
+            AllocationMeter.recordSince(tickAllocations, allocated);
         }
 
-        // Wait for all updates to complete
-        for (Future<?> future : futures) {
-            try {
-                future.get(5, TimeUnit.SECONDS);
-            } catch (Exception e) {
-                logger.error("Error updating loads", e);
+        if (recorder != null) {
+            try (GridState.Snapshot snapshot = gridState.snapshot()) {
+                recorder.recordLoads(snapshot, clock.now());
+            } catch (IOException e) {
+                logger.error("Failed to record tick loads", e);
             }
         }
     }
 
+    private void updateLoadsInternal() {
+        ConfigLoader config = this.config;
+        try {
+            if (traceReplay != null) {
+                traceReplay.advanceTo(simulatedMillis());
+            }
+            SourceAssignment assignment = sourceAssignment;
+            if (assignment != appliedAssignment) {
+                if (loadProfile != null) {
+                    loadProfile.assign(assignment);
+                }
+                if (incrementalAggregator != null) {
+                    incrementalAggregator.reset(assignment);
+                }
+                appliedAssignment = assignment;
+            }
+            if (loadProfile != null) {
+                loadProfile.evaluate(simulatedMillis(), config.getTickGrainSize(),
+                        config.getParallelTickThreshold());
+            }
+            if (incrementalAggregator != null) {
+                incrementalAggregator.tick(config.getOverloadThreshold());
+            } else {
+                loadAggregator.aggregate(assignment, config.getTickGrainSize(), config.getParallelTickThreshold());
+            }
+            if (forecaster != null) {
+                double error = forecaster.observe(gridState);
+                if (!Double.isNaN(error)) {
+                    forecastError.record(Math.round(error * 1000)); // kW
+                }
+                exposureTracker.observeTick(gridState, config.getOverloadThreshold(), config.getLoadUpdateInterval(),
+                        simulatedMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Error updating loads", e);
+        }
+    }
+
     private void runOptimization() {
         logger.info("Running optimization...");
-        
-        List<GridNode> overloaded = loadBalancer.detectOverloadedNodes(gridNodes);
-        if (!overloaded.isEmpty()) {
-            logger.warn("Detected {} overloaded nodes", overloaded.size());
-            for (GridNode node : overloaded) {
-                logger.warn("  - {}", node);
+
+        PartitionedOptimizer.Result result;
+        ConfigLoader config = this.config;
+        gridState.beginUpdate();
+        long start = System.nanoTime();
+        long allocated = AllocationMeter.currentThreadAllocatedBytes();
+        try {
+            // Swapped here, under the update lock, so no pass ever mixes old and new thresholds
+            if (config != balancerConfig) {
+                loadBalancer.setThresholds(config.getOverloadThreshold(), config.getUnderloadThreshold());
+                balancerConfig = config;
+            }
+            int overloaded = detectOverloadedNodes();
+            lastOverloadedCount = overloaded;
+            overloadedNodeSeconds.add((double) overloaded * config.getOptimizationInterval());
+            if (overloaded > 0) {
+                logger.warn("Detected {} overloaded nodes", overloaded);
+                int shown = Math.min(overloaded, config.getReportTopNodes());
+                for (int i = 0; i < shown; i++) {
+                    logger.warn("  - {}", gridNodes.get(overloadedScratch[i]));
+                }
+                if (shown < overloaded) {
+                    logger.warn("  ... and {} more", overloaded - shown);
+                }
             }
+
+            if (exposureTracker != null) {
+                exposureTracker.beginPass(gridState, forecaster, config.getOverloadThreshold());
+            }
+            passActions.clear();
+            // Predictive and reactive transfers draw on the same line capacity, predictive first
+            passLineCapacity = optimizer.resetLineCapacity(passLineCapacity);
+            if (planner != null) {
+                shedForecastExcess(config.getOverloadThreshold(), passLineCapacity);
+            }
+            try {
+                result = optimizer.optimize(gridNodes, passLineCapacity);
+                passActions.addAll(result.getActions());
+            } catch (RuntimeException e) {
+                // The optimizer rolled its own transfers back; predictive ones stay applied and are still published
+                logger.error("Optimization pass failed", e);
+                result = null;
+            }
+            if (incrementalAggregator != null) {
+                // Transfers overwrite published loads; restore those nodes from their sources next tick
+                for (int i = 0; i < passActions.size(); i++) {
+                    incrementalAggregator.markDirty(passActions.getFromNode(i));
+                    incrementalAggregator.markDirty(passActions.getToNode(i));
+                }
+            }
+            if (exposureTracker != null) {
+                exposureTracker.endPass(gridState, config.getOverloadThreshold(), simulatedMillis());
+            }
+        } finally {
+            gridState.endUpdate();
+            optimizationDuration.record(System.nanoTime() - start);
+            AllocationMeter.recordSince(optimizationAllocations, allocated);
+        }
+        if (result != null && result.getPartitions().size() > 1) {
+            for (PartitionedOptimizer.PartitionResult partition : result.getPartitions()) {
+                logger.info("  Partition {}: {} nodes, {} actions in {} ms",
+                        partition.getLabel(), partition.getNodeCount(), partition.getActionCount(),
+                        String.format("%.3f", partition.getElapsedNanos() / 1_000_000.0));
+            }
+            logger.info("  Reconciliation: {} actions in {} ms", result.getReconciliationActions(),
+                    String.format("%.3f", result.getReconciliationNanos() / 1_000_000.0));
         }
 
-        List<LoadBalancer.OptimizationAction> actions = loadBalancer.optimize(gridNodes);
+        // Valid until the next pass; the publisher copies what it buffers
+        ActionBuffer actions = passActions;
+        transfersPerPass.record(actions.size());
         if (!actions.isEmpty()) {
-            logger.info("Applied {} optimization actions", actions.size());
+            double moved = actions.totalAmount();
+            long timestampNanos = BinaryTelemetryCodec.toEpochNanos(clock.now());
+            transfersTotal.add(actions.size());
+            megawattsMoved.add(moved);
+            logger.info("Applied {} optimization actions moving {} MW", actions.size(), String.format("%.2f", moved));
+
+            if (recorder != null) {
+                try {
+                    recorder.recordActions(gridState.getEpoch(), timestampNanos, actions);
+                } catch (IOException e) {
+                    logger.error("Failed to record optimization actions", e);
+                }
+            }
             
             // Send optimization data to API
-            try {
-                apiClient.sendOptimizationActions(actions);
-            } catch (Exception e) {
-                logger.error("Failed to send optimization data to API", e);
+            if (apiEnabled) {
+                try {
+                    if (apiPublisher != null) {
+                        apiPublisher.publishOptimizationActions(actions, timestampNanos);
+                    } else {
+                        apiClient.sendOptimizationActions(actions, 0, actions.size(), timestampNanos);
+                    }
+                } catch (Exception e) {
+                    logger.error("Failed to send optimization data to API", e);
+                }
             }
         }
     }
 
-    private void reportStatus() {
-        logger.info("=== Grid Status Report ===");
-        
-        double totalLoad = 0;
-        double totalCapacity = 0;
-        
-        for (GridNode node : gridNodes) {
-            totalLoad += node.getCurrentLoad();
-            totalCapacity += node.getCapacity();
-            logger.info("  {}", node);
+    /**
+     * Predictive pass: plans transfers with the balancing strategy on each node's peak forecast
+     * load within the horizon, then applies them to current loads, so nodes forecast to overload
+     * shed load before they do. A transfer never takes more than the sender carries now or pushes
+     * the receiver over the overload threshold now. Planned transfers are charged to
+     * {@code residualLineCapacity} in full even when clamped, so the reactive pass that follows
+     * can only underuse a line, never overload it.
+     */
+    private void shedForecastExcess(double overloadThreshold, double[] residualLineCapacity) {
+        for (int i = 0; i < planNodes.size(); i++) {
+            planState.setCapacity(i, gridState.getCapacity(i));
+            planState.setLoad(i, Math.max(0, forecaster.peakForecast(i)));
+        }
+        ActionBuffer plan = planner.optimize(planNodes, residualLineCapacity).getActions();
+        double overloadFraction = overloadThreshold / 100.0;
+        for (int i = 0; i < plan.size(); i++) {
+            int from = plan.getFromNode(i);
+            int to = plan.getToNode(i);
+            double headroom = gridState.getCapacity(to) * overloadFraction - gridState.getLoad(to);
+            double amount = Math.min(plan.getAmount(i), Math.min(gridState.getLoad(from), headroom));
+            if (amount <= 0) {
+                continue;
+            }
+            gridState.setLoad(from, gridState.getLoad(from) - amount);
+            gridState.setLoad(to, gridState.getLoad(to) + amount);
+            passActions.add(from, to, amount, plan.getType(i));
+        }
+        predictiveTransfers.add(passActions.size());
+    }
+
+    /**
+     * Logs aggregate utilization and the most utilized nodes instead of every node,
+     * so report cost and log volume stay flat as the grid grows. All nodes are logged at DEBUG.
+     */
+    private void logGridSummary(GridState.Snapshot snapshot, GridReport report) {
+        if (logger.isDebugEnabled()) {
+            for (int i = 0; i < snapshot.size(); i++) {
+                logger.debug("  GridNode[id={}, region={}, load={}/{} MW, utilization={}%]",
+                        gridState.getNodeId(i), gridState.getRegion(i),
+                        String.format("%.2f", snapshot.getLoad(i)),
+                        String.format("%.2f", snapshot.getCapacity(i)),
+                        String.format("%.1f", snapshot.getUtilizationPercent(i)));
+            }
+        }
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+
+        int nodeCount = report.getNodeCount();
+        if (nodeCount > 0) {
+            logger.info("Nodes: {} | utilization min/mean/max: {}% / {}% / {}% | overloaded: {} | underloaded: {}",
+                    nodeCount,
+                    String.format("%.1f", report.getMinUtilization()),
+                    String.format("%.1f", report.getMeanUtilization()),
+                    String.format("%.1f", report.getMaxUtilization()),
+                    report.getOverloadedCount(), report.getUnderloadedCount());
+        }
+        for (int r = 0; r < report.getRegionCount(); r++) {
+            logger.info("  Region {}: {} nodes, {} / {} MW ({}%), overloaded: {}",
+                    report.getRegionName(r), report.getRegionNodes(r),
+                    String.format("%.2f", report.getRegionLoad(r)),
+                    String.format("%.2f", report.getRegionCapacity(r)),
+                    String.format("%.1f", report.getRegionLoad(r) / report.getRegionCapacity(r) * 100),
+                    report.getRegionOverloaded(r));
+        }
+        if (report.getTopCount() > 0) {
+            logger.info("Top {} nodes by utilization:", report.getTopCount());
+            for (int k = 0; k < report.getTopCount(); k++) {
+                int i = report.getTopNode(k);
+                logger.info("  GridNode[id={}, region={}, load={}/{} MW, utilization={}%]",
+                        gridState.getNodeId(i), gridState.getRegion(i),
+                        String.format("%.2f", snapshot.getLoad(i)),
+                        String.format("%.2f", snapshot.getCapacity(i)),
+                        String.format("%.1f", snapshot.getUtilizationPercent(i)));
+            }
         }
-        
         logger.info("Total Load: {} MW / {} MW ({}% utilization)",
-                String.format("%.2f", totalLoad), 
-                String.format("%.2f", totalCapacity), 
-                String.format("%.1f", (totalLoad / totalCapacity) * 100));
-        
-        // Create and send sensor data to API
-        List<Sensor> sensors = new ArrayList<>();
-        for (GridNode node : gridNodes) {
-            Sensor sensor = new Sensor(
-                "SENSOR-" + node.getNodeId(),
-                node.getNodeId(),
-                node.getCurrentLoad(),
-                400 + (Math.random() * 20), // Voltage
-                60 + (Math.random() * 0.5)  // Frequency
-            );
-            sensors.add(sensor);
+                String.format("%.2f", report.getTotalLoad()),
+                String.format("%.2f", report.getTotalCapacity()),
+                String.format("%.1f", (report.getTotalLoad() / report.getTotalCapacity()) * 100));
+    }
+
+    /**
+     * Writes the ordinals of overloaded nodes to {@link #overloadedScratch}. In incremental mode
+     * the aggregator already tracks which nodes crossed the threshold, so only nodes whose
+     * totals moved were re-checked.
+     * @return Number of overloaded nodes
+     */
+    private int detectOverloadedNodes() {
+        if (overloadedScratch.length < gridState.size()) {
+            overloadedScratch = new int[gridState.size()];
         }
-        
+        if (incrementalAggregator == null) {
+            return loadBalancer.detectOverloadedNodes(gridState, overloadedScratch);
+        }
+        int count = incrementalAggregator.getOverloadedCount();
+        for (int i = 0; i < count; i++) {
+            overloadedScratch[i] = incrementalAggregator.getOverloadedNode(i);
+        }
+        return count;
+    }
+
+    private void reportStatus() {
+        long start = System.nanoTime();
+        long allocated = AllocationMeter.currentThreadAllocatedBytes();
         try {
-            apiClient.sendSensorData(sensors);
-        } catch (Exception e) {
-            logger.error("Failed to send sensor data to API", e);
+            reportStatusInternal();
+        } finally {
+            reportDuration.record(System.nanoTime() - start);
+            AllocationMeter.recordSince(reportAllocations, allocated);
+        }
+    }
+
+    private void reportStatusInternal() {
+        // Read one published tick so totals and readings never mix pre- and post-transfer state
+        try (GridState.Snapshot snapshot = gridState.snapshot()) {
+            ConfigLoader config = this.config;
+            logger.info("=== Grid Status Report (tick {}) ===", snapshot.getEpoch());
+
+            // A ring frame goes to the publisher by reference; when all are still queued, fill the
+            // overflow frame so the report is still logged and recorded, and skip publishing it
+            SensorFrame frame = frameRing.acquire();
+            boolean publishable = frame != null;
+            if (!publishable) {
+                frame = overflowFrame;
+                unpublishedReports.increment();
+            }
+            try {
+                gridReport.compute(snapshot, BinaryTelemetryCodec.toEpochNanos(clock.now()), frame, reportRandom,
+                        config.getOverloadThreshold(), config.getUnderloadThreshold());
+                reportRandomState = reportRandom.getState();
+                lastTotalLoad = gridReport.getTotalLoad();
+                lastTotalCapacity = gridReport.getTotalCapacity();
+                logGridSummary(snapshot, gridReport);
+
+                if (recorder != null) {
+                    try {
+                        recorder.recordSensors(frame);
+                    } catch (IOException e) {
+                        logger.error("Failed to record sensor readings", e);
+                    }
+                }
+
+                if (apiEnabled && !publishable) {
+                    logger.warn("All {} report frames are still queued for the API; not publishing tick {}",
+                            frameRing.slots(), snapshot.getEpoch());
+                } else if (apiEnabled) {
+                    try {
+                        if (apiPublisher != null) {
+                            apiPublisher.publishSensorData(frame);
+                        } else {
+                            apiClient.sendSensorData(frame, 0, frame.size());
+                        }
+                    } catch (Exception e) {
+                        logger.error("Failed to send sensor data to API", e);
+                    }
+                }
+            } finally {
+                if (publishable) {
+                    frame.release();
+                }
+            }
         }
     }
 
     public void stop() {
+        boolean wasRunning = running;
         running = false;
         logger.info("Stopping simulation engine...");
         
-        scheduler.shutdown();
-        executorService.shutdown();
+        if (configWatcher != null) {
+            configWatcher.close();
+        }
+        clock.stop();
+        if (checkpointWriter != null) {
+            if (wasRunning) {
+                writeCheckpoint(captureCheckpoint());
+            }
+            checkpointWriter.shutdown();
+            try {
+                if (!checkpointWriter.awaitTermination(30, TimeUnit.SECONDS)) {
+                    logger.warn("Final checkpoint to {} is still being written", checkpointFile);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // The worker pool may be the tick pool itself, which is not ours to stop when shared
+        boolean ownsWorkers = executorService != tickPool || ownsTickPool;
+        if (ownsWorkers) {
+            executorService.shutdown();
+        }
+        if (ownsTickPool) {
+            tickPool.shutdown();
+        }
         
         try {
-            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                scheduler.shutdownNow();
-            }
-            if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
+            if (ownsWorkers && !executorService.awaitTermination(5, TimeUnit.SECONDS)) {
                 executorService.shutdownNow();
             }
+            if (ownsTickPool && !tickPool.awaitTermination(5, TimeUnit.SECONDS)) {
+                tickPool.shutdownNow();
+            }
         } catch (InterruptedException e) {
-            scheduler.shutdownNow();
-            executorService.shutdownNow();
+            if (ownsWorkers) {
+                executorService.shutdownNow();
+            }
+            if (ownsTickPool) {
+                tickPool.shutdownNow();
+            }
             Thread.currentThread().interrupt();
         }
+
+        if (apiPublisher != null) {
+            apiPublisher.close();
+        } else {
+            apiClient.close();
+        }
+        if (recorder != null) {
+            recorder.close();
+        }
+        if (metricsServer != null) {
+            metricsServer.close();
+        }
+        if (metricsBean != null) {
+            metricsBean.unregister();
+        }
+        if (traceReplay != null) {
+            try {
+                traceReplay.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close load trace", e);
+            }
+        }
         
         logger.info("Simulation engine stopped");
     }
 
+    /**
+     * Copies the engine's state between writer phases. Grid updates are held back only while
+     * the small per-source arrays are copied; loads and capacities come from the published snapshot.
+     */
+    public SimulationCheckpoint captureCheckpoint() {
+        GridState.Snapshot snapshot;
+        SimulationCheckpoint.Sources sources;
+        SimulationCheckpoint.Aggregation aggregation;
+        SimulationCheckpoint.Forecast forecast;
+        SimulationCheckpoint.Exposure exposure;
+        SourceAssignment assignment;
+        long reportRandomState;
+        long changeSelectorState;
+        long capturedAtMillis;
+        Map<String, Long> nextRuns = new LinkedHashMap<>();
+        long start = System.nanoTime();
+        gridState.beginUpdate();
+        try {
+            snapshot = gridState.snapshot();
+            sources = loadProfile != null ? loadProfile.captureState() : captureSourceState();
+            aggregation = incrementalAggregator != null ? incrementalAggregator.captureState() : null;
+            forecast = forecaster != null ? forecaster.captureState() : null;
+            exposure = exposureTracker != null ? exposureTracker.captureState() : null;
+            assignment = appliedAssignment;
+            reportRandomState = this.reportRandomState; // reportRandom itself may be mid-report on another thread
+            changeSelectorState = changeSelector.getState();
+            capturedAtMillis = simulatedMillis();
+            for (String task : scheduledTasks) {
+                nextRuns.put(task, resumedAtMillis + clock.nextRunMillis(task));
+            }
+        } finally {
+            gridState.endUpdateUnchanged();
+            checkpointPause.record(System.nanoTime() - start);
+        }
+
+        double[] loads = new double[snapshot.size()];
+        double[] capacities = new double[snapshot.size()];
+        long epoch = snapshot.getEpoch();
+        try (snapshot) {
+            snapshot.copyLoadsTo(DoubleBuffer.wrap(loads));
+            snapshot.copyCapacitiesTo(DoubleBuffer.wrap(capacities));
+        }
+        int[] nodeOfSource = new int[loadSources.size()];
+        Arrays.fill(nodeOfSource, -1);
+        for (int node = 0; node < assignment.getNodeCount(); node++) {
+            for (int p = assignment.start(node), end = assignment.end(node); p < end; p++) {
+                nodeOfSource[assignment.sourceAt(p)] = node;
+            }
+        }
+        return new SimulationCheckpoint(seed, epoch, capturedAtMillis, reportRandomState,
+                changeSelectorState, nextRuns, capacities, loads, nodeOfSource, sources, aggregation, forecast,
+                exposure);
+    }
+
+    private SimulationCheckpoint.Sources captureSourceState() {
+        int count = loadSources.size();
+        double[] baseLoads = new double[count];
+        double[] variability = new double[count];
+        long[] randomStates = new long[count];
+        for (int i = 0; i < count; i++) {
+            LoadSource source = loadSources.get(i);
+            baseLoads[i] = source.getBaseLoad();
+            variability[i] = source.getVariabilityFactor();
+            randomStates[i] = source.getRandom().getState();
+        }
+        return new SimulationCheckpoint.Sources(baseLoads, variability, randomStates, null, 0);
+    }
+
+    /**
+     * Overwrites the freshly initialized state with a checkpoint of the same configuration.
+     */
+    private void applyCheckpoint(SimulationCheckpoint checkpoint) {
+        if (traceReplay != null) {
+            throw new IllegalArgumentException("Checkpoints cannot be restored while replaying a load trace");
+        }
+        if (checkpoint.getNodeCount() != gridNodes.size() || checkpoint.getSources().size() != loadSources.size()) {
+            throw new IllegalArgumentException("Checkpoint has " + checkpoint.getNodeCount() + " nodes and "
+                    + checkpoint.getSources().size() + " sources, configuration " + gridNodes.size() + " and "
+                    + loadSources.size());
+        }
+        if ((checkpoint.getSources().getRegionShocks() != null) != (loadProfile != null)) {
+            throw new IllegalArgumentException("Checkpoint was taken " + (loadProfile != null ? "without" : "with")
+                    + " a load scenario");
+        }
+        if ((checkpoint.getAggregation() != null) != (incrementalAggregator != null)) {
+            throw new IllegalArgumentException("Checkpoint was taken in "
+                    + (incrementalAggregator != null ? "full" : "incremental") + " aggregation mode");
+        }
+
+        gridState.restore(checkpoint.getEpoch(), checkpoint.getLoads(), checkpoint.getCapacities());
+        SourceAssignment assignment = SourceAssignment.fromNodeOfSource(gridNodes.size(), checkpoint.getNodeOfSource());
+        sourceAssignment = assignment;
+        appliedAssignment = assignment;
+        SimulationCheckpoint.Sources sources = checkpoint.getSources();
+        if (loadProfile != null) {
+            loadProfile.assign(assignment);
+            loadProfile.restoreState(sources);
+        } else {
+            for (int i = 0; i < loadSources.size(); i++) {
+                LoadSource source = loadSources.get(i);
+                source.setBaseLoad(sources.getBaseLoads()[i]);
+                source.setVariabilityFactor(sources.getVariability()[i]);
+                source.getRandom().setState(sources.getRandomStates()[i]);
+            }
+        }
+        if (incrementalAggregator != null) {
+            incrementalAggregator.reset(assignment);
+            incrementalAggregator.restoreState(checkpoint.getAggregation());
+        }
+        if (forecaster != null && checkpoint.getForecast() != null) {
+            forecaster.restoreState(checkpoint.getForecast());
+            exposureTracker.restoreState(checkpoint.getExposure());
+        } else if (forecaster != null) {
+            logger.info("Checkpoint has no load forecast; forecasting and exposure counters start from the restored loads");
+        }
+        reportRandom.setState(checkpoint.getReportRandomState());
+        reportRandomState = checkpoint.getReportRandomState();
+        changeSelector.setState(checkpoint.getChangeSelectorState());
+        logger.info("Restored tick {} at {} s of simulated time from checkpoint (seed={})",
+                checkpoint.getEpoch(), checkpoint.getSimulatedMillis() / 1000, seed);
+    }
+
+    /**
+     * Periodic checkpoint: captures state on the clock, writes it on the checkpoint thread.
+     * Skipped if the previous checkpoint is still being written.
+     */
+    private void checkpoint() {
+        if (!checkpointInFlight.compareAndSet(false, true)) {
+            logger.warn("Previous checkpoint is still being written to {}; skipping this one", checkpointFile);
+            return;
+        }
+        try {
+            writeCheckpoint(captureCheckpoint());
+        } catch (RuntimeException e) {
+            checkpointInFlight.set(false);
+            throw e;
+        }
+    }
+
+    private void writeCheckpoint(SimulationCheckpoint checkpoint) {
+        checkpointWriter.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                checkpoint.write(checkpointFile);
+                logger.info("Checkpointed tick {} ({} s simulated) to {} in {} ms", checkpoint.getEpoch(),
+                        checkpoint.getSimulatedMillis() / 1000, checkpointFile, (System.nanoTime() - start) / 1_000_000);
+            } catch (IOException e) {
+                logger.error("Failed to write checkpoint to {}", checkpointFile, e);
+            } finally {
+                checkpointInFlight.set(false);
+            }
+        });
+    }
+
+    /**
+     * Applies a changed configuration to the running engine. Only {@link #RELOADABLE_KEYS} are
+     * taken over: thresholds from the next optimization pass and report, tick tuning from the
+     * next load update, intervals from each task's next run, and the thread count immediately
+     * (where the JVM can resize the pools). Other changed keys are logged and left as they were.
+     * @throws IllegalArgumentException if the result is inconsistent; nothing is applied then
+     */
+    public void reloadConfig(ConfigLoader updated) {
+        // A lock, not a monitor: a reload waits on the grid's writer lock and must not pin a virtual thread
+        reloadLock.lock();
+        try {
+            applyReload(updated);
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private void applyReload(ConfigLoader updated) {
+        ConfigLoader previous = config;
+        Properties merged = previous.toProperties();
+        Properties incoming = updated.toProperties();
+        Set<String> keys = new TreeSet<>(merged.stringPropertyNames());
+        keys.addAll(incoming.stringPropertyNames());
+        Set<String> changed = new TreeSet<>();
+        Set<String> needRestart = new TreeSet<>();
+        for (String key : keys) {
+            String value = incoming.getProperty(key);
+            if (value != null && value.equals(merged.getProperty(key))) {
+                continue;
+            }
+            if (!RELOADABLE_KEYS.contains(key)) {
+                needRestart.add(key);
+            } else if (value == null) {
+                merged.remove(key);
+                changed.add(key);
+            } else {
+                merged.setProperty(key, value);
+                changed.add(key);
+            }
+        }
+        if (!needRestart.isEmpty()) {
+            logger.warn("Configuration changes to {} take effect only after a restart", needRestart);
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        ConfigLoader next = new ConfigLoader(merged);
+        if (next.getUnderloadThreshold() >= next.getOverloadThreshold()) {
+            throw new IllegalArgumentException("grid.underloadThreshold (" + next.getUnderloadThreshold()
+                    + ") must be below grid.overloadThreshold (" + next.getOverloadThreshold() + ")");
+        }
+        if (next.getLoadUpdateInterval() <= 0 || next.getOptimizationInterval() <= 0
+                || next.getReportingInterval() <= 0) {
+            throw new IllegalArgumentException("Intervals must be positive");
+        }
+        if (next.getThreadPoolSize() <= 0 || next.getTickGrainSize() <= 0) {
+            throw new IllegalArgumentException("simulation.threadPoolSize and simulation.tickGrainSize must be positive");
+        }
+
+        config = next;
+        if (next.getLoadUpdateInterval() != previous.getLoadUpdateInterval()) {
+            clock.reschedule("load-update", TimeUnit.SECONDS.toMillis(next.getLoadUpdateInterval()));
+        }
+        if (next.getOptimizationInterval() != previous.getOptimizationInterval()) {
+            clock.reschedule("optimization", TimeUnit.SECONDS.toMillis(next.getOptimizationInterval()));
+        }
+        if (next.getReportingInterval() != previous.getReportingInterval()) {
+            clock.reschedule("report", TimeUnit.SECONDS.toMillis(next.getReportingInterval()));
+        }
+        if (next.getThreadPoolSize() != previous.getThreadPoolSize()) {
+            resizePools(next.getThreadPoolSize());
+        }
+        if (incrementalAggregator != null && next.getOverloadThreshold() != previous.getOverloadThreshold()) {
+            // The aggregator re-checks only changed nodes each tick; the rest were judged against the old threshold
+            gridState.beginUpdate();
+            try {
+                incrementalAggregator.rethreshold(next.getOverloadThreshold());
+            } finally {
+                gridState.endUpdateUnchanged();
+            }
+        }
+        logger.info("Reloaded configuration {}: thresholds {}%/{}%, intervals {}/{}/{} s, {} threads", changed,
+                next.getOverloadThreshold(), next.getUnderloadThreshold(), next.getLoadUpdateInterval(),
+                next.getOptimizationInterval(), next.getReportingInterval(), next.getThreadPoolSize());
+    }
+
+    private void resizePools(int threads) {
+        if (!ownsTickPool) {
+            logger.warn("Thread pool is shared with other engines; not resizing it to {}", threads);
+            return;
+        }
+        boolean resized = ExecutionMode.resize(tickPool, threads);
+        if (executorService != tickPool) {
+            resized &= ExecutionMode.resize(executorService, threads);
+        }
+        if (!resized) {
+            logger.warn("Resizing a fork-join pool needs Java 19 (running {}); simulation.threadPoolSize "
+                    + "takes full effect after a restart", System.getProperty("java.version"));
+        }
+    }
+
+    /**
+     * @return Configuration currently in effect
+     */
+    public ConfigLoader getConfig() {
+        return config;
+    }
+
+    /**
+     * Replaces the node-to-source assignment; takes effect from the next load update.
+     */
+    public void reloadAssignment(SourceAssignment assignment) {
+        if (assignment.getNodeCount() != gridNodes.size()) {
+            throw new IllegalArgumentException("Assignment covers " + assignment.getNodeCount()
+                    + " nodes but grid has " + gridNodes.size());
+        }
+        for (int p = 0; p < assignment.getAssignedSourceCount(); p++) {
+            int source = assignment.sourceAt(p);
+            if (source < 0 || source >= loadSources.size()) {
+                throw new IllegalArgumentException("Assignment references unknown source " + source);
+            }
+        }
+        this.sourceAssignment = assignment;
+        logger.info("Reloaded source assignment ({} sources across {} nodes)",
+                assignment.getAssignedSourceCount(), assignment.getNodeCount());
+    }
+
+    public SourceAssignment getSourceAssignment() {
+        return sourceAssignment;
+    }
+
     public List<GridNode> getGridNodes() {
         return new ArrayList<>(gridNodes);
     }
 
+    /**
+     * @return Background API publisher, or null when API calls are synchronous
+     */
+    public AsyncApiPublisher getApiPublisher() {
+        return apiPublisher;
+    }
+
+    /**
+     * @return History recorder, or null when recording is disabled
+     */
+    public TimeSeriesRecorder getRecorder() {
+        return recorder;
+    }
+
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    public SimulationClock getClock() {
+        return clock;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public GridState getGridState() {
+        return gridState;
+    }
+
     public boolean isRunning() {
         return running;
     }
@@ -0,0 +1,87 @@
+package com.smartgrid.services;
+
+import java.util.Arrays;
+
+/**
+ * Immutable node-to-source assignment index in compressed sparse row (CSR) layout.
+ * Sources feeding node {@code n} are {@code indices[offsets[n]] .. indices[offsets[n + 1] - 1]}.
+ */
+public final class SourceAssignment {
+    private final int[] offsets;
+    private final int[] indices;
+
+    private SourceAssignment(int[] offsets, int[] indices) {
+        this.offsets = offsets;
+        this.indices = indices;
+    }
+
+    /**
+     * Splits sources into contiguous, near-equal blocks. The first {@code sources % nodes}
+     * nodes receive one extra source so none are dropped.
+     */
+    public static SourceAssignment contiguous(int nodeCount, int sourceCount) {
+        int[] offsets = new int[nodeCount + 1];
+        int[] indices = new int[nodeCount == 0 ? 0 : sourceCount];
+        if (nodeCount > 0) {
+            int base = sourceCount / nodeCount;
+            int remainder = sourceCount % nodeCount;
+            for (int n = 0; n < nodeCount; n++) {
+                offsets[n + 1] = offsets[n] + base + (n < remainder ? 1 : 0);
+            }
+            for (int i = 0; i < sourceCount; i++) {
+                indices[i] = i;
+            }
+        }
+        return new SourceAssignment(offsets, indices);
+    }
+
+    /**
+     * Builds an index from an arbitrary source-to-node mapping.
+     * Entries of {@code -1} leave a source unassigned.
+     */
+    public static SourceAssignment fromNodeOfSource(int nodeCount, int[] nodeOfSource) {
+        int[] offsets = new int[nodeCount + 1];
+        for (int s = 0; s < nodeOfSource.length; s++) {
+            int node = nodeOfSource[s];
+            if (node < -1 || node >= nodeCount) {
+                throw new IllegalArgumentException("Source " + s + " mapped to invalid node " + node);
+            }
+            if (node >= 0) {
+                offsets[node + 1]++;
+            }
+        }
+        for (int n = 0; n < nodeCount; n++) {
+            offsets[n + 1] += offsets[n];
+        }
+
+        int[] cursor = Arrays.copyOf(offsets, nodeCount);
+        int[] indices = new int[offsets[nodeCount]];
+        for (int s = 0; s < nodeOfSource.length; s++) {
+            int node = nodeOfSource[s];
+            if (node >= 0) {
+                indices[cursor[node]++] = s;
+            }
+        }
+        return new SourceAssignment(offsets, indices);
+    }
+
+    public int getNodeCount() {
+        return offsets.length - 1;
+    }
+
+    public int getAssignedSourceCount() {
+        return indices.length;
+    }
+
+    public int start(int node) {
+        return offsets[node];
+    }
+
+    public int end(int node) {
+        return offsets[node + 1];
+    }
+
+    public int sourceAt(int position) {
+        return indices[position];
+    }
+}
@@ -0,0 +1,255 @@
+package com.smartgrid.services;
+
+import com.smartgrid.models.GridNode;
+import com.smartgrid.models.GridTopology;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Moves load only along transmission lines. For each overloaded node (largest excess first),
+ * a breadth-first search bounded by {@code maxHops} finds the reachable underloaded node with the
+ * most available capacity; the transfer is capped by the path's bottleneck residual line capacity.
+ * Only nodes present in the list passed to {@link #optimize} are visited, so disjoint node lists
+ * can be balanced independently.
+ * <p>
+ * Each thread that runs a pass keeps its own scratch arrays, sized to the topology on its first
+ * pass and reused after that, so concurrent passes over disjoint lists never share them.
+ */
+public class TopologyBalancingStrategy implements LoadBalancingStrategy {
+    private static final Logger logger = LoggerFactory.getLogger(TopologyBalancingStrategy.class);
+    private static final double MIN_TRANSFER = 1e-6; // in MW
+    private static final int MAX_SEARCHES_PER_NODE = 32;
+
+    private final GridTopology topology;
+    private final int maxHops;
+    private final ThreadLocal<Scratch> scratch;
+
+    public TopologyBalancingStrategy(GridTopology topology, int maxHops) {
+        if (maxHops < 1) {
+            throw new IllegalArgumentException("maxHops must be at least 1: " + maxHops);
+        }
+        this.topology = topology;
+        this.maxHops = maxHops;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(topology.getNodeCount()));
+    }
+
+    @Override
+    public void optimize(List<GridNode> nodes, double overloadThreshold, double underloadThreshold,
+                         ActionBuffer actions) {
+        optimize(nodes, overloadThreshold, underloadThreshold, actions, resetLineCapacity(null));
+    }
+
+    /**
+     * Calls on disjoint node lists only touch lines between their own nodes, so they may share
+     * {@code residual} concurrently.
+     */
+    @Override
+    public void optimize(List<GridNode> nodes, double overloadThreshold, double underloadThreshold,
+                         ActionBuffer actions, double[] residual) {
+        if (residual == null || residual.length != topology.getLineCount()) {
+            throw new IllegalArgumentException("Residual capacity must cover all " + topology.getLineCount() + " lines");
+        }
+        int n = nodes.size();
+        int topologySize = topology.getNodeCount();
+        double overloadFraction = overloadThreshold / 100.0;
+        double underloadFraction = underloadThreshold / 100.0;
+        Scratch scratch = this.scratch.get();
+        int[] local = scratch.local;
+        double[] loads = scratch.loads;
+        double[] capacities = scratch.capacities;
+        boolean[] changed = scratch.changed;
+        IndexedMaxHeap excessHeap = scratch.excessHeap;
+        int mapped = 0;
+        try {
+            // Map topology ordinals to positions in this node list
+            for (; mapped < n; mapped++) {
+                GridNode node = nodes.get(mapped);
+                int ordinal = node.getOrdinal();
+                if (ordinal >= topologySize || local[ordinal] >= 0) {
+                    throw new IllegalArgumentException("Node " + node.getNodeId()
+                            + (ordinal >= topologySize ? " is not part of the topology" : " is listed twice"));
+                }
+                local[ordinal] = mapped;
+                loads[mapped] = node.getCurrentLoad();
+                capacities[mapped] = node.getCapacity();
+                double excess = loads[mapped] - capacities[mapped] * overloadFraction;
+                if (excess > 0) {
+                    excessHeap.insert(mapped, excess);
+                }
+            }
+
+            if (excessHeap.isEmpty()) {
+                logger.debug("No overloaded nodes detected");
+                return;
+            }
+            balance(nodes, overloadFraction, underloadFraction, actions, residual, scratch);
+
+            for (int i = 0; i < n; i++) {
+                if (changed[i]) {
+                    nodes.get(i).setCurrentLoad(loads[i]);
+                }
+            }
+        } finally {
+            // Leave the scratch as the next pass expects it: unmapped, unchanged, empty heap
+            for (int i = 0; i < mapped; i++) {
+                local[nodes.get(i).getOrdinal()] = -1;
+                changed[i] = false;
+            }
+            excessHeap.clear();
+        }
+
+        logger.debug("Topology strategy applied {} transfers within {} hops", actions.size(), maxHops);
+    }
+
+    private void balance(List<GridNode> nodes, double overloadFraction, double underloadFraction,
+                         ActionBuffer actions, double[] residual, Scratch scratch) {
+        int[] local = scratch.local;
+        double[] loads = scratch.loads;
+        double[] capacities = scratch.capacities;
+        boolean[] changed = scratch.changed;
+        IndexedMaxHeap excessHeap = scratch.excessHeap;
+        int[] visitedStamp = scratch.visitedStamp;
+        int[] depth = scratch.depth;
+        int[] parentEntry = scratch.parentEntry;
+        int[] queue = scratch.queue;
+
+        while (!excessHeap.isEmpty()) {
+            int from = excessHeap.poll();
+            double excess = loads[from] - capacities[from] * overloadFraction;
+
+            for (int search = 0; search < MAX_SEARCHES_PER_NODE && excess >= MIN_TRANSFER; search++) {
+                int stamp = scratch.nextStamp();
+                int head = 0;
+                int tail = 0;
+                queue[tail++] = from;
+                visitedStamp[from] = stamp;
+                depth[from] = 0;
+                parentEntry[from] = -1;
+                int target = -1;
+                double targetAvailable = 0;
+
+                while (head < tail) {
+                    int current = queue[head++];
+                    if (depth[current] == maxHops) {
+                        continue;
+                    }
+                    int currentOrdinal = nodes.get(current).getOrdinal();
+                    for (int e = topology.start(currentOrdinal), end = topology.end(currentOrdinal); e < end; e++) {
+                        int next = local[topology.neighborAt(e)];
+                        if (next < 0 || visitedStamp[next] == stamp || residual[topology.lineAt(e)] < MIN_TRANSFER) {
+                            continue;
+                        }
+                        visitedStamp[next] = stamp;
+                        depth[next] = depth[current] + 1;
+                        parentEntry[next] = e;
+                        queue[tail++] = next;
+
+                        double available = capacities[next] - loads[next];
+                        if (loads[next] < capacities[next] * underloadFraction && available > targetAvailable) {
+                            target = next;
+                            targetAvailable = available;
+                        }
+                    }
+                }
+
+                if (target < 0) {
+                    break;
+                }
+
+                double bottleneck = Double.MAX_VALUE;
+                for (int node = target; parentEntry[node] >= 0; ) {
+                    int entry = parentEntry[node];
+                    bottleneck = Math.min(bottleneck, residual[topology.lineAt(entry)]);
+                    node = local[otherEnd(entry, nodes.get(node).getOrdinal())];
+                }
+
+                double transferAmount = Math.min(excess, Math.min(targetAvailable * 0.5, bottleneck));
+                if (transferAmount < MIN_TRANSFER) {
+                    break;
+                }
+
+                for (int node = target; parentEntry[node] >= 0; ) {
+                    int entry = parentEntry[node];
+                    residual[topology.lineAt(entry)] -= transferAmount;
+                    node = local[otherEnd(entry, nodes.get(node).getOrdinal())];
+                }
+
+                loads[from] -= transferAmount;
+                loads[target] += transferAmount;
+                changed[from] = true;
+                changed[target] = true;
+                excess -= transferAmount;
+                actions.add(nodes.get(from).getOrdinal(), nodes.get(target).getOrdinal(), transferAmount,
+                    ActionType.LOAD_TRANSFER);
+            }
+        }
+    }
+
+    @Override
+    public double[] resetLineCapacity(double[] residual) {
+        if (residual == null || residual.length != topology.getLineCount()) {
+            residual = new double[topology.getLineCount()];
+        }
+        for (int line = 0; line < residual.length; line++) {
+            residual[line] = topology.getLineCapacity(line);
+        }
+        return residual;
+    }
+
+    private int otherEnd(int entry, int ordinal) {
+        int line = topology.lineAt(entry);
+        int a = topology.getLineFrom(line);
+        return a == ordinal ? topology.getLineTo(line) : a;
+    }
+
+    public GridTopology getTopology() {
+        return topology;
+    }
+
+    @Override
+    public String getName() {
+        return "topology";
+    }
+
+    /**
+     * One thread's working arrays, indexed by position in the node list, which never holds more
+     * nodes than the topology. Between passes, {@code local} is all -1, {@code changed} all
+     * false and the heap empty; stamps keep counting up across passes, so visits need no reset.
+     */
+    private static final class Scratch {
+        final int[] local; // topology ordinal -> position in the node list, -1 when absent
+        final double[] loads;
+        final double[] capacities;
+        final boolean[] changed;
+        final IndexedMaxHeap excessHeap;
+        final int[] visitedStamp;
+        final int[] depth;
+        final int[] parentEntry;
+        final int[] queue;
+        int stamp;
+
+        Scratch(int size) {
+            local = new int[size];
+            Arrays.fill(local, -1);
+            loads = new double[size];
+            capacities = new double[size];
+            changed = new boolean[size];
+            excessHeap = new IndexedMaxHeap(size);
+            visitedStamp = new int[size];
+            depth = new int[size];
+            parentEntry = new int[size];
+            queue = new int[size];
+        }
+
+        int nextStamp() {
+            if (stamp == Integer.MAX_VALUE) {
+                Arrays.fill(visitedStamp, 0);
+                stamp = 0;
+            }
+            return ++stamp;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.smartgrid.services;
+
+import com.smartgrid.models.LoadSource;
+import com.smartgrid.utils.LoadTrace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Feeds a recorded {@link LoadTrace} into the simulation in place of random source draws.
+ * A reader thread prefetches frames into a bounded queue of recycled arrays, so at most
+ * {@code bufferFrames} frames are ever held in memory.
+ * <p>
+ * With a positive {@code speed}, {@link #advanceTo(long)} applies the latest frame whose trace
+ * time (relative to the first frame) is at or before simulated time x speed: 1.0 replays in
+ * real time, 60.0 replays a trace minute per simulated second, skipping frames in between.
+ * With {@code speed <= 0} every call steps exactly one frame, which ties replay to ticks rather
+ * than time. Combined with the virtual clock, either mode feeds identical inputs to every run,
+ * so balancing strategies can be compared like for like. After the last frame, loads hold.
+ */
+public class TraceReplay implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(TraceReplay.class);
+
+    private final LoadTrace trace;
+    private final double speed;
+    private final BlockingQueue<Frame> ready;
+    private final BlockingQueue<Frame> free;
+    private final Thread reader;
+    private volatile IOException failure;
+    private volatile boolean closed;
+    private volatile double[] currentLoads;
+    private Frame current;
+    private Frame pending;
+    private long baseTimeMillis;
+    private boolean exhausted;
+    private long framesApplied;
+    private long framesSkipped;
+
+    public TraceReplay(LoadTrace trace, double speed, int bufferFrames) {
+        this.trace = trace;
+        this.speed = speed;
+        int capacity = Math.max(1, bufferFrames);
+        this.ready = new ArrayBlockingQueue<>(capacity + 1);
+        // Two spare arrays cover the frame being applied and the one peeked ahead
+        this.free = new ArrayBlockingQueue<>(capacity + 2);
+        for (int i = 0; i < capacity + 2; i++) {
+            free.add(new Frame(new double[trace.getSourceCount()]));
+        }
+        this.currentLoads = new double[trace.getSourceCount()];
+        this.reader = new Thread(this::readFrames, "trace-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Creates one load source per trace column, reading the currently applied frame.
+     */
+    public List<LoadSource> createSources() {
+        List<LoadSource> sources = new ArrayList<>(trace.getSourceCount());
+        for (int column = 0; column < trace.getSourceCount(); column++) {
+            sources.add(new TraceLoadSource(trace.getSourceId(column), column));
+        }
+        return sources;
+    }
+
+    /**
+     * Applies the frame due at the given simulated time (or the next frame in step mode),
+     * waiting for the reader if it has fallen behind.
+     */
+    public void advanceTo(long simulatedMillis) throws InterruptedException {
+        if (exhausted) {
+            return;
+        }
+        if (current == null || speed <= 0) {
+            Frame next = takeNext();
+            if (next != null) {
+                if (current == null) {
+                    baseTimeMillis = next.timeMillis;
+                }
+                apply(next);
+            }
+            return;
+        }
+
+        long dueMillis = (long) (simulatedMillis * speed);
+        Frame due = null;
+        Frame next;
+        while ((next = peekNext()) != null && next.timeMillis - baseTimeMillis <= dueMillis) {
+            pending = null;
+            if (due != null) {
+                free.add(due);
+                framesSkipped++;
+            }
+            due = next;
+        }
+        if (due != null) {
+            apply(due);
+        }
+    }
+
+    public long getFrameTimeMillis() {
+        return current != null ? current.timeMillis : 0L;
+    }
+
+    public long getFramesApplied() {
+        return framesApplied;
+    }
+
+    public long getFramesSkipped() {
+        return framesSkipped;
+    }
+
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    /**
+     * Stops the reader and closes the trace; a later {@link #advanceTo(long)} holds the last loads.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        reader.interrupt();
+        try {
+            // The reader may be mid-read; closing the trace under it would fail that read
+            reader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            trace.close();
+        }
+    }
+
+    private void apply(Frame frame) {
+        if (current != null) {
+            free.add(current);
+        }
+        current = frame;
+        currentLoads = frame.loads;
+        framesApplied++;
+    }
+
+    private Frame takeNext() throws InterruptedException {
+        Frame next = peekNext();
+        pending = null;
+        return next;
+    }
+
+    /**
+     * @return The next unread frame without consuming it, or null once the trace is exhausted
+     */
+    private Frame peekNext() throws InterruptedException {
+        if (pending == null && !exhausted) {
+            Frame next = ready.take();
+            if (next.loads == null) {
+                exhausted = true;
+                if (closed) {
+                    logger.debug("Trace replay closed after {} frames", framesApplied);
+                } else if (failure != null) {
+                    logger.error("Trace replay stopped after {} frames", framesApplied, failure);
+                } else {
+                    logger.info("Trace exhausted after {} frames; holding last loads", framesApplied);
+                }
+                return null;
+            }
+            pending = next;
+        }
+        return pending;
+    }
+
+    private void readFrames() {
+        try {
+            while (true) {
+                Frame frame = free.take();
+                if (!trace.next(frame.loads)) {
+                    break;
+                }
+                frame.timeMillis = trace.getFrameTimeMillis();
+                ready.put(frame);
+            }
+        } catch (InterruptedException e) {
+            endClosed();
+            return;
+        } catch (IOException e) {
+            failure = e;
+        }
+        try {
+            ready.put(Frame.END);
+        } catch (InterruptedException e) {
+            endClosed();
+        }
+    }
+
+    /**
+     * Posts the end marker on close without waiting for room: the prefetched frames are
+     * dropped, so a caller blocked in {@link #advanceTo(long)} wakes up and holds its loads.
+     */
+    private void endClosed() {
+        ready.clear();
+        ready.offer(Frame.END);
+    }
+
+    private static final class Frame {
+        static final Frame END = new Frame(null);
+
+        final double[] loads;
+        long timeMillis;
+
+        Frame(double[] loads) {
+            this.loads = loads;
+        }
+    }
+
+    /**
+     * Load source whose reading is its column of the applied frame.
+     */
+    private final class TraceLoadSource extends LoadSource {
+        private final int column;
+
+        TraceLoadSource(String sourceId, int column) {
+            super(sourceId, "TRACE", 0.0, 0.0, null);
+            this.column = column;
+        }
+
+        @Override
+        public double getCurrentLoad() {
+            return currentLoads[column];
+        }
+    }
+}
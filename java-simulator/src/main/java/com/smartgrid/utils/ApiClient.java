@@ -1,113 +1,176 @@
 package com.smartgrid.utils;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.smartgrid.models.Sensor;
-import com.smartgrid.services.LoadBalancer;
+import com.google.gson.stream.JsonWriter;
+import com.smartgrid.metrics.Histogram;
+import com.smartgrid.models.GridState;
+import com.smartgrid.models.SensorFrame;
+import com.smartgrid.services.ActionBuffer;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.core5.http.ContentType;
-import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.io.IOException;
 
 /**
  * HTTP client for sending data to the C# API.
+ * Calls are synchronous and reuse pooled keep-alive connections; see {@link AsyncApiPublisher}
+ * for the non-blocking, batched front end. Payloads are streamed with {@link JsonPayloadEntity}
+ * straight from sensor frames and action buffers; node and sensor ids are resolved through the
+ * grid only while writing.
  */
 public class ApiClient {
     private static final Logger logger = LoggerFactory.getLogger(ApiClient.class);
     private final String apiEndpoint;
-    private final Gson gson;
+    private final GridState gridState;
+    private final boolean gzip;
+    private final PayloadFormat format;
     private final CloseableHttpClient httpClient;
+    private final Histogram sendLatency; // null when not measured
 
-    public ApiClient(String apiEndpoint) {
+    public ApiClient(String apiEndpoint, GridState gridState) {
+        this(apiEndpoint, gridState, 4, false, PayloadFormat.JSON);
+    }
+
+    public ApiClient(String apiEndpoint, GridState gridState, int maxConnections, boolean gzip, PayloadFormat format) {
+        this(apiEndpoint, gridState, maxConnections, gzip, format, null);
+    }
+
+    /**
+     * @param sendLatency Receives the duration in nanoseconds of every request, successful or not; may be null
+     */
+    public ApiClient(String apiEndpoint, GridState gridState, int maxConnections, boolean gzip, PayloadFormat format,
+                     Histogram sendLatency) {
         this.apiEndpoint = apiEndpoint;
-        this.gson = new GsonBuilder()
-                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
-                .create();
-        this.httpClient = HttpClients.createDefault();
+        this.gridState = gridState;
+        this.sendLatency = sendLatency;
+        this.gzip = gzip;
+        this.format = format;
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .build();
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .build();
     }
 
-    public void sendSensorData(List<Sensor> sensors) {
-        try {
-            String url = apiEndpoint + "/api/SensorData";
-            
-            // Convert sensors to DTOs
-            List<Map<String, Object>> sensorDtos = sensors.stream()
-                    .map(this::sensorToDto)
-                    .toList();
-            
-            String json = gson.toJson(sensorDtos);
-            
-            HttpPost request = new HttpPost(url);
-            request.setEntity(new StringEntity(json, ContentType.APPLICATION_JSON));
-            
-            try (CloseableHttpResponse response = httpClient.execute(request)) {
-                int statusCode = response.getCode();
-                if (statusCode >= 200 && statusCode < 300) {
-                    logger.debug("Successfully sent {} sensor readings to API", sensors.size());
-                } else {
-                    logger.warn("API returned status code: {}", statusCode);
-                }
+    /**
+     * Sends the frame's readings for nodes {@code from} (inclusive) to {@code to} (exclusive).
+     * @return true if the API accepted the readings
+     */
+    public boolean sendSensorData(SensorFrame frame, int from, int to) {
+        return sendSensorData(new SensorFrame[] {frame}, new int[] {from}, new int[] {to}, 1);
+    }
+
+    /**
+     * Sends readings of several frames in one request: for {@code k < count}, frame
+     * {@code frames[k]} contributes nodes {@code from[k]} (inclusive) to {@code to[k]} (exclusive).
+     * @return true if the API accepted the readings
+     */
+    public boolean sendSensorData(SensorFrame[] frames, int[] from, int[] to, int count) {
+        HttpPost request = new HttpPost(apiEndpoint + "/api/SensorData");
+        request.setEntity(format == PayloadFormat.BINARY
+                ? new BinaryPayloadEntity(out -> BinaryTelemetryCodec.encodeSensors(frames, from, to, count, gridState,
+                    out), gzip)
+                : new JsonPayloadEntity<>(0, count, (writer, k) -> {
+                    // Each index writes one frame's range
+                    String timestamp = BinaryTelemetryCodec.fromEpochNanos(frames[k].getTimestampNanos()).toString();
+                    for (int ordinal = from[k]; ordinal < to[k]; ordinal++) {
+                        writeSensor(writer, gridState, frames[k], ordinal, timestamp);
+                    }
+                }, gzip));
+        return send(request, records(from, to, count), "sensor readings");
+    }
+
+    /**
+     * Sends actions {@code from} (inclusive) to {@code to} (exclusive) of the buffer.
+     * @param timestampNanos UTC epoch nanoseconds of the optimization pass
+     * @return true if the API accepted the actions
+     */
+    public boolean sendOptimizationActions(ActionBuffer actions, int from, int to, long timestampNanos) {
+        return sendOptimizationActions(new ActionBuffer[] {actions}, new int[] {from}, new int[] {to},
+                new long[] {timestampNanos}, 1);
+    }
+
+    /**
+     * Sends actions of several optimization passes in one request: for {@code k < count},
+     * actions {@code from[k]} (inclusive) to {@code to[k]} (exclusive) of {@code actions[k]},
+     * applied at {@code timestampsNanos[k]} (UTC epoch nanoseconds).
+     * @return true if the API accepted the actions
+     */
+    public boolean sendOptimizationActions(ActionBuffer[] actions, int[] from, int[] to, long[] timestampsNanos,
+                                           int count) {
+        HttpPost request = new HttpPost(apiEndpoint + "/api/Control/optimize");
+        request.setEntity(format == PayloadFormat.BINARY
+                ? new BinaryPayloadEntity(out -> BinaryTelemetryCodec.encodeActions(actions, from, to, timestampsNanos,
+                    count, gridState, out), gzip)
+                : new JsonPayloadEntity<>(0, count, (writer, k) -> {
+                    // Each index writes one pass's range
+                    String timestamp = BinaryTelemetryCodec.fromEpochNanos(timestampsNanos[k]).toString();
+                    for (int index = from[k]; index < to[k]; index++) {
+                        writeAction(writer, gridState, actions[k], index, timestamp);
+                    }
+                }, gzip));
+        return send(request, records(from, to, count), "optimization actions");
+    }
+
+    private boolean send(HttpPost request, int records, String what) {
+        long start = System.nanoTime();
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            int statusCode = response.getCode();
+            if (statusCode >= 200 && statusCode < 300) {
+                logger.debug("Successfully sent {} {} to API", records, what);
+                return true;
             }
+            logger.warn("API returned status code: {}", statusCode);
         } catch (Exception e) {
-            logger.error("Failed to send sensor data", e);
+            logger.error("Failed to send " + what, e);
+        } finally {
+            recordLatency(start);
         }
+        return false;
     }
 
-    public void sendOptimizationActions(List<LoadBalancer.OptimizationAction> actions) {
-        try {
-            String url = apiEndpoint + "/api/Control/optimize";
-            
-            // Convert actions to DTOs
-            List<Map<String, Object>> actionDtos = actions.stream()
-                    .map(this::actionToDto)
-                    .toList();
-            
-            String json = gson.toJson(actionDtos);
-            
-            HttpPost request = new HttpPost(url);
-            request.setEntity(new StringEntity(json, ContentType.APPLICATION_JSON));
-            
-            try (CloseableHttpResponse response = httpClient.execute(request)) {
-                int statusCode = response.getCode();
-                if (statusCode >= 200 && statusCode < 300) {
-                    logger.debug("Successfully sent {} optimization actions to API", actions.size());
-                } else {
-                    logger.warn("API returned status code: {}", statusCode);
-                }
-            }
-        } catch (Exception e) {
-            logger.error("Failed to send optimization actions", e);
+    private static int records(int[] from, int[] to, int count) {
+        int records = 0;
+        for (int k = 0; k < count; k++) {
+            records += to[k] - from[k];
+        }
+        return records;
+    }
+
+    private void recordLatency(long startNanos) {
+        if (sendLatency != null) {
+            sendLatency.record(System.nanoTime() - startNanos);
         }
     }
 
-    private Map<String, Object> sensorToDto(Sensor sensor) {
-        Map<String, Object> dto = new HashMap<>();
-        dto.put("sensorId", sensor.getSensorId());
-        dto.put("nodeId", sensor.getNodeId());
-        dto.put("timestamp", sensor.getTimestamp().toString());
-        dto.put("loadReading", sensor.getLoadReading());
-        dto.put("voltage", sensor.getVoltage());
-        dto.put("frequency", sensor.getFrequency());
-        return dto;
+    public static void writeSensor(JsonWriter writer, GridState gridState, SensorFrame frame, int ordinal,
+                                   String timestamp) throws IOException {
+        writer.beginObject();
+        writer.name("sensorId").value(gridState.getSensorId(ordinal));
+        writer.name("nodeId").value(gridState.getNodeId(ordinal));
+        writer.name("timestamp").value(timestamp);
+        writer.name("loadReading").value(frame.getLoad(ordinal));
+        writer.name("voltage").value(frame.getVoltage(ordinal));
+        writer.name("frequency").value(frame.getFrequency(ordinal));
+        writer.endObject();
     }
 
-    private Map<String, Object> actionToDto(LoadBalancer.OptimizationAction action) {
-        Map<String, Object> dto = new HashMap<>();
-        dto.put("fromNodeId", action.getFromNodeId());
-        dto.put("toNodeId", action.getToNodeId());
-        dto.put("amount", action.getAmount());
-        dto.put("actionType", action.getActionType());
-        dto.put("timestamp", LocalDateTime.now().toString());
-        return dto;
+    public static void writeAction(JsonWriter writer, GridState gridState, ActionBuffer actions, int index,
+                                   String timestamp) throws IOException {
+        writer.beginObject();
+        writer.name("fromNodeId").value(gridState.getNodeId(actions.getFromNode(index)));
+        writer.name("toNodeId").value(gridState.getNodeId(actions.getToNode(index)));
+        writer.name("amount").value(actions.getAmount(index));
+        writer.name("actionType").value(actions.getType(index).name());
+        writer.name("timestamp").value(timestamp);
+        writer.endObject();
     }
 
     public void close() {
@@ -0,0 +1,479 @@
+package com.smartgrid.utils;
+
+import com.smartgrid.models.SensorFrame;
+import com.smartgrid.services.ActionBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Non-blocking front end for {@link ApiClient}.
+ * Each published report or optimization pass is buffered whole, sensor frames by reference
+ * and action buffers as a copy. A dedicated thread coalesces buffered publications of the
+ * same kind into requests of up to {@code batchSize} records: a request is sent once it is
+ * full, or {@code lingerMillis} after its first record was added, splitting large publications
+ * and merging small ones. The buffer is bounded by {@code queueCapacity} records; when a
+ * publication does not fit, the {@link OverflowPolicy} decides whether to drop or wait, so a
+ * slow API never stalls the simulation scheduler.
+ */
+public class AsyncApiPublisher implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncApiPublisher.class);
+
+    /**
+     * Behaviour when the buffer is full.
+     */
+    public enum OverflowPolicy {
+        /** Discard the publication that does not fit. */
+        DROP_NEWEST,
+        /** Evict the oldest buffered publications to make room. */
+        DROP_OLDEST,
+        /** Wait up to the block timeout for room, then discard. */
+        BLOCK
+    }
+
+    private final ApiClient apiClient;
+    private final Deque<Pending> queue;
+    private final ReentrantLock lock;
+    private final Condition notEmpty;
+    private final Condition notFull;
+    private final int queueCapacity;
+    private int queuedRecords; // guarded by lock
+    private final int batchSize;
+    private final long lingerNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutMillis;
+    private final Thread sender;
+    private volatile boolean running;
+    private volatile boolean abandoned; // set when close times out; the sender discards what is left
+
+    private final LongAdder droppedRecords = new LongAdder();
+    private final LongAdder sentRecords = new LongAdder();
+    private final LongAdder sentBatches = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder totalSendNanos = new LongAdder();
+    private final AtomicLong maxSendNanos = new AtomicLong();
+    private volatile int lastBatchSize;
+
+    public AsyncApiPublisher(ApiClient apiClient, int queueCapacity, int batchSize, long lingerMillis,
+                             OverflowPolicy overflowPolicy, long blockTimeoutMillis) {
+        if (queueCapacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("queueCapacity and batchSize must be positive");
+        }
+        this.apiClient = apiClient;
+        this.queue = new ArrayDeque<>();
+        this.lock = new ReentrantLock();
+        this.notEmpty = lock.newCondition();
+        this.notFull = lock.newCondition();
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, lingerMillis));
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMillis = blockTimeoutMillis;
+        this.running = true;
+        this.sender = new Thread(this::runSender, "api-publisher");
+        this.sender.setDaemon(true);
+        this.sender.start();
+    }
+
+    /**
+     * Buffers the frame by reference: it is retained until sent or dropped, then released.
+     */
+    public void publishSensorData(SensorFrame frame) {
+        if (frame.size() > 0) {
+            frame.retain();
+            enqueue(new PendingSensors(frame));
+        }
+    }
+
+    /**
+     * Buffers a copy of the actions, so the caller may reuse the buffer right away.
+     * @param timestampNanos UTC epoch nanoseconds of the optimization pass
+     */
+    public void publishOptimizationActions(ActionBuffer actions, long timestampNanos) {
+        if (!actions.isEmpty()) {
+            enqueue(new PendingActions(actions.copy(), timestampNanos));
+        }
+    }
+
+    private void enqueue(Pending pending) {
+        int records = pending.size();
+        if (records > queueCapacity) {
+            drop(pending);
+            return;
+        }
+        lock.lock();
+        try {
+            // Checked under the lock, so nothing is enqueued after the sender's final drain
+            if (!running) {
+                drop(pending);
+                return;
+            }
+            switch (overflowPolicy) {
+                case DROP_NEWEST -> {
+                    if (queuedRecords + records > queueCapacity) {
+                        drop(pending);
+                        return;
+                    }
+                }
+                case DROP_OLDEST -> {
+                    while (queuedRecords + records > queueCapacity) {
+                        Pending evicted = queue.removeFirst();
+                        queuedRecords -= evicted.size();
+                        drop(evicted);
+                    }
+                }
+                case BLOCK -> {
+                    long remaining = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+                    while (queuedRecords + records > queueCapacity) {
+                        if (remaining <= 0 || !running) {
+                            drop(pending);
+                            return;
+                        }
+                        remaining = notFull.awaitNanos(remaining);
+                    }
+                }
+            }
+            queue.addLast(pending);
+            queuedRecords += records;
+            notEmpty.signal();
+        } catch (InterruptedException e) {
+            drop(pending);
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drop(Pending pending) {
+        droppedRecords.add(pending.size());
+        pending.done();
+    }
+
+    /**
+     * @return Next publication, or null once {@code timeoutNanos} pass, or right away if the
+     *         queue is empty and the publisher is closing
+     */
+    private Pending poll(long timeoutNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            long remaining = timeoutNanos;
+            while (queue.isEmpty()) {
+                if (remaining <= 0 || !running) {
+                    return null;
+                }
+                remaining = notEmpty.awaitNanos(remaining);
+            }
+            Pending pending = queue.removeFirst();
+            queuedRecords -= pending.size();
+            notFull.signalAll();
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runSender() {
+        Batch batch = new Batch(batchSize);
+        Pending current = null; // publication being split across requests
+        int offset = 0; // its first record not yet in a request
+        try {
+            while (!abandoned) {
+                if (current == null) {
+                    current = poll(batch.records == 0 ? Long.MAX_VALUE : batch.deadlineNanos - System.nanoTime());
+                    if (current == null) {
+                        if (batch.records > 0) {
+                            flush(batch); // lingered long enough, or closing
+                        } else if (!running) {
+                            break;
+                        }
+                        continue;
+                    }
+                    offset = 0;
+                    if (!batch.accepts(current)) {
+                        flush(batch);
+                    }
+                }
+                if (batch.records == 0) {
+                    batch.deadlineNanos = System.nanoTime() + lingerNanos;
+                }
+                int end = Math.min(current.size(), offset + batchSize - batch.records);
+                batch.add(current, offset, end);
+                offset = end;
+                if (offset == current.size()) {
+                    current = null;
+                }
+                if (batch.records == batchSize) {
+                    flush(batch);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            discard(batch, current, offset);
+        }
+    }
+
+    private void flush(Batch batch) {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            ok = batch.send(apiClient);
+        } catch (RuntimeException e) {
+            logger.error("Unexpected error in API publisher", e);
+        }
+        recordSend(batch.records, ok, System.nanoTime() - start);
+        batch.clear();
+    }
+
+    /**
+     * Drops everything not sent when the sender exits, releasing buffered frames.
+     */
+    private void discard(Batch batch, Pending current, int offset) {
+        droppedRecords.add(batch.records);
+        batch.clear();
+        if (current != null) {
+            droppedRecords.add(current.size() - offset);
+            current.done();
+        }
+        lock.lock();
+        try {
+            while (!queue.isEmpty()) {
+                Pending pending = queue.removeFirst();
+                queuedRecords -= pending.size();
+                drop(pending);
+            }
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recordSend(int records, boolean ok, long nanos) {
+        lastBatchSize = records;
+        totalSendNanos.add(nanos);
+        maxSendNanos.accumulateAndGet(nanos, Math::max);
+        sentBatches.increment();
+        if (ok) {
+            sentRecords.add(records);
+        } else {
+            failedBatches.increment();
+        }
+    }
+
+    /**
+     * @return Records buffered and not yet picked up by the sender
+     */
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queuedRecords;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    public long getDroppedRecords() {
+        return droppedRecords.sum();
+    }
+
+    public long getSentRecords() {
+        return sentRecords.sum();
+    }
+
+    public long getSentBatches() {
+        return sentBatches.sum();
+    }
+
+    public long getFailedBatches() {
+        return failedBatches.sum();
+    }
+
+    public double getAverageSendLatencyMillis() {
+        long batches = sentBatches.sum();
+        return batches == 0 ? 0.0 : totalSendNanos.sum() / (batches * 1_000_000.0);
+    }
+
+    public double getMaxSendLatencyMillis() {
+        return maxSendNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * Stops accepting records, flushes what is buffered (bounded by {@code timeoutMillis}),
+     * and closes the underlying client. Whatever is still unsent then is dropped and its
+     * frames released.
+     */
+    public void close(long timeoutMillis) {
+        running = false;
+        lock.lock();
+        try {
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            sender.join(timeoutMillis);
+            if (sender.isAlive()) {
+                logger.warn("API publisher did not drain in time, {} records discarded", getQueueDepth());
+                abandoned = true;
+                sender.interrupt();
+            }
+        } catch (InterruptedException e) {
+            sender.interrupt();
+            Thread.currentThread().interrupt();
+        }
+        apiClient.close();
+    }
+
+    @Override
+    public void close() {
+        close(5000);
+    }
+
+    /**
+     * One buffered publication, sent in index ranges.
+     */
+    private abstract static class Pending {
+        abstract int size();
+
+        /**
+         * Stores this publication as the source of segment {@code k} of the batch.
+         */
+        abstract void fill(Batch batch, int k);
+
+        /**
+         * Sends the batch, whose segments all come from publications of this kind.
+         */
+        abstract boolean send(ApiClient client, Batch batch);
+
+        /**
+         * Called once the publication has been sent or dropped.
+         */
+        void done() {
+        }
+    }
+
+    private static final class PendingSensors extends Pending {
+        private final SensorFrame frame;
+
+        PendingSensors(SensorFrame frame) {
+            this.frame = frame;
+        }
+
+        @Override
+        int size() {
+            return frame.size();
+        }
+
+        @Override
+        void fill(Batch batch, int k) {
+            batch.frames[k] = frame;
+        }
+
+        @Override
+        boolean send(ApiClient client, Batch batch) {
+            return client.sendSensorData(batch.frames, batch.from, batch.to, batch.count);
+        }
+
+        @Override
+        void done() {
+            frame.release();
+        }
+    }
+
+    private static final class PendingActions extends Pending {
+        private final ActionBuffer actions;
+        private final long timestampNanos;
+
+        PendingActions(ActionBuffer actions, long timestampNanos) {
+            this.actions = actions;
+            this.timestampNanos = timestampNanos;
+        }
+
+        @Override
+        int size() {
+            return actions.size();
+        }
+
+        @Override
+        void fill(Batch batch, int k) {
+            batch.actions[k] = actions;
+            batch.timestamps[k] = timestampNanos;
+        }
+
+        @Override
+        boolean send(ApiClient client, Batch batch) {
+            return client.sendOptimizationActions(batch.actions, batch.from, batch.to, batch.timestamps, batch.count);
+        }
+    }
+
+    /**
+     * Index ranges of publications of one kind, sent as a single request. Owned by the sender
+     * thread and reused for every request.
+     */
+    private static final class Batch {
+        final Pending[] pendings;
+        final int[] from;
+        final int[] to;
+        final SensorFrame[] frames;
+        final ActionBuffer[] actions;
+        final long[] timestamps;
+        int count;
+        int records;
+        long deadlineNanos; // when the request is sent even if not full
+
+        Batch(int batchSize) {
+            // Every segment holds at least one record
+            this.pendings = new Pending[batchSize];
+            this.from = new int[batchSize];
+            this.to = new int[batchSize];
+            this.frames = new SensorFrame[batchSize];
+            this.actions = new ActionBuffer[batchSize];
+            this.timestamps = new long[batchSize];
+        }
+
+        boolean accepts(Pending pending) {
+            return count == 0 || pendings[0].getClass() == pending.getClass();
+        }
+
+        void add(Pending pending, int start, int end) {
+            pendings[count] = pending;
+            from[count] = start;
+            to[count] = end;
+            pending.fill(this, count);
+            count++;
+            records += end - start;
+        }
+
+        boolean send(ApiClient client) {
+            return pendings[0].send(client, this);
+        }
+
+        /**
+         * Completes the publications whose last records were in this batch and empties it.
+         */
+        void clear() {
+            for (int k = 0; k < count; k++) {
+                if (to[k] == pendings[k].size()) {
+                    pendings[k].done();
+                }
+                pendings[k] = null;
+                frames[k] = null;
+                actions[k] = null;
+            }
+            count = 0;
+            records = 0;
+        }
+    }
+}
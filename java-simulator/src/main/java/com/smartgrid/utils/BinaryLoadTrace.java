@@ -0,0 +1,178 @@
+package com.smartgrid.utils;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Binary load trace, read through a fixed-size buffer so memory stays bounded regardless of
+ * file size.
+ * <pre>
+ * header: int magic "SGTR", short version, short reserved, int sourceCount,
+ *         sourceCount x (short length, UTF-8 source id)
+ * frame:  long timeMillis, double load[sourceCount]
+ * </pre>
+ * Values are little-endian. Use {@link Writer} to produce traces, e.g. converted from CSV.
+ */
+public class BinaryLoadTrace implements LoadTrace {
+    static final int MAGIC = 0x53475452; // "SGTR"
+    static final short VERSION = 1;
+    private static final int MIN_BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final String[] sourceIds;
+    private final int frameSize;
+    private long frameTimeMillis;
+
+    private BinaryLoadTrace(FileChannel channel, Path file) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(header);
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Bad magic in " + file);
+        }
+        short version = header.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported trace version " + version + " in " + file);
+        }
+        header.getShort();
+        int count = header.getInt();
+        if (count <= 0) {
+            throw new IOException("Invalid source count " + count + " in " + file);
+        }
+        this.sourceIds = new String[count];
+        ByteBuffer length = ByteBuffer.allocate(2).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < count; i++) {
+            length.clear();
+            readFully(length);
+            ByteBuffer id = ByteBuffer.allocate(length.getShort(0) & 0xFFFF);
+            readFully(id);
+            sourceIds[i] = new String(id.array(), StandardCharsets.UTF_8);
+        }
+
+        this.frameSize = 8 + count * 8;
+        this.buffer = ByteBuffer.allocateDirect(Math.max(MIN_BUFFER_SIZE, frameSize)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.flip();
+    }
+
+    public static BinaryLoadTrace open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new BinaryLoadTrace(channel, file);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int getSourceCount() {
+        return sourceIds.length;
+    }
+
+    @Override
+    public String getSourceId(int column) {
+        return sourceIds[column];
+    }
+
+    @Override
+    public boolean next(double[] loads) throws IOException {
+        if (buffer.remaining() < frameSize) {
+            buffer.compact();
+            while (buffer.position() < frameSize) {
+                if (channel.read(buffer) < 0) {
+                    buffer.flip();
+                    if (buffer.hasRemaining()) {
+                        throw new EOFException("Truncated frame at end of trace");
+                    }
+                    return false;
+                }
+            }
+            buffer.flip();
+        }
+        frameTimeMillis = buffer.getLong();
+        buffer.asDoubleBuffer().get(loads, 0, sourceIds.length);
+        buffer.position(buffer.position() + sourceIds.length * 8);
+        return true;
+    }
+
+    @Override
+    public long getFrameTimeMillis() {
+        return frameTimeMillis;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void readFully(ByteBuffer target) throws IOException {
+        while (target.hasRemaining()) {
+            if (channel.read(target) < 0) {
+                throw new EOFException("Truncated trace header");
+            }
+        }
+    }
+
+    /**
+     * Writes a binary trace frame by frame.
+     */
+    public static class Writer implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private final int sourceCount;
+
+        public Writer(Path file, List<String> sourceIds) throws IOException {
+            this.sourceCount = sourceIds.size();
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.buffer = ByteBuffer.allocateDirect(Math.max(MIN_BUFFER_SIZE, 8 + sourceCount * 8))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putInt(sourceCount);
+            for (String id : sourceIds) {
+                byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+                ensureRoom(2 + bytes.length);
+                buffer.putShort((short) bytes.length).put(bytes);
+            }
+        }
+
+        public void writeFrame(long timeMillis, double[] loads) throws IOException {
+            ensureRoom(8 + sourceCount * 8);
+            buffer.putLong(timeMillis);
+            buffer.asDoubleBuffer().put(loads, 0, sourceCount);
+            buffer.position(buffer.position() + sourceCount * 8);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                drain();
+            } finally {
+                channel.close();
+            }
+        }
+
+        private void ensureRoom(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.smartgrid.utils;
+
+import org.apache.hc.core5.http.ContentType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Request entity carrying a {@link BinaryTelemetryCodec} payload.
+ */
+public class BinaryPayloadEntity extends StreamingPayloadEntity {
+    private static final ContentType TELEMETRY = ContentType.create(BinaryTelemetryCodec.CONTENT_TYPE);
+
+    /**
+     * Encodes the payload into the given stream and closes it.
+     */
+    @FunctionalInterface
+    public interface Encoder {
+        void encode(OutputStream out) throws IOException;
+    }
+
+    private final Encoder encoder;
+
+    public BinaryPayloadEntity(Encoder encoder, boolean gzip) {
+        super(TELEMETRY, gzip);
+        this.encoder = encoder;
+    }
+
+    @Override
+    protected void writePayload(OutputStream out) throws IOException {
+        encoder.encode(out);
+    }
+}
@@ -0,0 +1,370 @@
+package com.smartgrid.utils;
+
+import com.smartgrid.models.GridState;
+import com.smartgrid.models.Sensor;
+import com.smartgrid.models.SensorFrame;
+import com.smartgrid.services.ActionBuffer;
+import com.smartgrid.services.ActionType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact binary wire format for telemetry batches.
+ * <pre>
+ * header:   int magic "SGT1", byte version, byte kind (1 = sensors, 2 = actions),
+ *           varint dictionarySize, dictionarySize x modified-UTF-8 strings, varint segmentCount
+ * sensors:  the dictionary holds the sensor id and node id of every node sent, in ordinal order
+ *           segment: zigzag timeDelta, varint firstNodeRef, varint recordCount
+ *           record:  load, voltage, frequency residuals; the node is firstNodeRef + index
+ * actions:  the dictionary holds the distinct node ids in ordinal order, then every action type
+ *           segment: zigzag timeDelta, varint recordCount
+ *           record:  varint fromNodeRef, varint toNodeRef, varint actionTypeRef, amount residual
+ * residual: byte (trailingZeroBytes &lt;&lt; 4 | significantBytes), then the significant bytes
+ * </pre>
+ * A segment is one frame's node range or one optimization pass, so one payload can carry
+ * several of each. Ids are sent once per payload, however many segments repeat a node, and
+ * sensor records reference them by position alone; ids are looked up in {@link GridState} only
+ * here. Each segment's time is UTC epoch nanoseconds, delta-encoded against the previous
+ * segment (the first against zero). Doubles are sent as their raw bits XOR the previous
+ * record's bits, trimmed to the bytes that differ, so unchanged values take one byte and
+ * slowly-varying ones a few. Varints are unsigned LEB128; fixed-width values are big-endian.
+ */
+public final class BinaryTelemetryCodec {
+    public static final String CONTENT_TYPE = "application/x-smartgrid-telemetry";
+
+    private static final int MAGIC = 0x53475431; // "SGT1"
+    private static final byte VERSION = 3; // 2 added action timestamps, 3 segments and variable-length values
+    private static final byte KIND_SENSORS = 1;
+    private static final byte KIND_ACTIONS = 2;
+    private static final int BUFFER_SIZE = 8192;
+
+    private BinaryTelemetryCodec() {
+    }
+
+    /**
+     * Encodes the frame's readings for nodes {@code from} (inclusive) to {@code to} (exclusive).
+     */
+    public static void encodeSensors(SensorFrame frame, int from, int to, GridState gridState,
+                                     OutputStream output) throws IOException {
+        encodeSensors(new SensorFrame[] {frame}, new int[] {from}, new int[] {to}, 1, gridState, output);
+    }
+
+    /**
+     * Encodes readings of several frames, one segment each: for {@code k < count}, nodes
+     * {@code from[k]} (inclusive) to {@code to[k]} (exclusive) of {@code frames[k]}.
+     */
+    public static void encodeSensors(SensorFrame[] frames, int[] from, int[] to, int count, GridState gridState,
+                                     OutputStream output) throws IOException {
+        int records = 0;
+        for (int k = 0; k < count; k++) {
+            records += to[k] - from[k];
+        }
+        int[] nodes = new int[records];
+        int n = 0;
+        for (int k = 0; k < count; k++) {
+            for (int i = from[k]; i < to[k]; i++) {
+                nodes[n++] = i;
+            }
+        }
+        int distinct = sortDistinct(nodes);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output, BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeByte(KIND_SENSORS);
+            writeVarLong(out, 2L * distinct);
+            for (int i = 0; i < distinct; i++) {
+                out.writeUTF(gridState.getSensorId(nodes[i]));
+                out.writeUTF(gridState.getNodeId(nodes[i]));
+            }
+            writeVarLong(out, count);
+            long previousTime = 0L;
+            long previousLoad = 0L;
+            long previousVoltage = 0L;
+            long previousFrequency = 0L;
+            for (int k = 0; k < count; k++) {
+                SensorFrame frame = frames[k];
+                writeVarLong(out, zigzag(frame.getTimestampNanos() - previousTime));
+                // A range of ordinals is a range of the sorted, distinct dictionary entries
+                writeVarLong(out, from[k] < to[k] ? Arrays.binarySearch(nodes, 0, distinct, from[k]) : 0);
+                writeVarLong(out, to[k] - from[k]);
+                previousTime = frame.getTimestampNanos();
+                for (int i = from[k]; i < to[k]; i++) {
+                    long load = Double.doubleToRawLongBits(frame.getLoad(i));
+                    long voltage = Double.doubleToRawLongBits(frame.getVoltage(i));
+                    long frequency = Double.doubleToRawLongBits(frame.getFrequency(i));
+                    writeResidual(out, load ^ previousLoad);
+                    writeResidual(out, voltage ^ previousVoltage);
+                    writeResidual(out, frequency ^ previousFrequency);
+                    previousLoad = load;
+                    previousVoltage = voltage;
+                    previousFrequency = frequency;
+                }
+            }
+        }
+    }
+
+    /**
+     * Encodes actions {@code from} (inclusive) to {@code to} (exclusive) of one optimization pass.
+     */
+    public static void encodeActions(ActionBuffer actions, int from, int to, GridState gridState,
+                                     long timestampNanos, OutputStream output) throws IOException {
+        encodeActions(new ActionBuffer[] {actions}, new int[] {from}, new int[] {to}, new long[] {timestampNanos}, 1,
+                gridState, output);
+    }
+
+    /**
+     * Encodes actions of several optimization passes, one segment each: for {@code k < count},
+     * actions {@code from[k]} (inclusive) to {@code to[k]} (exclusive) of {@code actions[k]},
+     * applied at {@code timestampsNanos[k]}.
+     */
+    public static void encodeActions(ActionBuffer[] actions, int[] from, int[] to, long[] timestampsNanos, int count,
+                                     GridState gridState, OutputStream output) throws IOException {
+        int records = 0;
+        for (int k = 0; k < count; k++) {
+            records += to[k] - from[k];
+        }
+        int[] nodes = new int[2 * records];
+        int n = 0;
+        for (int k = 0; k < count; k++) {
+            for (int i = from[k]; i < to[k]; i++) {
+                nodes[n++] = actions[k].getFromNode(i);
+                nodes[n++] = actions[k].getToNode(i);
+            }
+        }
+        int distinct = sortDistinct(nodes);
+        ActionType[] types = ActionType.values();
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output, BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeByte(KIND_ACTIONS);
+            writeVarLong(out, distinct + types.length);
+            for (int i = 0; i < distinct; i++) {
+                out.writeUTF(gridState.getNodeId(nodes[i]));
+            }
+            for (ActionType type : types) {
+                out.writeUTF(type.name());
+            }
+            writeVarLong(out, count);
+            long previousTime = 0L;
+            long previousAmount = 0L;
+            for (int k = 0; k < count; k++) {
+                ActionBuffer buffer = actions[k];
+                writeVarLong(out, zigzag(timestampsNanos[k] - previousTime));
+                writeVarLong(out, to[k] - from[k]);
+                previousTime = timestampsNanos[k];
+                for (int i = from[k]; i < to[k]; i++) {
+                    long amount = Double.doubleToRawLongBits(buffer.getAmount(i));
+                    writeVarLong(out, Arrays.binarySearch(nodes, 0, distinct, buffer.getFromNode(i)));
+                    writeVarLong(out, Arrays.binarySearch(nodes, 0, distinct, buffer.getToNode(i)));
+                    writeVarLong(out, distinct + buffer.getType(i).ordinal());
+                    writeResidual(out, amount ^ previousAmount);
+                    previousAmount = amount;
+                }
+            }
+        }
+    }
+
+    public static List<Sensor> decodeSensors(InputStream input) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(input, BUFFER_SIZE));
+        String[] dictionary = readHeader(in, KIND_SENSORS);
+        if (dictionary.length % 2 != 0) {
+            throw new IOException("Sensor dictionary holds an odd number of ids");
+        }
+        int segments = readCount(in);
+        long time = 0L;
+        long load = 0L;
+        long voltage = 0L;
+        long frequency = 0L;
+        List<Sensor> sensors = new ArrayList<>();
+        for (int k = 0; k < segments; k++) {
+            time += unzigzag(readVarLong(in));
+            LocalDateTime timestamp = fromEpochNanos(time);
+            int first = readCount(in);
+            int records = readCount(in);
+            if ((long) first + records > dictionary.length / 2) {
+                throw new IOException("Segment of " + records + " records from node " + first
+                        + " exceeds the dictionary");
+            }
+            for (int i = 0; i < records; i++) {
+                load ^= readResidual(in);
+                voltage ^= readResidual(in);
+                frequency ^= readResidual(in);
+                sensors.add(new Sensor(dictionary[2 * (first + i)], dictionary[2 * (first + i) + 1], timestamp,
+                        Double.longBitsToDouble(load),
+                        Double.longBitsToDouble(voltage),
+                        Double.longBitsToDouble(frequency)));
+            }
+        }
+        return sensors;
+    }
+
+    /**
+     * Decodes actions, resolving node ids to ordinals of the given grid. Segment times are not kept.
+     */
+    public static ActionBuffer decodeActions(InputStream input, GridState gridState) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(input, BUFFER_SIZE));
+        String[] dictionary = readHeader(in, KIND_ACTIONS);
+        int segments = readCount(in);
+        long amount = 0L;
+        ActionBuffer actions = new ActionBuffer();
+        for (int k = 0; k < segments; k++) {
+            readVarLong(in); // time delta
+            int records = readCount(in);
+            for (int i = 0; i < records; i++) {
+                int from = resolveNode(gridState, lookup(dictionary, readCount(in)));
+                int to = resolveNode(gridState, lookup(dictionary, readCount(in)));
+                String type = lookup(dictionary, readCount(in));
+                amount ^= readResidual(in);
+                try {
+                    actions.add(from, to, Double.longBitsToDouble(amount), ActionType.valueOf(type));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Unknown action type: " + type, e);
+                }
+            }
+        }
+        return actions;
+    }
+
+    /**
+     * Sorts {@code values} and moves its distinct values to the front.
+     * @return Number of distinct values
+     */
+    private static int sortDistinct(int[] values) {
+        Arrays.sort(values);
+        int distinct = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (i == 0 || values[i] != values[i - 1]) {
+                values[distinct++] = values[i];
+            }
+        }
+        return distinct;
+    }
+
+    private static int resolveNode(GridState gridState, String nodeId) throws IOException {
+        int ordinal = gridState.ordinalOf(nodeId);
+        if (ordinal < 0) {
+            throw new IOException("Unknown node: " + nodeId);
+        }
+        return ordinal;
+    }
+
+    private static String[] readHeader(DataInputStream in, byte expectedKind) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a telemetry payload");
+        }
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported telemetry version " + version);
+        }
+        byte kind = in.readByte();
+        if (kind != expectedKind) {
+            throw new IOException("Expected record kind " + expectedKind + " but found " + kind);
+        }
+        String[] dictionary = new String[readCount(in)];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = in.readUTF();
+        }
+        return dictionary;
+    }
+
+    private static int readCount(DataInputStream in) throws IOException {
+        long count = readVarLong(in);
+        if (count < 0 || count > Integer.MAX_VALUE) {
+            throw new IOException("Count out of range in telemetry payload");
+        }
+        return (int) count;
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in telemetry payload");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Writes an XOR residual without its zero bytes at either end; zero is the single byte 0.
+     */
+    private static void writeResidual(DataOutputStream out, long residual) throws IOException {
+        if (residual == 0) {
+            out.writeByte(0);
+            return;
+        }
+        int trailing = Long.numberOfTrailingZeros(residual) >>> 3;
+        int significant = 8 - (Long.numberOfLeadingZeros(residual) >>> 3) - trailing;
+        out.writeByte(trailing << 4 | significant);
+        long bits = residual >>> (8 * trailing);
+        for (int b = significant - 1; b >= 0; b--) {
+            out.writeByte((int) (bits >>> (8 * b)));
+        }
+    }
+
+    private static long readResidual(DataInputStream in) throws IOException {
+        int control = in.readUnsignedByte();
+        int trailing = control >>> 4;
+        int significant = control & 0x0F;
+        if (trailing + significant > 8) {
+            throw new IOException("Malformed value in telemetry payload");
+        }
+        long bits = 0L;
+        for (int b = 0; b < significant; b++) {
+            bits = bits << 8 | in.readUnsignedByte();
+        }
+        return significant == 0 ? 0L : bits << (8 * trailing);
+    }
+
+    private static String lookup(String[] dictionary, int ref) throws IOException {
+        if (ref < 0 || ref >= dictionary.length) {
+            throw new IOException("Dictionary reference out of range: " + ref);
+        }
+        return dictionary[ref];
+    }
+
+    public static long toEpochNanos(Instant timestamp) {
+        return Math.addExact(Math.multiplyExact(timestamp.getEpochSecond(), 1_000_000_000L), timestamp.getNano());
+    }
+
+    /**
+     * @return Local date-time of the instant in the system time zone, as {@link Sensor} and the
+     *         JSON payloads carry timestamps
+     */
+    public static LocalDateTime fromEpochNanos(long epochNanos) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(Math.floorDiv(epochNanos, 1_000_000_000L),
+                Math.floorMod(epochNanos, 1_000_000_000L)), ZoneId.systemDefault());
+    }
+}
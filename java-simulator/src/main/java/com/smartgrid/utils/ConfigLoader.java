@@ -2,67 +2,607 @@ package com.smartgrid.utils;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.OptionalLong;
 import java.util.Properties;
+import java.util.function.Function;
 
 /**
  * Configuration loader for simulation parameters.
+ * <p>
+ * Each instance is an immutable snapshot: every value is parsed once, when the configuration
+ * is loaded, so getters are plain field reads and a malformed value fails at load time with
+ * the offending key. Configurations load from a filesystem path, falling back to a classpath
+ * resource, and any key can be overridden by an environment variable named
+ * {@code SMARTGRID_} plus the key upper-cased with dots as underscores (e.g.
+ * {@code SMARTGRID_GRID_OVERLOADTHRESHOLD}). A changed file is picked up by loading a new
+ * snapshot; see {@link ConfigWatcher}.
  */
 public class ConfigLoader {
+    static final String ENVIRONMENT_PREFIX = "SMARTGRID_";
+
     private final Properties properties;
+    private final Path sourcePath; // null unless loaded from the filesystem
+    private final Map<String, String> environment; // only consulted while parsing
+
+    private final int numberOfNodes;
+    private final int numberOfLoadSources;
+    private final double nodeBaseCapacity;
+    private final double overloadThreshold;
+    private final double underloadThreshold;
+    private final String balancingStrategy;
+    private final String topologyFile;
+    private final int topologyMaxHops;
+    private final String partitioner;
+    private final int threadPoolSize;
+    private final String executionMode;
+    private final int tickGrainSize;
+    private final int parallelTickThreshold;
+    private final String aggregationMode;
+    private final String scenarioFile;
+    private final double sourceChangeProbability;
+    private final int fullRecomputeInterval;
+    private final String clockMode;
+    private final int loadUpdateInterval;
+    private final int optimizationInterval;
+    private final int reportingInterval;
+    private final OptionalLong simulationSeed;
+    private final int simulationDuration;
+    private final boolean watchEnabled;
+    private final String apiEndpoint;
+    private final boolean apiEnabled;
+    private final boolean apiAsync;
+    private final int apiQueueCapacity;
+    private final int apiBatchSize;
+    private final long apiLingerMillis;
+    private final AsyncApiPublisher.OverflowPolicy apiOverflowPolicy;
+    private final long apiBlockTimeoutMillis;
+    private final int apiMaxConnections;
+    private final boolean apiGzip;
+    private final PayloadFormat apiFormat;
+    private final String traceFile;
+    private final double traceSpeed;
+    private final int traceBufferFrames;
+    private final boolean recorderEnabled;
+    private final String recorderDirectory;
+    private final int recorderSegmentSizeMB;
+    private final int recorderMaxSegments;
+    private final int reportTopNodes;
+    private final int reportFrameRingSize;
+    private final boolean forecastEnabled;
+    private final double forecastAlpha;
+    private final double forecastBeta;
+    private final int forecastHorizonTicks;
+    private final boolean predictiveBalancing;
+    private final boolean checkpointEnabled;
+    private final String checkpointFile;
+    private final int checkpointInterval;
+    private final boolean metricsHttpEnabled;
+    private final String metricsHttpHost;
+    private final int metricsHttpPort;
+    private final boolean metricsJmxEnabled;
 
+    /**
+     * Wraps already-loaded properties (copied, so later changes to {@code properties} are not seen).
+     * Environment overrides are not applied; they belong to the file the properties came from.
+     */
+    public ConfigLoader(Properties properties) {
+        this(properties, null, Map.of());
+    }
+
+    /**
+     * Loads a filesystem path, or failing that a classpath resource, and applies environment overrides.
+     */
     public ConfigLoader(String configFile) {
-        properties = new Properties();
-        try (InputStream input = getClass().getClassLoader().getResourceAsStream(configFile)) {
-            if (input == null) {
-                throw new IOException("Unable to find " + configFile);
-            }
-            properties.load(input);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to load configuration", e);
+        this(read(configFile), sourcePathOf(configFile), System.getenv());
+    }
+
+    private ConfigLoader(Properties properties, Path sourcePath, Map<String, String> environment) {
+        this.properties = new Properties();
+        this.properties.putAll(properties);
+        this.sourcePath = sourcePath;
+        this.environment = environment;
+
+        numberOfNodes = integer("grid.nodes", 10);
+        numberOfLoadSources = integer("grid.loadSources", 50);
+        nodeBaseCapacity = decimal("grid.nodeBaseCapacity", 100.0);
+        overloadThreshold = decimal("grid.overloadThreshold", 85.0);
+        underloadThreshold = decimal("grid.underloadThreshold", 40.0);
+        balancingStrategy = string("grid.balancingStrategy", "greedy");
+        topologyFile = string("grid.topologyFile", null);
+        topologyMaxHops = integer("grid.topologyMaxHops", 3);
+        partitioner = string("simulation.partitioner", "none");
+        threadPoolSize = integer("simulation.threadPoolSize", 4);
+        executionMode = string("simulation.executor", "platform");
+        tickGrainSize = integer("simulation.tickGrainSize", 4096);
+        parallelTickThreshold = integer("simulation.parallelTickThreshold", 16384);
+        aggregationMode = string("simulation.aggregation", "full");
+        scenarioFile = string("simulation.scenario", null);
+        sourceChangeProbability = decimal("simulation.sourceChangeProbability", 0.02);
+        fullRecomputeInterval = integer("simulation.fullRecomputeInterval", 100);
+        clockMode = string("simulation.clock", "realtime");
+        loadUpdateInterval = integer("simulation.loadUpdateInterval", 5);
+        optimizationInterval = integer("simulation.optimizationInterval", 15);
+        reportingInterval = integer("simulation.reportingInterval", 10);
+        String seed = string("simulation.seed", null);
+        simulationSeed = (seed == null || seed.isBlank()) ? OptionalLong.empty()
+                : OptionalLong.of(parse("simulation.seed", seed.trim(), Long::parseLong));
+        simulationDuration = integer("simulation.duration", 300);
+        watchEnabled = bool("config.watch", true);
+        apiEndpoint = string("api.endpoint", "http://localhost:5000");
+        apiEnabled = bool("api.enabled", true);
+        apiAsync = bool("api.async", true);
+        apiQueueCapacity = integer("api.queueCapacity", 10000);
+        apiBatchSize = integer("api.batchSize", 500);
+        apiLingerMillis = longValue("api.lingerMillis", 200L);
+        apiOverflowPolicy = parse("api.overflowPolicy", string("api.overflowPolicy", "DROP_OLDEST"),
+                value -> AsyncApiPublisher.OverflowPolicy.valueOf(value.trim().toUpperCase()));
+        apiBlockTimeoutMillis = longValue("api.blockTimeoutMillis", 1000L);
+        apiMaxConnections = integer("api.maxConnections", 4);
+        apiGzip = bool("api.gzip", false);
+        apiFormat = parse("api.format", string("api.format", "json"),
+                value -> PayloadFormat.valueOf(value.trim().toUpperCase()));
+        traceFile = string("trace.file", null);
+        traceSpeed = decimal("trace.speed", 1.0);
+        traceBufferFrames = integer("trace.bufferFrames", 64);
+        recorderEnabled = bool("recorder.enabled", false);
+        recorderDirectory = string("recorder.directory", "recordings");
+        recorderSegmentSizeMB = integer("recorder.segmentSizeMB", 64);
+        recorderMaxSegments = integer("recorder.maxSegments", 0);
+        reportTopNodes = integer("report.topNodes", 5);
+        reportFrameRingSize = integer("report.frameRingSize", 4);
+        forecastEnabled = bool("forecast.enabled", false);
+        forecastAlpha = decimal("forecast.alpha", 0.5);
+        forecastBeta = decimal("forecast.beta", 0.2);
+        forecastHorizonTicks = integer("forecast.horizonTicks", 3);
+        predictiveBalancing = bool("forecast.predictiveBalancing", false);
+        checkpointEnabled = bool("checkpoint.enabled", false);
+        checkpointFile = string("checkpoint.file", "simulation.checkpoint");
+        checkpointInterval = integer("checkpoint.interval", 300);
+        metricsHttpEnabled = bool("metrics.httpEnabled", false);
+        metricsHttpHost = string("metrics.httpHost", "127.0.0.1");
+        metricsHttpPort = integer("metrics.httpPort", 9404);
+        metricsJmxEnabled = bool("metrics.jmxEnabled", false);
+    }
+
+    /**
+     * Loads the file this configuration came from again, as a new snapshot.
+     * @throws IllegalStateException if it was not loaded from the filesystem
+     */
+    public ConfigLoader reload() {
+        if (sourcePath == null) {
+            throw new IllegalStateException("Configuration was not loaded from a file");
         }
+        return new ConfigLoader(sourcePath.toString());
+    }
+
+    /**
+     * @return Copy of the underlying properties (environment overrides included), e.g. to derive
+     *         a modified configuration
+     */
+    public Properties toProperties() {
+        Properties copy = new Properties();
+        copy.putAll(properties);
+        return copy;
+    }
+
+    /**
+     * @return File this configuration was loaded from, or null for classpath resources and wrapped properties
+     */
+    public Path getSourcePath() {
+        return sourcePath;
+    }
+
+    /**
+     * @return Whether a file-based configuration is watched and re-applied to the running engine when it changes
+     */
+    public boolean isWatchEnabled() {
+        return watchEnabled;
     }
 
     public int getNumberOfNodes() {
-        return Integer.parseInt(properties.getProperty("grid.nodes", "10"));
+        return numberOfNodes;
     }
 
     public int getNumberOfLoadSources() {
-        return Integer.parseInt(properties.getProperty("grid.loadSources", "50"));
+        return numberOfLoadSources;
     }
 
     public double getNodeBaseCapacity() {
-        return Double.parseDouble(properties.getProperty("grid.nodeBaseCapacity", "100.0"));
+        return nodeBaseCapacity;
     }
 
     public double getOverloadThreshold() {
-        return Double.parseDouble(properties.getProperty("grid.overloadThreshold", "85.0"));
+        return overloadThreshold;
     }
 
     public double getUnderloadThreshold() {
-        return Double.parseDouble(properties.getProperty("grid.underloadThreshold", "40.0"));
+        return underloadThreshold;
+    }
+
+    /**
+     * @return Load balancing strategy name: "greedy", "heap" or "topology"
+     */
+    public String getBalancingStrategy() {
+        return balancingStrategy;
+    }
+
+    /**
+     * @return Transmission line file (filesystem path or classpath resource), or null if none
+     */
+    public String getTopologyFile() {
+        return topologyFile;
+    }
+
+    /**
+     * @return Maximum number of lines a single transfer may traverse in the topology strategy
+     */
+    public int getTopologyMaxHops() {
+        return topologyMaxHops;
+    }
+
+    /**
+     * @return Optimization partitioner name: "none" or "region"
+     */
+    public String getPartitioner() {
+        return partitioner;
     }
 
     public int getThreadPoolSize() {
-        return Integer.parseInt(properties.getProperty("simulation.threadPoolSize", "4"));
+        return threadPoolSize;
+    }
+
+    /**
+     * @return Thread model: "platform", "virtual" (Java 21+) or "forkjoin"
+     */
+    public String getExecutionMode() {
+        return executionMode;
+    }
+
+    /**
+     * @return Approximate number of source reads handled by one fork-join chunk during a tick
+     */
+    public int getTickGrainSize() {
+        return tickGrainSize;
+    }
+
+    /**
+     * @return Assigned source count at or below which ticks run sequentially on the scheduler thread
+     */
+    public int getParallelTickThreshold() {
+        return parallelTickThreshold;
+    }
+
+    /**
+     * @return Load aggregation mode: "full" (re-sum every source each tick) or "incremental" (apply deltas of changed sources)
+     */
+    public String getAggregationMode() {
+        return aggregationMode;
+    }
+
+    /**
+     * @return Load profile scenario file or resource, or null when sources draw plain noise
+     */
+    public String getScenarioFile() {
+        return scenarioFile;
+    }
+
+    /**
+     * @return Probability that a source produces a new reading in a given tick (incremental mode)
+     */
+    public double getSourceChangeProbability() {
+        return sourceChangeProbability;
+    }
+
+    /**
+     * @return Ticks between full recomputes of node totals in incremental mode
+     */
+    public int getFullRecomputeInterval() {
+        return fullRecomputeInterval;
+    }
+
+    /**
+     * @return Clock driving the engine: "realtime" (wall clock) or "virtual" (discrete-event, as fast as possible)
+     */
+    public String getClockMode() {
+        return clockMode;
     }
 
     public int getLoadUpdateInterval() {
-        return Integer.parseInt(properties.getProperty("simulation.loadUpdateInterval", "5"));
+        return loadUpdateInterval;
     }
 
     public int getOptimizationInterval() {
-        return Integer.parseInt(properties.getProperty("simulation.optimizationInterval", "15"));
+        return optimizationInterval;
     }
 
     public int getReportingInterval() {
-        return Integer.parseInt(properties.getProperty("simulation.reportingInterval", "10"));
+        return reportingInterval;
+    }
+
+    /**
+     * @return Master seed for all simulation randomness, empty when runs should not be reproducible
+     */
+    public OptionalLong getSimulationSeed() {
+        return simulationSeed;
     }
 
     public String getApiEndpoint() {
-        return properties.getProperty("api.endpoint", "http://localhost:5000");
+        return apiEndpoint;
+    }
+
+    /**
+     * @return Whether readings and actions are sent to the API at all
+     */
+    public boolean isApiEnabled() {
+        return apiEnabled;
+    }
+
+    /**
+     * @return Whether API calls go through the batched background publisher
+     */
+    public boolean isApiAsync() {
+        return apiAsync;
+    }
+
+    public int getApiQueueCapacity() {
+        return apiQueueCapacity;
+    }
+
+    public int getApiBatchSize() {
+        return apiBatchSize;
+    }
+
+    public long getApiLingerMillis() {
+        return apiLingerMillis;
+    }
+
+    /**
+     * @return Buffer overflow policy: DROP_NEWEST, DROP_OLDEST or BLOCK
+     */
+    public AsyncApiPublisher.OverflowPolicy getApiOverflowPolicy() {
+        return apiOverflowPolicy;
+    }
+
+    public long getApiBlockTimeoutMillis() {
+        return apiBlockTimeoutMillis;
+    }
+
+    public int getApiMaxConnections() {
+        return apiMaxConnections;
+    }
+
+    /**
+     * @return Whether request bodies are gzip-compressed
+     */
+    public boolean isApiGzip() {
+        return apiGzip;
+    }
+
+    /**
+     * @return Request body format: JSON or BINARY
+     */
+    public PayloadFormat getApiFormat() {
+        return apiFormat;
+    }
+
+    /**
+     * @return Load trace replayed in place of random source draws (.csv or binary), or null for none
+     */
+    public String getTraceFile() {
+        return traceFile;
+    }
+
+    /**
+     * @return Trace milliseconds replayed per simulated millisecond; 0 or less steps one frame per load update
+     */
+    public double getTraceSpeed() {
+        return traceSpeed;
+    }
+
+    /**
+     * @return Trace frames prefetched ahead of the simulation
+     */
+    public int getTraceBufferFrames() {
+        return traceBufferFrames;
+    }
+
+    /**
+     * @return Whether ticks, sensor readings and actions are recorded to local segment files
+     */
+    public boolean isRecorderEnabled() {
+        return recorderEnabled;
+    }
+
+    /**
+     * @return Directory under which each run gets its own recording subdirectory
+     */
+    public String getRecorderDirectory() {
+        return recorderDirectory;
+    }
+
+    /**
+     * @return Size of each recording segment file in MB
+     */
+    public int getRecorderSegmentSizeMB() {
+        return recorderSegmentSizeMB;
+    }
+
+    /**
+     * @return Recording segments kept on disk per run (oldest deleted first), or 0 to keep all
+     */
+    public int getRecorderMaxSegments() {
+        return recorderMaxSegments;
+    }
+
+    /**
+     * @return Most utilized nodes listed in each status report (all nodes are logged at DEBUG)
+     */
+    public int getReportTopNodes() {
+        return reportTopNodes;
+    }
+
+    /**
+     * @return Preallocated sensor frames reports rotate through; bounds reports queued for the API
+     */
+    public int getReportFrameRingSize() {
+        return reportFrameRingSize;
+    }
+
+    /**
+     * @return Whether per-node load forecasts are maintained; implied by predictive balancing
+     */
+    public boolean isForecastEnabled() {
+        return forecastEnabled || predictiveBalancing;
+    }
+
+    /**
+     * @return Level smoothing factor of the load forecast, in (0, 1]
+     */
+    public double getForecastAlpha() {
+        return forecastAlpha;
+    }
+
+    /**
+     * @return Trend smoothing factor of the load forecast, in (0, 1]
+     */
+    public double getForecastBeta() {
+        return forecastBeta;
+    }
+
+    /**
+     * @return Load updates ahead that overloads are predicted
+     */
+    public int getForecastHorizonTicks() {
+        return forecastHorizonTicks;
+    }
+
+    /**
+     * @return Whether optimization also sheds load from nodes forecast to overload
+     */
+    public boolean isPredictiveBalancing() {
+        return predictiveBalancing;
+    }
+
+    /**
+     * @return Whether engine state is checkpointed periodically and on stop
+     */
+    public boolean isCheckpointEnabled() {
+        return checkpointEnabled;
+    }
+
+    /**
+     * @return File each checkpoint replaces
+     */
+    public String getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    /**
+     * @return Simulated seconds between checkpoints
+     */
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    /**
+     * @return Whether metrics are served over HTTP in Prometheus text format
+     */
+    public boolean isMetricsHttpEnabled() {
+        return metricsHttpEnabled;
+    }
+
+    public String getMetricsHttpHost() {
+        return metricsHttpHost;
+    }
+
+    /**
+     * @return Port for the metrics endpoint; 0 picks a free port
+     */
+    public int getMetricsHttpPort() {
+        return metricsHttpPort;
+    }
+
+    /**
+     * @return Whether metrics are registered as a JMX MBean
+     */
+    public boolean isMetricsJmxEnabled() {
+        return metricsJmxEnabled;
     }
 
     public int getSimulationDuration() {
-        return Integer.parseInt(properties.getProperty("simulation.duration", "300"));
+        return simulationDuration;
+    }
+
+    /**
+     * @return Environment variable that overrides {@code key}, e.g. SMARTGRID_API_ENDPOINT for api.endpoint
+     */
+    static String environmentName(String key) {
+        return ENVIRONMENT_PREFIX + key.toUpperCase().replace('.', '_');
+    }
+
+    /**
+     * Reads a raw value, folding an environment override into the properties so that
+     * {@link #toProperties()} carries it into derived configurations.
+     */
+    private String string(String key, String defaultValue) {
+        String override = environment.get(environmentName(key));
+        if (override != null) {
+            properties.setProperty(key, override);
+        }
+        return properties.getProperty(key, defaultValue);
+    }
+
+    private int integer(String key, int defaultValue) {
+        return parse(key, string(key, String.valueOf(defaultValue)), value -> Integer.parseInt(value.trim()));
+    }
+
+    private long longValue(String key, long defaultValue) {
+        return parse(key, string(key, String.valueOf(defaultValue)), value -> Long.parseLong(value.trim()));
+    }
+
+    private double decimal(String key, double defaultValue) {
+        return parse(key, string(key, String.valueOf(defaultValue)), value -> Double.parseDouble(value.trim()));
+    }
+
+    private boolean bool(String key, boolean defaultValue) {
+        return Boolean.parseBoolean(string(key, String.valueOf(defaultValue)).trim());
+    }
+
+    private static <T> T parse(String key, String value, Function<String, T> parser) {
+        try {
+            return parser.apply(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+        }
+    }
+
+    private static Path sourcePathOf(String configFile) {
+        Path path = Path.of(configFile);
+        return Files.isRegularFile(path) ? path.toAbsolutePath() : null;
+    }
+
+    private static Properties read(String configFile) {
+        Properties properties = new Properties();
+        Path path = Path.of(configFile);
+        try {
+            if (Files.isRegularFile(path)) {
+                try (InputStream input = Files.newInputStream(path)) {
+                    properties.load(input);
+                }
+            } else {
+                try (InputStream input = ConfigLoader.class.getClassLoader().getResourceAsStream(configFile)) {
+                    if (input == null) {
+                        throw new IOException("Unable to find " + configFile);
+                    }
+                    properties.load(input);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load configuration", e);
+        }
+        return properties;
     }
 }
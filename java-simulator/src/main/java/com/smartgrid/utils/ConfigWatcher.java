@@ -0,0 +1,114 @@
+package com.smartgrid.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Watches a configuration file with an NIO {@link WatchService} and hands each changed
+ * version, parsed into a new {@link ConfigLoader} snapshot, to a listener on a background
+ * thread. Events are debounced, since editors often save in several writes, and a file that
+ * fails to parse is logged and skipped so the last good configuration stays in effect.
+ */
+public class ConfigWatcher implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(ConfigWatcher.class);
+    private static final long DEBOUNCE_MILLIS = 200;
+
+    private final Path file;
+    private final Consumer<ConfigLoader> listener;
+    private final WatchService watchService;
+    private final Thread thread;
+    private ConfigLoader current; // confined to the watcher thread after construction
+
+    /**
+     * @param current Configuration already in effect; reloads equal to it are not reported
+     */
+    public ConfigWatcher(ConfigLoader current, Consumer<ConfigLoader> listener) throws IOException {
+        if (current.getSourcePath() == null) {
+            throw new IllegalArgumentException("Only configurations loaded from a file can be watched");
+        }
+        this.file = current.getSourcePath();
+        this.listener = listener;
+        this.current = current;
+        // The directory is watched, since editors often replace the file rather than write to it
+        this.watchService = FileSystems.getDefault().newWatchService();
+        file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = new Thread(this::run, "config-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = touchesFile(key);
+                // Let a multi-write save settle, then swallow the events it produced
+                while (changed && (key = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    touchesFile(key);
+                }
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    private boolean touchesFile(WatchKey key) {
+        boolean touched = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || file.getFileName().equals(event.context())) {
+                touched = true;
+            }
+        }
+        key.reset();
+        return touched;
+    }
+
+    private void reload() {
+        ConfigLoader loaded;
+        try {
+            loaded = current.reload();
+        } catch (RuntimeException e) {
+            logger.error("Ignoring invalid configuration in {}; keeping the previous one", file, e);
+            return;
+        }
+        if (loaded.toProperties().equals(current.toProperties())) {
+            return;
+        }
+        try {
+            listener.accept(loaded);
+            current = loaded;
+        } catch (RuntimeException e) {
+            logger.error("Rejected configuration change in {}", file, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close config watcher", e);
+        }
+        thread.interrupt();
+    }
+}
@@ -0,0 +1,140 @@
+package com.smartgrid.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Wide-format CSV load trace, read one line per frame:
+ * <pre>
+ * time_ms,SOURCE-1,SOURCE-2,...
+ * 0,12.5,-3.0,...
+ * 1000,12.9,-3.4,...
+ * </pre>
+ * Blank lines and lines starting with {@code #} are ignored. Frame times must not decrease.
+ */
+public class CsvLoadTrace implements LoadTrace {
+    private final BufferedReader reader;
+    private final String location;
+    private final String[] sourceIds;
+    private int lineNumber;
+    private long frameTimeMillis;
+
+    private CsvLoadTrace(BufferedReader reader, String location) throws IOException {
+        this.reader = reader;
+        this.location = location;
+        this.frameTimeMillis = Long.MIN_VALUE;
+        String header = nextLine();
+        if (header == null) {
+            throw new IOException(location + ": missing header line");
+        }
+        String[] fields = header.split(",");
+        if (fields.length < 2) {
+            throw new IOException(location + ":" + lineNumber + ": expected time_ms followed by source ids");
+        }
+        this.sourceIds = new String[fields.length - 1];
+        for (int i = 1; i < fields.length; i++) {
+            sourceIds[i - 1] = fields[i].trim();
+        }
+    }
+
+    /**
+     * Opens a filesystem path, falling back to a classpath resource.
+     */
+    public static CsvLoadTrace open(String location) throws IOException {
+        InputStream input;
+        Path path = Path.of(location);
+        if (Files.isRegularFile(path)) {
+            input = Files.newInputStream(path);
+        } else {
+            input = CsvLoadTrace.class.getClassLoader().getResourceAsStream(location);
+            if (input == null) {
+                throw new IOException("Unable to find " + location);
+            }
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        try {
+            return new CsvLoadTrace(reader, location);
+        } catch (IOException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int getSourceCount() {
+        return sourceIds.length;
+    }
+
+    @Override
+    public String getSourceId(int column) {
+        return sourceIds[column];
+    }
+
+    @Override
+    public boolean next(double[] loads) throws IOException {
+        String line = nextLine();
+        if (line == null) {
+            return false;
+        }
+        // Walk the separators by hand; a full split per frame allocates a string array per line
+        int start = 0;
+        int column = -1;
+        int length = line.length();
+        while (start <= length) {
+            int end = line.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (column >= sourceIds.length) {
+                throw new IOException(location + ":" + lineNumber + ": more than " + (sourceIds.length + 1) + " fields");
+            }
+            String field = line.substring(start, end).trim();
+            try {
+                if (column < 0) {
+                    long time = Long.parseLong(field);
+                    if (time < frameTimeMillis) {
+                        throw new IOException(location + ":" + lineNumber + ": frame time goes backwards");
+                    }
+                    frameTimeMillis = time;
+                } else {
+                    loads[column] = Double.parseDouble(field);
+                }
+            } catch (NumberFormatException e) {
+                throw new IOException(location + ":" + lineNumber + ": invalid number '" + field + "'", e);
+            }
+            column++;
+            start = end + 1;
+        }
+        if (column != sourceIds.length) {
+            throw new IOException(location + ":" + lineNumber + ": expected " + (sourceIds.length + 1) + " fields");
+        }
+        return true;
+    }
+
+    @Override
+    public long getFrameTimeMillis() {
+        return frameTimeMillis;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String nextLine() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                return line;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,65 @@
+package com.smartgrid.utils;
+
+import com.google.gson.stream.JsonWriter;
+import org.apache.hc.core5.http.ContentType;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Request entity that streams a JSON array of records with Gson's {@link JsonWriter}.
+ * No intermediate DTO maps or full-payload strings are built, so memory per request stays
+ * flat as the record count grows.
+ */
+public class JsonPayloadEntity<T> extends StreamingPayloadEntity {
+
+    /**
+     * Writes a single record as a JSON object.
+     */
+    @FunctionalInterface
+    public interface RecordWriter<T> {
+        void write(JsonWriter writer, T record) throws IOException;
+    }
+
+    /**
+     * Writes the record at an index of columnar storage as a JSON object.
+     */
+    @FunctionalInterface
+    public interface IndexedRecordWriter {
+        void write(JsonWriter writer, int index) throws IOException;
+    }
+
+    private final int from;
+    private final int to;
+    private final IndexedRecordWriter recordWriter;
+
+    public JsonPayloadEntity(List<T> records, RecordWriter<T> recordWriter, boolean gzip) {
+        this(0, records.size(), (writer, index) -> recordWriter.write(writer, records.get(index)), gzip);
+    }
+
+    /**
+     * Streams records {@code from} (inclusive) to {@code to} (exclusive) without materializing them.
+     */
+    public JsonPayloadEntity(int from, int to, IndexedRecordWriter recordWriter, boolean gzip) {
+        super(ContentType.APPLICATION_JSON, gzip);
+        this.from = from;
+        this.to = to;
+        this.recordWriter = recordWriter;
+    }
+
+    @Override
+    protected void writePayload(OutputStream out) throws IOException {
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE))) {
+            writer.beginArray();
+            for (int i = from; i < to; i++) {
+                recordWriter.write(writer, i);
+            }
+            writer.endArray();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.smartgrid.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Sequential reader over a recorded per-source load series. Each frame holds one load value
+ * (MW, negative for production) per source column plus the frame's trace time. Frames are
+ * read one at a time, so traces larger than the heap can be replayed.
+ */
+public interface LoadTrace extends Closeable {
+
+    int getSourceCount();
+
+    String getSourceId(int column);
+
+    /**
+     * Reads the next frame's loads into {@code loads} (length at least {@link #getSourceCount()}).
+     * @return false when the trace is exhausted
+     */
+    boolean next(double[] loads) throws IOException;
+
+    /**
+     * @return Trace time of the frame last returned by {@link #next(double[])}, in milliseconds
+     */
+    long getFrameTimeMillis();
+
+    /**
+     * Opens a trace by file extension: {@code .csv} files are parsed as CSV, anything else as
+     * the binary format. CSV traces may also be classpath resources.
+     */
+    static LoadTrace open(String location) throws IOException {
+        if (location.toLowerCase().endsWith(".csv")) {
+            return CsvLoadTrace.open(location);
+        }
+        return BinaryLoadTrace.open(Path.of(location));
+    }
+}
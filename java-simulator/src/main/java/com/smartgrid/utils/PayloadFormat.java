@@ -0,0 +1,11 @@
+package com.smartgrid.utils;
+
+/**
+ * Wire format used by {@link ApiClient} for request bodies.
+ */
+public enum PayloadFormat {
+    /** JSON arrays matching the API DTOs. */
+    JSON,
+    /** Fixed-width {@link BinaryTelemetryCodec} records. */
+    BINARY
+}
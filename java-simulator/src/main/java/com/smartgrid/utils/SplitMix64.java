@@ -0,0 +1,79 @@
+package com.smartgrid.utils;
+
+/**
+ * Small, non-thread-safe SplitMix64 generator: the output function of
+ * {@link java.util.SplittableRandom} with a single fixed gamma. Unlike {@code SplittableRandom},
+ * which gives every split its own gamma, its whole state is one {@code long}, so streams can be
+ * checkpointed and restored exactly. Streams differ only in their starting state, so sibling
+ * streams are not guaranteed disjoint; seed many of them (one per load source) with
+ * {@link #stream(long, long)}, and use {@link #split()} only for a handful of subsystem streams.
+ */
+public final class SplitMix64 {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private long state;
+
+    public SplitMix64(long seed) {
+        this.state = seed;
+    }
+
+    public long nextLong() {
+        return mix64(state += GOLDEN_GAMMA);
+    }
+
+    /**
+     * @return Uniform value in [0, 1)
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * Derives a child stream seeded from this generator's next output; advances this generator by one step.
+     */
+    public SplitMix64 split() {
+        return new SplitMix64(mix64(nextLong()));
+    }
+
+    /**
+     * @return Generator for stream {@code index} of {@code seed}, starting at
+     *         {@code mix(seed + index * GOLDEN_GAMMA)}, so distinct indices start at well-mixed,
+     *         unrelated states
+     */
+    public static SplitMix64 stream(long seed, long index) {
+        return new SplitMix64(mix64(seed + index * GOLDEN_GAMMA));
+    }
+
+    public long getState() {
+        return state;
+    }
+
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    /**
+     * Advances the generator whose state is {@code states[index]} and returns its next value in [0, 1).
+     * Produces the same sequence as an instance holding that state, so sources can be
+     * evaluated in batches over a {@code long[]} of states.
+     */
+    public static double nextDouble(long[] states, int index) {
+        long state = states[index] + GOLDEN_GAMMA;
+        states[index] = state;
+        return (mix64(state) >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * @return Well-mixed 64-bit hash of {@code value}
+     */
+    public static long mix(long value) {
+        return mix64(value);
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
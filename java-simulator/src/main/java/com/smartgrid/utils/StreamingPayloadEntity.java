@@ -0,0 +1,80 @@
+package com.smartgrid.utils;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.AbstractHttpEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Base for request entities that serialize directly into the connection's output stream,
+ * optionally gzip-compressed. Entities are repeatable: each write re-serializes from the
+ * retained source data.
+ */
+public abstract class StreamingPayloadEntity extends AbstractHttpEntity {
+    protected static final int BUFFER_SIZE = 8192;
+
+    private final boolean gzip;
+
+    protected StreamingPayloadEntity(ContentType contentType, boolean gzip) {
+        super(contentType, gzip ? "gzip" : null, true);
+        this.gzip = gzip;
+    }
+
+    /**
+     * Writes the payload and closes {@code out}; closing does not close the connection stream.
+     */
+    protected abstract void writePayload(OutputStream out) throws IOException;
+
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+        // Shield the connection stream from close() so only the compressor/writer is finished
+        OutputStream target = new FilterOutputStream(outStream) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+        if (gzip) {
+            target = new GZIPOutputStream(target, BUFFER_SIZE);
+        }
+        writePayload(target);
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        writeTo(buffer);
+        return new ByteArrayInputStream(buffer.toByteArray());
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release; source data is owned by the caller
+    }
+}
@@ -0,0 +1,278 @@
+package com.smartgrid.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.smartgrid.utils.TimeSeriesRecorder.*;
+
+/**
+ * Reads a run directory written by {@link TimeSeriesRecorder}. Segments are mapped read-only
+ * and indexed by block offset on open; scans read values straight from the mapping, touching
+ * only the column entries they need. Blocks committed after {@link #open(Path)} are not seen.
+ */
+public class TimeSeriesReader implements Closeable {
+
+    @FunctionalInterface
+    public interface LoadVisitor {
+        void visit(long epoch, long timestampEpochNanos, double load);
+    }
+
+    @FunctionalInterface
+    public interface SensorVisitor {
+        void visit(long epoch, long timestampEpochNanos, double load, double voltage, double frequency);
+    }
+
+    @FunctionalInterface
+    public interface ActionVisitor {
+        void visit(long epoch, long timestampEpochNanos, int fromNode, int toNode, String actionType, double amount);
+    }
+
+    private final String[] nodeIds;
+    private final Map<String, Integer> ordinalsById;
+    private final List<Segment> segments;
+
+    private TimeSeriesReader(String[] nodeIds, List<Segment> segments) {
+        this.nodeIds = nodeIds;
+        this.segments = segments;
+        this.ordinalsById = new HashMap<>();
+        for (int i = 0; i < nodeIds.length; i++) {
+            ordinalsById.put(nodeIds[i], i);
+        }
+    }
+
+    public static TimeSeriesReader open(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        if (files.isEmpty()) {
+            throw new IOException("No segments in " + directory);
+        }
+        // Zero-padded indexes sort lexicographically
+        files.sort(null);
+
+        String[] nodeIds = null;
+        List<Segment> segments = new ArrayList<>(files.size());
+        for (Path file : files) {
+            Segment segment = Segment.open(file);
+            if (nodeIds == null) {
+                nodeIds = segment.nodeIds;
+            } else if (!Arrays.equals(nodeIds, segment.nodeIds)) {
+                throw new IOException("Segment " + file.getFileName() + " records a different node set");
+            }
+            segments.add(segment);
+        }
+        return new TimeSeriesReader(nodeIds, segments);
+    }
+
+    public int getNodeCount() {
+        return nodeIds.length;
+    }
+
+    public String getNodeId(int ordinal) {
+        return nodeIds[ordinal];
+    }
+
+    /**
+     * @return Ordinal of the node, or -1 if it was not recorded
+     */
+    public int ordinalOf(String nodeId) {
+        Integer ordinal = ordinalsById.get(nodeId);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Visits one node's load for every recorded tick, oldest first.
+     */
+    public void scanNodeLoads(int node, LoadVisitor visitor) {
+        checkNode(node);
+        for (Segment segment : segments) {
+            MappedByteBuffer buffer = segment.buffer;
+            for (int i = 0; i < segment.blockCount; i++) {
+                int block = segment.blockOffsets[i];
+                if (buffer.getInt(block) == BLOCK_LOADS && node < buffer.getInt(block + 4)) {
+                    visitor.visit(buffer.getLong(block + 8), buffer.getLong(block + 16),
+                            buffer.getDouble(block + BLOCK_HEADER_SIZE + node * 8));
+                }
+            }
+        }
+    }
+
+    /**
+     * Visits every recorded sensor reading for one node, oldest first.
+     */
+    public void scanSensorReadings(int node, SensorVisitor visitor) {
+        checkNode(node);
+        for (Segment segment : segments) {
+            MappedByteBuffer buffer = segment.buffer;
+            for (int i = 0; i < segment.blockCount; i++) {
+                int block = segment.blockOffsets[i];
+                if (buffer.getInt(block) != BLOCK_SENSORS) {
+                    continue;
+                }
+                int count = buffer.getInt(block + 4);
+                int nodes = block + BLOCK_HEADER_SIZE;
+                int loads = (int) (nodes + align8(count * 4L));
+                int voltages = loads + count * 8;
+                int frequencies = voltages + count * 8;
+                // Readings are normally in ordinal order, so try the direct slot before scanning
+                boolean direct = node < count && buffer.getInt(nodes + node * 4) == node;
+                for (int r = direct ? node : 0, last = direct ? node + 1 : count; r < last; r++) {
+                    if (buffer.getInt(nodes + r * 4) == node) {
+                        visitor.visit(buffer.getLong(block + 8), buffer.getLong(block + 16),
+                                buffer.getDouble(loads + r * 8),
+                                buffer.getDouble(voltages + r * 8),
+                                buffer.getDouble(frequencies + r * 8));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Visits every recorded optimization action, oldest first. Node arguments are ordinals
+     * (-1 for nodes unknown to the recorder).
+     */
+    public void scanActions(ActionVisitor visitor) {
+        for (Segment segment : segments) {
+            MappedByteBuffer buffer = segment.buffer;
+            for (int i = 0; i < segment.blockCount; i++) {
+                int block = segment.blockOffsets[i];
+                if (buffer.getInt(block) != BLOCK_ACTIONS) {
+                    continue;
+                }
+                int count = buffer.getInt(block + 4);
+                long epoch = buffer.getLong(block + 8);
+                long timestamp = buffer.getLong(block + 16);
+                int intColumn = (int) align8(count * 4L);
+                int from = block + BLOCK_HEADER_SIZE;
+                int to = from + intColumn;
+                int type = to + intColumn;
+                int amounts = type + intColumn;
+                for (int r = 0; r < count; r++) {
+                    visitor.visit(epoch, timestamp,
+                            buffer.getInt(from + r * 4),
+                            buffer.getInt(to + r * 4),
+                            segment.actionType(buffer.getInt(type + r * 4)),
+                            buffer.getDouble(amounts + r * 8));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        // Mappings are released when the buffers are collected
+        segments.clear();
+    }
+
+    private void checkNode(int node) {
+        if (node < 0 || node >= nodeIds.length) {
+            throw new IndexOutOfBoundsException("Node ordinal out of range: " + node);
+        }
+    }
+
+    /**
+     * One mapped segment and the offsets of its committed blocks.
+     */
+    private static final class Segment {
+        private final MappedByteBuffer buffer;
+        private final String[] nodeIds;
+        private final int[] blockOffsets;
+        private final int blockCount;
+        private final List<String> dictionary;
+
+        private Segment(MappedByteBuffer buffer, String[] nodeIds, int[] blockOffsets, int blockCount,
+                        List<String> dictionary) {
+            this.buffer = buffer;
+            this.nodeIds = nodeIds;
+            this.blockOffsets = blockOffsets;
+            this.blockCount = blockCount;
+            this.dictionary = dictionary;
+        }
+
+        static Segment open(Path file) throws IOException {
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException("Not a segment file: " + file.getFileName());
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Bad magic in " + file.getFileName());
+            }
+            if (buffer.getShort(4) != VERSION) {
+                throw new IOException("Unsupported segment version " + buffer.getShort(4) + " in " + file.getFileName());
+            }
+
+            int nodeCount = buffer.getInt(OFFSET_NODE_COUNT);
+            String[] nodeIds = new String[nodeCount];
+            int offset = HEADER_SIZE;
+            for (int i = 0; i < nodeCount; i++) {
+                int length = buffer.getShort(offset) & 0xFFFF;
+                nodeIds[i] = readUtf8(buffer, offset + 2, length);
+                offset += 2 + length;
+            }
+
+            long dataStart = buffer.getLong(OFFSET_DATA_START);
+            long end = buffer.getLong(OFFSET_WRITE_POSITION);
+            if (dataStart < offset || end < dataStart || end > buffer.capacity()) {
+                throw new IOException("Corrupt header in " + file.getFileName());
+            }
+            int[] offsets = new int[Math.max(16, buffer.getInt(OFFSET_BLOCK_COUNT))];
+            int count = 0;
+            List<String> dictionary = new ArrayList<>();
+            int block = (int) dataStart;
+            while (block < end) {
+                int length = buffer.getInt(block + 24);
+                if (length < BLOCK_HEADER_SIZE || block + (long) length > end) {
+                    throw new IOException("Corrupt block at offset " + block + " in " + file.getFileName());
+                }
+                if (buffer.getInt(block) == BLOCK_DICTIONARY) {
+                    int code = buffer.getInt(block + 4);
+                    int size = buffer.getShort(block + BLOCK_HEADER_SIZE) & 0xFFFF;
+                    while (dictionary.size() <= code) {
+                        dictionary.add(null);
+                    }
+                    dictionary.set(code, readUtf8(buffer, block + BLOCK_HEADER_SIZE + 2, size));
+                } else {
+                    if (count == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, count * 2);
+                    }
+                    offsets[count++] = block;
+                }
+                block += length;
+            }
+            return new Segment(buffer, nodeIds, offsets, count, dictionary);
+        }
+
+        String actionType(int code) {
+            return code >= 0 && code < dictionary.size() ? dictionary.get(code) : null;
+        }
+
+        private static String readUtf8(MappedByteBuffer buffer, int offset, int length) {
+            byte[] bytes = new byte[length];
+            buffer.get(offset, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
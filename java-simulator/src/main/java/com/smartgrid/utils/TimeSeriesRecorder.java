@@ -0,0 +1,297 @@
+package com.smartgrid.utils;
+
+import com.smartgrid.models.GridState;
+import com.smartgrid.models.SensorFrame;
+import com.smartgrid.services.ActionBuffer;
+import com.smartgrid.services.ActionType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Appends per-tick node loads, sensor readings and optimization actions to memory-mapped,
+ * columnar segment files in a run directory. Read them back with {@link TimeSeriesReader}.
+ * <pre>
+ * segment: header (64 bytes), node directory, blocks..., unused tail
+ * header:  int magic "SGTS", short version, short reserved, int nodeCount, int segmentIndex,
+ *          long createdAtEpochNanos, int blockCount, int reserved,
+ *          long writePosition (end of the last committed block), long dataStart, 16 bytes reserved
+ * nodes:   nodeCount x (short length, UTF-8 node id), padded to 8 bytes
+ * block:   int type, int count, long epoch, long timestampEpochNanos, int length, int reserved,
+ *          then one column per field, each padded to 8 bytes
+ *   loads    (1): double load[count]                         (count = node count, index = ordinal)
+ *   sensors  (2): int node[count], double load[count], double voltage[count], double frequency[count]
+ *   actions  (3): int from[count], int to[count], int type[count], double amount[count]
+ *   dictionary (4): count = action type code, short length, UTF-8 action type
+ * </pre>
+ * Timestamps are UTC epoch nanoseconds as in {@link BinaryTelemetryCodec}; values are little-endian.
+ * A block becomes visible once {@code writePosition} is advanced past it, so a reader never sees a
+ * torn block even if the process dies mid-write. When the next block does not fit, the segment is
+ * forced to disk and a new one is started; with {@code maxSegments} set, the oldest segments are
+ * deleted. Segment files are sparse, so the unused tail costs no disk.
+ */
+public class TimeSeriesRecorder implements Closeable {
+    static final int MAGIC = 0x53475453; // "SGTS"
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int BLOCK_HEADER_SIZE = 32;
+    static final int BLOCK_LOADS = 1;
+    static final int BLOCK_SENSORS = 2;
+    static final int BLOCK_ACTIONS = 3;
+    static final int BLOCK_DICTIONARY = 4;
+    static final String SEGMENT_PREFIX = "segment-";
+    static final String SEGMENT_SUFFIX = ".sgts";
+
+    static final int OFFSET_NODE_COUNT = 8;
+    static final int OFFSET_SEGMENT_INDEX = 12;
+    static final int OFFSET_CREATED_AT = 16;
+    static final int OFFSET_BLOCK_COUNT = 24;
+    static final int OFFSET_WRITE_POSITION = 32;
+    static final int OFFSET_DATA_START = 40;
+
+    private final Path directory;
+    private final GridState gridState;
+    private final long segmentSize;
+    private final int maxSegments;
+    private final int[] actionTypeCodes; // per ActionType ordinal, -1 until written to the current segment
+    private int actionTypeCount;
+    private final Deque<Path> segments;
+    private MappedByteBuffer segment;
+    private int segmentIndex;
+    private int blockCount;
+    private int position;
+    private boolean closed;
+
+    /**
+     * @param directory Run directory; created if missing, must not already contain segments
+     * @param segmentSize Target segment file size in bytes; grown per segment if a block needs more
+     * @param maxSegments Segments to keep on disk, or 0 to keep all
+     */
+    public TimeSeriesRecorder(Path directory, GridState gridState, long segmentSize, int maxSegments) throws IOException {
+        if (segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment size must be below 2 GB: " + segmentSize);
+        }
+        Files.createDirectories(directory);
+        try (var existing = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            if (existing.iterator().hasNext()) {
+                throw new IllegalStateException("Recording directory already contains segments: " + directory);
+            }
+        }
+        this.directory = directory;
+        this.gridState = gridState;
+        this.segmentSize = segmentSize;
+        this.maxSegments = Math.max(0, maxSegments);
+        this.actionTypeCodes = new int[ActionType.values().length];
+        this.segments = new ArrayDeque<>();
+        this.segmentIndex = 0;
+        openSegment(0);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Appends the snapshot's loads as one column, bulk-copied from the snapshot array.
+     */
+    public synchronized void recordLoads(GridState.Snapshot snapshot, Instant timestamp) throws IOException {
+        int count = snapshot.size();
+        int start = beginBlock(BLOCK_LOADS, count, snapshot.getEpoch(),
+                BinaryTelemetryCodec.toEpochNanos(timestamp), align8(count * 8L));
+        snapshot.copyLoadsTo(segment.slice(start + BLOCK_HEADER_SIZE, count * 8)
+                .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer());
+        commitBlock();
+    }
+
+    /**
+     * Appends the frame's readings, one per node in ordinal order.
+     */
+    public synchronized void recordSensors(SensorFrame frame) throws IOException {
+        int count = frame.size();
+        long intColumn = align8(count * 4L);
+        long doubleColumn = count * 8L;
+        int start = beginBlock(BLOCK_SENSORS, count, frame.getEpoch(), frame.getTimestampNanos(),
+                intColumn + 3 * doubleColumn);
+        int nodes = start + BLOCK_HEADER_SIZE;
+        int loads = (int) (nodes + intColumn);
+        int voltages = (int) (loads + doubleColumn);
+        int frequencies = (int) (voltages + doubleColumn);
+        for (int i = 0; i < count; i++) {
+            segment.putInt(nodes + i * 4, i);
+            segment.putDouble(loads + i * 8, frame.getLoad(i));
+            segment.putDouble(voltages + i * 8, frame.getVoltage(i));
+            segment.putDouble(frequencies + i * 8, frame.getFrequency(i));
+        }
+        commitBlock();
+    }
+
+    /**
+     * @param timestampNanos UTC epoch nanoseconds of the optimization pass
+     */
+    public synchronized void recordActions(long epoch, long timestampNanos, ActionBuffer actions) throws IOException {
+        int count = actions.size();
+        long intColumn = align8(count * 4L);
+        // Reserve room for the actions and any dictionary entries they introduce, so both land in one segment
+        // (counting every type, since a roll resets the dictionary)
+        long needed = BLOCK_HEADER_SIZE + 3 * intColumn + count * 8L;
+        for (ActionType type : ActionType.values()) {
+            needed += BLOCK_HEADER_SIZE + dictionaryPayloadSize(type);
+        }
+        ensureCapacity(needed);
+        for (int i = 0; i < count; i++) {
+            actionTypeCode(actions.getType(i));
+        }
+
+        int start = beginBlock(BLOCK_ACTIONS, count, epoch, timestampNanos, 3 * intColumn + count * 8L);
+        int from = start + BLOCK_HEADER_SIZE;
+        int to = (int) (from + intColumn);
+        int type = (int) (to + intColumn);
+        int amounts = (int) (type + intColumn);
+        for (int i = 0; i < count; i++) {
+            segment.putInt(from + i * 4, actions.getFromNode(i));
+            segment.putInt(to + i * 4, actions.getToNode(i));
+            segment.putInt(type + i * 4, actionTypeCodes[actions.getType(i).ordinal()]);
+            segment.putDouble(amounts + i * 8, actions.getAmount(i));
+        }
+        commitBlock();
+    }
+
+    /**
+     * Flushes the current segment to disk.
+     */
+    public synchronized void flush() {
+        if (!closed) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            segment.force();
+            closed = true;
+        }
+    }
+
+    /**
+     * @return Dictionary code of the type in the current segment, writing its entry on first use
+     */
+    private int actionTypeCode(ActionType actionType) throws IOException {
+        int code = actionTypeCodes[actionType.ordinal()];
+        if (code >= 0) {
+            return code;
+        }
+        int next = actionTypeCount;
+        byte[] bytes = actionType.name().getBytes(StandardCharsets.UTF_8);
+        int start = beginBlock(BLOCK_DICTIONARY, next, 0L, 0L, dictionaryPayloadSize(actionType));
+        segment.putShort(start + BLOCK_HEADER_SIZE, (short) bytes.length);
+        segment.put(start + BLOCK_HEADER_SIZE + 2, bytes);
+        commitBlock();
+        actionTypeCodes[actionType.ordinal()] = next;
+        actionTypeCount++;
+        return next;
+    }
+
+    private static long dictionaryPayloadSize(ActionType actionType) {
+        return align8(2L + actionType.name().getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    /**
+     * Writes a block header at the current position, rolling to a new segment if the block does not fit.
+     * @return Offset of the block within the current segment
+     */
+    private int beginBlock(int type, int count, long epoch, long timestampEpochNanos, long payloadSize) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Recorder is closed");
+        }
+        long length = BLOCK_HEADER_SIZE + payloadSize;
+        ensureCapacity(length);
+        int start = position;
+        segment.putInt(start, type);
+        segment.putInt(start + 4, count);
+        segment.putLong(start + 8, epoch);
+        segment.putLong(start + 16, timestampEpochNanos);
+        segment.putInt(start + 24, (int) length);
+        segment.putInt(start + 28, 0);
+        position = (int) (start + length);
+        return start;
+    }
+
+    private void commitBlock() {
+        blockCount++;
+        segment.putInt(OFFSET_BLOCK_COUNT, blockCount);
+        segment.putLong(OFFSET_WRITE_POSITION, position);
+    }
+
+    private void ensureCapacity(long length) throws IOException {
+        if (position + length > segment.capacity()) {
+            segment.force();
+            openSegment(length);
+        }
+    }
+
+    private void openSegment(long minimumPayload) throws IOException {
+        int nodeCount = gridState.size();
+        byte[][] ids = new byte[nodeCount][];
+        long directorySize = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            ids[i] = gridState.getNodeId(i).getBytes(StandardCharsets.UTF_8);
+            directorySize += 2 + ids[i].length;
+        }
+        long dataStart = HEADER_SIZE + align8(directorySize);
+        long size = Math.max(segmentSize, dataStart + minimumPayload);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Block of " + minimumPayload + " bytes does not fit in a segment");
+        }
+
+        Path file = directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, segmentIndex, SEGMENT_SUFFIX));
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, MAGIC);
+        buffer.putShort(4, VERSION);
+        buffer.putInt(OFFSET_NODE_COUNT, nodeCount);
+        buffer.putInt(OFFSET_SEGMENT_INDEX, segmentIndex);
+        buffer.putLong(OFFSET_CREATED_AT, System.currentTimeMillis() * 1_000_000L);
+        buffer.putLong(OFFSET_DATA_START, dataStart);
+        int offset = HEADER_SIZE;
+        for (byte[] id : ids) {
+            buffer.putShort(offset, (short) id.length);
+            buffer.put(offset + 2, id);
+            offset += 2 + id.length;
+        }
+        buffer.putInt(OFFSET_BLOCK_COUNT, 0);
+        buffer.putLong(OFFSET_WRITE_POSITION, dataStart);
+
+        segment = buffer;
+        position = (int) dataStart;
+        blockCount = 0;
+        segmentIndex++;
+        // Dictionary codes are per segment so each segment decodes on its own
+        Arrays.fill(actionTypeCodes, -1);
+        actionTypeCount = 0;
+
+        segments.addLast(file);
+        while (maxSegments > 0 && segments.size() > maxSegments) {
+            Files.deleteIfExists(segments.removeFirst());
+        }
+    }
+
+    static long align8(long value) {
+        return (value + 7) & ~7L;
+    }
+}
@@ -0,0 +1,61 @@
+package com.smartgrid.batch;
+
+import com.smartgrid.utils.ConfigLoader;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class SweepDefinitionTest {
+    @Test
+    void expandsEveryCombinationWithLastKeyFastest() {
+        Map<String, List<String>> sweeps = new LinkedHashMap<>();
+        sweeps.put("grid.overloadThreshold", List.of("80", "90"));
+        sweeps.put("simulation.seed", List.of("1", "2", "3"));
+        SweepDefinition sweep = new SweepDefinition(new Properties(), Map.of(), sweeps, 1, 1, Path.of("summary.csv"));
+
+        List<Map<String, String>> runs = sweep.expand();
+
+        assertEquals(6, runs.size());
+        assertEquals(Map.of("grid.overloadThreshold", "80", "simulation.seed", "1"), runs.get(0));
+        assertEquals(Map.of("grid.overloadThreshold", "80", "simulation.seed", "3"), runs.get(2));
+        assertEquals(Map.of("grid.overloadThreshold", "90", "simulation.seed", "1"), runs.get(3));
+        assertEquals(List.of("grid.overloadThreshold", "simulation.seed"), sweep.getSweepKeys());
+    }
+
+    @Test
+    void noSweepsExpandToOneRun() {
+        SweepDefinition sweep = new SweepDefinition(new Properties(), Map.of(), Map.of(), 1, 1, Path.of("s.csv"));
+
+        assertEquals(List.of(Map.of()), sweep.expand());
+    }
+
+    @Test
+    void runsLayerOverridesAndGetTheirOwnFiles() {
+        Properties base = new Properties();
+        base.setProperty("grid.overloadThreshold", "70");
+        base.setProperty("metrics.httpEnabled", "true");
+        base.setProperty("recorder.enabled", "true");
+        base.setProperty("recorder.directory", "recordings");
+        base.setProperty("checkpoint.enabled", "true");
+        base.setProperty("checkpoint.file", "out/sim.checkpoint");
+        SweepDefinition sweep = new SweepDefinition(base, Map.of("grid.overloadThreshold", "75"), Map.of(), 1, 1,
+                Path.of("summary.csv"));
+
+        ConfigLoader first = sweep.configFor(0, Map.of());
+        ConfigLoader second = sweep.configFor(1, Map.of("grid.overloadThreshold", "95"));
+
+        assertEquals(75.0, first.getOverloadThreshold());
+        assertEquals(95.0, second.getOverloadThreshold());
+        assertFalse(first.isMetricsHttpEnabled());
+        assertEquals(Path.of("recordings", "batch-run-1").toString(), second.getRecorderDirectory());
+        assertEquals(Path.of("out", "sim-batch-run-0.checkpoint").toString(), first.getCheckpointFile());
+        assertEquals(Path.of("out", "sim-batch-run-1.checkpoint").toString(), second.getCheckpointFile());
+    }
+}
@@ -0,0 +1,57 @@
+package com.smartgrid.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistogramTest {
+    @Test
+    void smallValuesHaveTheirOwnBuckets() {
+        for (long value = 0; value < 256; value++) {
+            assertEquals(value, Histogram.indexOf(value));
+            assertEquals(value, Histogram.highestEquivalentValue((int) value));
+        }
+    }
+
+    @Test
+    void bucketsCoverEveryValueWithinOnePartIn128() {
+        for (int shift = 8; shift < 63; shift++) {
+            for (long offset : new long[] {0, 1, 127, (1L << shift) / 3, (1L << shift) - 1}) {
+                long value = (1L << shift) + offset;
+                int index = Histogram.indexOf(value);
+                long highest = Histogram.highestEquivalentValue(index);
+                long lowest = Histogram.highestEquivalentValue(index - 1) + 1;
+                assertTrue(lowest <= value && value <= highest, value + " outside [" + lowest + ", " + highest + "]");
+                assertTrue(highest - lowest < (lowest >>> 7) + 1, "bucket of " + value + " too wide");
+            }
+        }
+    }
+
+    @Test
+    void indexIsMonotonicUpToLongMax() {
+        int previous = Histogram.indexOf(255);
+        for (long value = 256; value > 0 && value < Long.MAX_VALUE / 2; value = value * 2 + 1) {
+            int index = Histogram.indexOf(value);
+            assertTrue(index >= previous);
+            previous = index;
+        }
+        assertEquals(Long.MAX_VALUE, Histogram.highestEquivalentValue(Histogram.indexOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    void percentilesReportHighestEquivalentValueCappedAtMax() {
+        Histogram histogram = new Histogram("test", "test", 1.0);
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+        histogram.record(-5); // recorded as zero
+
+        assertEquals(1001, histogram.getCount());
+        assertEquals(1000, histogram.getMax());
+        long median = histogram.getValueAtPercentile(50);
+        assertTrue(median >= 500 && median <= 500 + 500 / 128 + 1, "median " + median);
+        assertEquals(1000, histogram.getValueAtPercentile(100));
+        assertEquals(0, histogram.getValueAtPercentile(0));
+    }
+}
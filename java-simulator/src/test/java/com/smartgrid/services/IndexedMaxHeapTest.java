@@ -0,0 +1,87 @@
+package com.smartgrid.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexedMaxHeapTest {
+    @Test
+    void pollsInDescendingKeyOrder() {
+        IndexedMaxHeap heap = new IndexedMaxHeap(6);
+        double[] keys = {3.0, 9.5, -1.0, 9.0, 0.0, 4.25};
+        for (int id = 0; id < keys.length; id++) {
+            heap.insert(id, keys[id]);
+        }
+
+        int[] expected = {1, 3, 5, 0, 4, 2};
+        for (int id : expected) {
+            assertEquals(keys[id], heap.key(heap.peek()));
+            assertEquals(id, heap.poll());
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    void updatesAndRemovesKeepHeapOrder() {
+        IndexedMaxHeap heap = new IndexedMaxHeap(5);
+        for (int id = 0; id < 5; id++) {
+            heap.insert(id, id);
+        }
+        heap.update(0, 10.0); // up
+        heap.update(4, -5.0); // down
+        heap.insert(2, 7.0); // present: an update
+        heap.remove(3);
+        heap.remove(3); // absent: no-op
+
+        assertEquals(4, heap.size());
+        assertFalse(heap.contains(3));
+        assertEquals(0, heap.poll());
+        assertEquals(2, heap.poll());
+        assertEquals(1, heap.poll());
+        assertEquals(4, heap.poll());
+    }
+
+    @Test
+    void clearLeavesHeapReusable() {
+        IndexedMaxHeap heap = new IndexedMaxHeap(4);
+        heap.insert(1, 1.0);
+        heap.insert(3, 3.0);
+        heap.clear();
+
+        assertTrue(heap.isEmpty());
+        assertFalse(heap.contains(3));
+        heap.insert(3, 2.0);
+        heap.insert(0, 5.0);
+        assertEquals(0, heap.poll());
+        assertEquals(3, heap.poll());
+    }
+
+    @Test
+    void matchesPriorityQueueUnderRandomOperations() {
+        int capacity = 64;
+        IndexedMaxHeap heap = new IndexedMaxHeap(capacity);
+        double[] keys = new double[capacity];
+        PriorityQueue<Integer> reference = new PriorityQueue<>(
+                (a, b) -> a.equals(b) ? 0 : keys[a] != keys[b] ? Double.compare(keys[b], keys[a]) : a - b);
+        Random random = new Random(7);
+        for (int step = 0; step < 10_000; step++) {
+            int id = random.nextInt(capacity);
+            if (random.nextInt(4) == 0 && !reference.isEmpty()) {
+                int top = heap.poll();
+                assertEquals(keys[reference.peek()], keys[top]);
+                reference.remove(top);
+            } else {
+                reference.remove(id);
+                keys[id] = random.nextInt(1000);
+                heap.insert(id, keys[id]);
+                reference.add(id);
+            }
+            assertEquals(reference.size(), heap.size());
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.smartgrid.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SimulationCheckpointTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsEverySectionCombination() throws IOException {
+        for (int combination = 0; combination < 8; combination++) {
+            boolean scenario = (combination & 1) != 0;
+            boolean incremental = (combination & 2) != 0;
+            boolean forecast = (combination & 4) != 0;
+            // Odd counts leave int and byte columns short of an 8-byte boundary
+            for (int sources : new int[] {0, 1, 3, 7}) {
+                SimulationCheckpoint written = checkpoint(5, sources, scenario, incremental, forecast);
+                Path file = directory.resolve("checkpoint-" + combination + "-" + sources);
+                written.write(file);
+
+                assertSameState(written, SimulationCheckpoint.read(file));
+            }
+        }
+    }
+
+    @Test
+    void writeReplacesPreviousCheckpoint() throws IOException {
+        Path file = directory.resolve("checkpoint");
+        checkpoint(3, 7, true, true, true).write(file);
+        SimulationCheckpoint smaller = checkpoint(1, 1, false, false, false);
+        smaller.write(file);
+
+        assertSameState(smaller, SimulationCheckpoint.read(file));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count(), "temporary file left behind");
+        }
+    }
+
+    @Test
+    void truncatedFileIsRejected() throws IOException {
+        Path file = directory.resolve("checkpoint");
+        checkpoint(3, 5, true, true, true).write(file);
+        byte[] complete = Files.readAllBytes(file);
+
+        Path truncated = directory.resolve("truncated");
+        for (int length = 0; length < complete.length; length++) {
+            Files.write(truncated, Arrays.copyOf(complete, length));
+            assertThrows(IOException.class, () -> SimulationCheckpoint.read(truncated), "length " + length);
+        }
+    }
+
+    @Test
+    void otherFilesAreRejected() throws IOException {
+        Path file = directory.resolve("checkpoint");
+        checkpoint(2, 3, false, false, false).write(file);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[0] ^= 0x7f;
+        Files.write(file, bytes);
+
+        assertThrows(IOException.class, () -> SimulationCheckpoint.read(file));
+    }
+
+    private static SimulationCheckpoint checkpoint(int nodes, int sources, boolean scenario, boolean incremental,
+                                                   boolean forecast) {
+        Map<String, Long> nextRuns = new LinkedHashMap<>();
+        nextRuns.put("tick", 1_000L);
+        nextRuns.put("optimize", 3_000L);
+        nextRuns.put("report-with-a-longer-name", 7_000L);
+        int[] nodeOfSource = new int[sources];
+        for (int i = 0; i < sources; i++) {
+            nodeOfSource[i] = i == 0 ? -1 : i % nodes;
+        }
+        SimulationCheckpoint.Sources sourceState = new SimulationCheckpoint.Sources(
+                values(sources, 10.0), values(sources, 0.1), longs(sources, 99L),
+                scenario ? values(3, -0.5) : null, scenario ? 1234L : 0L);
+        SimulationCheckpoint.Aggregation aggregation = incremental
+                ? new SimulationCheckpoint.Aggregation(4L, values(sources, 2.0), values(nodes, 20.0),
+                        new int[] {nodes - 1}, new int[] {0, nodes - 1, 1})
+                : null;
+        SimulationCheckpoint.Forecast forecastState = null;
+        SimulationCheckpoint.Exposure exposure = null;
+        if (forecast) {
+            forecastState = new SimulationCheckpoint.Forecast(17L, values(nodes, 30.0), values(nodes, 0.25),
+                    values(nodes * 4, 31.0));
+            byte[] flags = new byte[nodes];
+            for (int i = 0; i < nodes; i++) {
+                flags[i] = (byte) (i % 8);
+            }
+            exposure = new SimulationCheckpoint.Exposure(12.5, 3.0, 1.5, 9L, 2L, 60_000L, 2, flags);
+        }
+        return new SimulationCheckpoint(42L, 20L, 60_000L, 7L, 8L, nextRuns, values(nodes, 100.0),
+                values(nodes, 50.0), nodeOfSource, sourceState, aggregation, forecastState, exposure);
+    }
+
+    private static void assertSameState(SimulationCheckpoint expected, SimulationCheckpoint actual) {
+        assertEquals(expected.getSeed(), actual.getSeed());
+        assertEquals(expected.getEpoch(), actual.getEpoch());
+        assertEquals(expected.getSimulatedMillis(), actual.getSimulatedMillis());
+        assertEquals(expected.getReportRandomState(), actual.getReportRandomState());
+        assertEquals(expected.getChangeSelectorState(), actual.getChangeSelectorState());
+        assertEquals(expected.getNextRuns(), actual.getNextRuns());
+        assertArrayEquals(expected.getCapacities(), actual.getCapacities());
+        assertArrayEquals(expected.getLoads(), actual.getLoads());
+        assertArrayEquals(expected.getNodeOfSource(), actual.getNodeOfSource());
+
+        SimulationCheckpoint.Sources sources = actual.getSources();
+        assertArrayEquals(expected.getSources().getBaseLoads(), sources.getBaseLoads());
+        assertArrayEquals(expected.getSources().getVariability(), sources.getVariability());
+        assertArrayEquals(expected.getSources().getRandomStates(), sources.getRandomStates());
+        assertArrayEquals(expected.getSources().getRegionShocks(), sources.getRegionShocks());
+        assertEquals(expected.getSources().getShockRandomState(), sources.getShockRandomState());
+
+        if (expected.getAggregation() == null) {
+            assertNull(actual.getAggregation());
+        } else {
+            SimulationCheckpoint.Aggregation aggregation = actual.getAggregation();
+            assertEquals(expected.getAggregation().getTicksSinceFullRecompute(),
+                    aggregation.getTicksSinceFullRecompute());
+            assertArrayEquals(expected.getAggregation().getSourceLoads(), aggregation.getSourceLoads());
+            assertArrayEquals(expected.getAggregation().getNodeTotals(), aggregation.getNodeTotals());
+            assertArrayEquals(expected.getAggregation().getDirtyNodes(), aggregation.getDirtyNodes());
+            assertArrayEquals(expected.getAggregation().getOverloadedNodes(), aggregation.getOverloadedNodes());
+        }
+
+        if (expected.getForecast() == null) {
+            assertNull(actual.getForecast());
+            assertNull(actual.getExposure());
+        } else {
+            SimulationCheckpoint.Forecast forecast = actual.getForecast();
+            assertEquals(expected.getForecast().getObservations(), forecast.getObservations());
+            assertArrayEquals(expected.getForecast().getLevels(), forecast.getLevels());
+            assertArrayEquals(expected.getForecast().getTrends(), forecast.getTrends());
+            assertArrayEquals(expected.getForecast().getPendingForecasts(), forecast.getPendingForecasts());
+            SimulationCheckpoint.Exposure exposure = actual.getExposure();
+            assertEquals(expected.getExposure().getOverloadSeconds(), exposure.getOverloadSeconds());
+            assertEquals(expected.getExposure().getUnflaggedSeconds(), exposure.getUnflaggedSeconds());
+            assertEquals(expected.getExposure().getUnforecastSeconds(), exposure.getUnforecastSeconds());
+            assertEquals(expected.getExposure().getAlerts(), exposure.getAlerts());
+            assertEquals(expected.getExposure().getFalseAlerts(), exposure.getFalseAlerts());
+            assertEquals(expected.getExposure().getObservedAtMillis(), exposure.getObservedAtMillis());
+            assertEquals(expected.getExposure().getOverloadedCount(), exposure.getOverloadedCount());
+            assertArrayEquals(expected.getExposure().getNodeFlags(), exposure.getNodeFlags());
+        }
+    }
+
+    private static double[] values(int count, double first) {
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = first + i * 0.5;
+        }
+        return values;
+    }
+
+    private static long[] longs(int count, long first) {
+        long[] values = new long[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = first * 31 + i;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,331 @@
+package com.smartgrid.utils;
+
+import com.smartgrid.models.GridState;
+import com.smartgrid.models.SensorFrame;
+import com.smartgrid.services.ActionBuffer;
+import com.smartgrid.services.ActionType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncApiPublisherTest {
+
+    @Test
+    void splitsPublicationsIntoBatches() {
+        RecordingClient client = new RecordingClient();
+        client.open();
+        AsyncApiPublisher publisher = new AsyncApiPublisher(client, 100, 10, 5,
+                AsyncApiPublisher.OverflowPolicy.DROP_NEWEST, 0);
+        SensorFrame frame = new SensorFrame(25);
+        frame.reset(1, 0, 25);
+        publisher.publishSensorData(frame);
+        publisher.close();
+
+        assertEquals(List.of("sensors 0-10", "sensors 10-20", "sensors 20-25"), client.sends());
+        assertEquals(25, publisher.getSentRecords());
+        assertEquals(3, publisher.getSentBatches());
+        assertEquals(5, publisher.getLastBatchSize());
+        // The publisher's reference was released exactly once
+        assertThrows(IllegalStateException.class, frame::release);
+    }
+
+    @Test
+    void dropNewestDiscardsPublicationsThatDoNotFit() throws InterruptedException {
+        RecordingClient client = new RecordingClient();
+        AsyncApiPublisher publisher = new AsyncApiPublisher(client, 10, 100, 5,
+                AsyncApiPublisher.OverflowPolicy.DROP_NEWEST, 0);
+        publishInFlight(publisher, client);
+        publisher.publishOptimizationActions(actions(2, 4), 0);
+        publisher.publishOptimizationActions(actions(3, 4), 0);
+        publisher.publishOptimizationActions(actions(4, 4), 0);
+        assertEquals(8, publisher.getQueueDepth());
+        client.open();
+        publisher.close();
+
+        assertEquals(List.of("actions 1", "actions 2+3"), client.sends());
+        assertEquals(4, publisher.getDroppedRecords());
+        assertEquals(12, publisher.getSentRecords());
+    }
+
+    @Test
+    void dropOldestEvictsBufferedPublications() throws InterruptedException {
+        RecordingClient client = new RecordingClient();
+        AsyncApiPublisher publisher = new AsyncApiPublisher(client, 10, 100, 5,
+                AsyncApiPublisher.OverflowPolicy.DROP_OLDEST, 0);
+        publishInFlight(publisher, client);
+        publisher.publishOptimizationActions(actions(2, 4), 0);
+        publisher.publishOptimizationActions(actions(3, 4), 0);
+        publisher.publishOptimizationActions(actions(4, 4), 0);
+        client.open();
+        publisher.close();
+
+        assertEquals(List.of("actions 1", "actions 3+4"), client.sends());
+        assertEquals(4, publisher.getDroppedRecords());
+    }
+
+    @Test
+    void blockDropsAfterTimeout() throws InterruptedException {
+        RecordingClient client = new RecordingClient();
+        AsyncApiPublisher publisher = new AsyncApiPublisher(client, 4, 100, 5,
+                AsyncApiPublisher.OverflowPolicy.BLOCK, 50);
+        publishInFlight(publisher, client);
+        publisher.publishOptimizationActions(actions(2, 4), 0);
+        long start = System.nanoTime();
+        publisher.publishOptimizationActions(actions(3, 4), 0);
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        client.open();
+        publisher.close();
+
+        assertTrue(waitedMillis >= 45, "waited " + waitedMillis + " ms");
+        assertEquals(List.of("actions 1", "actions 2"), client.sends());
+        assertEquals(4, publisher.getDroppedRecords());
+    }
+
+    @Test
+    void blockWaitsForRoom() throws InterruptedException {
+        RecordingClient client = new RecordingClient();
+        AsyncApiPublisher publisher = new AsyncApiPublisher(client, 4, 100, 5,
+                AsyncApiPublisher.OverflowPolicy.BLOCK, 10_000);
+        publishInFlight(publisher, client);
+        publisher.publishOptimizationActions(actions(2, 4), 0);
+        Thread opener = new Thread(() -> {
+            sleep(50);
+            client.open();
+        });
+        opener.start();
+        publisher.publishOptimizationActions(actions(3, 4), 0);
+        opener.join();
+        publisher.close();
+
+        // Publication 3 may or may not arrive within publication 2's linger
+        assertEquals(List.of("actions 1", "actions 2", "actions 3"), client.publications());
+        assertEquals(0, publisher.getDroppedRecords());
+    }
+
+    @Test
+    void coalescesSmallPublications() {
+        RecordingClient client = new RecordingClient();
+        client.open();
+        AsyncApiPublisher publisher = new AsyncApiPublisher(client, 100, 10, 10_000,
+                AsyncApiPublisher.OverflowPolicy.DROP_NEWEST, 0);
+        publisher.publishOptimizationActions(actions(1, 3), 0);
+        publisher.publishOptimizationActions(actions(2, 3), 0);
+        publisher.publishOptimizationActions(actions(3, 3), 0);
+        // Closing sends the partial batch without waiting out the linger
+        publisher.close();
+
+        assertEquals(List.of("actions 1+2+3"), client.sends());
+        assertEquals(1, publisher.getSentBatches());
+        assertEquals(9, publisher.getLastBatchSize());
+    }
+
+    @Test
+    void sendsFullBatchWithoutLingering() throws InterruptedException {
+        RecordingClient client = new RecordingClient();
+        client.open();
+        AsyncApiPublisher publisher = new AsyncApiPublisher(client, 100, 6, 10_000,
+                AsyncApiPublisher.OverflowPolicy.DROP_NEWEST, 0);
+        publisher.publishOptimizationActions(actions(1, 4), 0);
+        publisher.publishOptimizationActions(actions(2, 4), 0);
+        assertTrue(client.firstSend.await(5, TimeUnit.SECONDS), "full batch was held back");
+        publisher.close();
+
+        assertEquals(List.of("actions 1+2", "actions 2"), client.sends());
+        assertEquals(8, publisher.getSentRecords());
+        assertEquals(2, publisher.getLastBatchSize());
+    }
+
+    @Test
+    void sendsPartialBatchAfterLinger() throws InterruptedException {
+        RecordingClient client = new RecordingClient();
+        client.open();
+        AsyncApiPublisher publisher = new AsyncApiPublisher(client, 100, 10, 100,
+                AsyncApiPublisher.OverflowPolicy.DROP_NEWEST, 0);
+        long start = System.nanoTime();
+        publisher.publishOptimizationActions(actions(1, 2), 0);
+        assertTrue(client.firstSend.await(5, TimeUnit.SECONDS), "partial batch was never sent");
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        publisher.close();
+
+        assertTrue(waitedMillis >= 90, "sent after " + waitedMillis + " ms");
+        assertEquals(List.of("actions 1"), client.sends());
+    }
+
+    @Test
+    void neverMixesSensorsAndActions() {
+        RecordingClient client = new RecordingClient();
+        client.open();
+        AsyncApiPublisher publisher = new AsyncApiPublisher(client, 100, 50, 10_000,
+                AsyncApiPublisher.OverflowPolicy.DROP_NEWEST, 0);
+        publisher.publishOptimizationActions(actions(1, 2), 0);
+        publisher.publishSensorData(frame(3));
+        publisher.publishSensorData(frame(2));
+        publisher.publishOptimizationActions(actions(2, 2), 0);
+        publisher.close();
+
+        assertEquals(List.of("actions 1", "sensors 0-3+0-2", "actions 2"), client.sends());
+    }
+
+    @Test
+    void releasesUnsentFramesWhenCloseTimesOut() throws InterruptedException {
+        RecordingClient client = new RecordingClient();
+        AsyncApiPublisher publisher = new AsyncApiPublisher(client, 100, 10, 0,
+                AsyncApiPublisher.OverflowPolicy.DROP_NEWEST, 0);
+        SensorFrame inFlight = frame(4);
+        publisher.publishSensorData(inFlight);
+        assertTrue(client.firstSend.await(5, TimeUnit.SECONDS), "sender never picked up the first frame");
+        SensorFrame queued = frame(3);
+        publisher.publishSensorData(queued);
+        // The client never answers, so close gives up and interrupts the sender
+        publisher.close(50);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (publisher.getDroppedRecords() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(3, publisher.getDroppedRecords());
+        assertEquals(0, publisher.getQueueDepth());
+        assertThrows(IllegalStateException.class, inFlight::release);
+        assertThrows(IllegalStateException.class, queued::release);
+    }
+
+    @Test
+    void dropsPublicationsLargerThanTheBuffer() {
+        RecordingClient client = new RecordingClient();
+        client.open();
+        AsyncApiPublisher publisher = new AsyncApiPublisher(client, 4, 100, 5,
+                AsyncApiPublisher.OverflowPolicy.BLOCK, 10_000);
+        publisher.publishOptimizationActions(actions(1, 5), 0);
+        publisher.close();
+
+        assertEquals(List.of(), client.sends());
+        assertEquals(5, publisher.getDroppedRecords());
+    }
+
+    @Test
+    void countsFailedBatches() {
+        RecordingClient client = new RecordingClient();
+        client.open();
+        client.accept = false;
+        AsyncApiPublisher publisher = new AsyncApiPublisher(client, 100, 2, 5,
+                AsyncApiPublisher.OverflowPolicy.DROP_NEWEST, 0);
+        publisher.publishOptimizationActions(actions(1, 3), 0);
+        publisher.close();
+
+        assertEquals(2, publisher.getSentBatches());
+        assertEquals(2, publisher.getFailedBatches());
+        assertEquals(0, publisher.getSentRecords());
+    }
+
+    /**
+     * Publishes publication 1 (four actions) and waits until the sender is stuck sending it,
+     * so later publications stay buffered until the client is opened.
+     */
+    private static void publishInFlight(AsyncApiPublisher publisher, RecordingClient client)
+            throws InterruptedException {
+        publisher.publishOptimizationActions(actions(1, 4), 0);
+        assertTrue(client.firstSend.await(5, TimeUnit.SECONDS), "sender never picked up the first publication");
+    }
+
+    private static SensorFrame frame(int size) {
+        SensorFrame frame = new SensorFrame(size);
+        frame.reset(1, 0, size);
+        return frame;
+    }
+
+    /**
+     * @return {@code count} actions whose amounts identify the publication
+     */
+    private static ActionBuffer actions(int publication, int count) {
+        ActionBuffer actions = new ActionBuffer();
+        for (int i = 0; i < count; i++) {
+            actions.add(0, 1, publication, ActionType.LOAD_TRANSFER);
+        }
+        return actions;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stub endpoint: records each request as its segments joined by '+' (node ranges for
+     * sensors, publication numbers for actions) and holds every send until {@link #open()} is called.
+     */
+    private static final class RecordingClient extends ApiClient {
+        private final List<String> sends = new ArrayList<>();
+        private final CountDownLatch gate = new CountDownLatch(1);
+        private final CountDownLatch firstSend = new CountDownLatch(1);
+        private volatile boolean accept = true;
+
+        RecordingClient() {
+            super("http://127.0.0.1:1", new GridState(1));
+        }
+
+        void open() {
+            gate.countDown();
+        }
+
+        synchronized List<String> sends() {
+            return new ArrayList<>(sends);
+        }
+
+        /**
+         * @return Action publications in the order sent, one per segment, however they were batched
+         */
+        synchronized List<String> publications() {
+            List<String> publications = new ArrayList<>();
+            for (String send : sends) {
+                for (String segment : send.substring("actions ".length()).split("\\+")) {
+                    publications.add("actions " + segment);
+                }
+            }
+            return publications;
+        }
+
+        @Override
+        public boolean sendSensorData(SensorFrame[] frames, int[] from, int[] to, int count) {
+            StringJoiner segments = new StringJoiner("+", "sensors ", "");
+            for (int k = 0; k < count; k++) {
+                segments.add(from[k] + "-" + to[k]);
+            }
+            return record(segments.toString());
+        }
+
+        @Override
+        public boolean sendOptimizationActions(ActionBuffer[] actions, int[] from, int[] to, long[] timestampsNanos,
+                                               int count) {
+            StringJoiner segments = new StringJoiner("+", "actions ", "");
+            for (int k = 0; k < count; k++) {
+                segments.add(String.valueOf((int) actions[k].getAmount(from[k])));
+            }
+            return record(segments.toString());
+        }
+
+        private boolean record(String send) {
+            synchronized (this) {
+                sends.add(send);
+            }
+            firstSend.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            return accept;
+        }
+    }
+}
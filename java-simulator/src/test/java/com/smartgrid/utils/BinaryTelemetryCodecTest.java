@@ -0,0 +1,246 @@
+package com.smartgrid.utils;
+
+import com.smartgrid.models.GridState;
+import com.smartgrid.models.Sensor;
+import com.smartgrid.models.SensorFrame;
+import com.smartgrid.services.ActionBuffer;
+import com.smartgrid.services.ActionType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryTelemetryCodecTest {
+    private static final Instant TIMESTAMP = Instant.parse("2024-03-01T12:30:15.123456789Z");
+    private static final LocalDateTime LOCAL_TIMESTAMP = LocalDateTime.ofInstant(TIMESTAMP, ZoneId.systemDefault());
+
+    @Test
+    void sensorsRoundTrip() throws IOException {
+        GridState grid = grid(5);
+        SensorFrame frame = new SensorFrame(5);
+        frame.reset(1, BinaryTelemetryCodec.toEpochNanos(TIMESTAMP), 5);
+        double[] loads = {10.0, 10.25, Double.NaN, -0.0, 1e-300};
+        for (int i = 0; i < loads.length; i++) {
+            frame.set(i, loads[i], 230.0 + i, 50.0 - i * 0.01);
+        }
+
+        List<Sensor> sensors = BinaryTelemetryCodec.decodeSensors(
+                new ByteArrayInputStream(encodeSensors(frame, 1, 5, grid)));
+
+        assertEquals(4, sensors.size());
+        for (int i = 1; i < 5; i++) {
+            Sensor sensor = sensors.get(i - 1);
+            assertEquals("SENSOR-NODE-" + i, sensor.getSensorId());
+            assertEquals("NODE-" + i, sensor.getNodeId());
+            assertEquals(LOCAL_TIMESTAMP, sensor.getTimestamp());
+            // Bit-exact, including NaN and negative zero
+            assertEquals(Double.doubleToRawLongBits(loads[i]), Double.doubleToRawLongBits(sensor.getLoadReading()));
+            assertEquals(230.0 + i, sensor.getVoltage());
+            assertEquals(50.0 - i * 0.01, sensor.getFrequency());
+        }
+    }
+
+    @Test
+    void framesKeepTheirTimestampsWhenEncodedTogether() throws IOException {
+        GridState grid = grid(3);
+        SensorFrame first = new SensorFrame(3);
+        first.reset(1, BinaryTelemetryCodec.toEpochNanos(TIMESTAMP), 3);
+        SensorFrame second = new SensorFrame(3);
+        second.reset(2, BinaryTelemetryCodec.toEpochNanos(TIMESTAMP.plusSeconds(5)), 3);
+        for (int i = 0; i < 3; i++) {
+            first.set(i, i, 230.0, 50.0);
+            second.set(i, 10 + i, 231.0, 49.9);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryTelemetryCodec.encodeSensors(new SensorFrame[] {first, second}, new int[] {0, 1}, new int[] {2, 3}, 2,
+                grid, out);
+        List<Sensor> sensors = BinaryTelemetryCodec.decodeSensors(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(4, sensors.size());
+        assertEquals("NODE-0", sensors.get(0).getNodeId());
+        assertEquals(LOCAL_TIMESTAMP, sensors.get(1).getTimestamp());
+        assertEquals("NODE-1", sensors.get(2).getNodeId());
+        assertEquals(LOCAL_TIMESTAMP.plusSeconds(5), sensors.get(2).getTimestamp());
+        assertEquals(12.0, sensors.get(3).getLoadReading());
+        assertEquals(49.9, sensors.get(3).getFrequency());
+    }
+
+    @Test
+    void actionsOfSeveralPassesRoundTrip() throws IOException {
+        GridState grid = grid(4);
+        ActionBuffer first = new ActionBuffer();
+        first.add(0, 3, 2.0, ActionType.LOAD_TRANSFER);
+        ActionBuffer second = new ActionBuffer();
+        second.add(1, 2, 4.0, ActionType.LOAD_TRANSFER);
+        second.add(3, 0, 8.0, ActionType.LOAD_TRANSFER);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryTelemetryCodec.encodeActions(new ActionBuffer[] {first, second}, new int[] {0, 0}, new int[] {1, 2},
+                new long[] {1_000L, 2_000L}, 2, grid, out);
+        ActionBuffer decoded = BinaryTelemetryCodec.decodeActions(new ByteArrayInputStream(out.toByteArray()), grid);
+
+        assertEquals(3, decoded.size());
+        assertEquals(3, decoded.getToNode(0));
+        assertEquals(1, decoded.getFromNode(1));
+        assertEquals(8.0, decoded.getAmount(2));
+    }
+
+    @Test
+    void emptySensorRangeRoundTrips() throws IOException {
+        GridState grid = grid(2);
+        SensorFrame frame = new SensorFrame(2);
+        frame.reset(1, 0, 2);
+
+        List<Sensor> sensors = BinaryTelemetryCodec.decodeSensors(
+                new ByteArrayInputStream(encodeSensors(frame, 1, 1, grid)));
+
+        assertEquals(0, sensors.size());
+    }
+
+    @Test
+    void actionsRoundTrip() throws IOException {
+        GridState grid = grid(6);
+        ActionBuffer actions = new ActionBuffer();
+        actions.add(0, 5, 1.5, ActionType.LOAD_TRANSFER);
+        actions.add(4, 2, 12.75, ActionType.LOAD_TRANSFER);
+        actions.add(5, 0, 12.75, ActionType.LOAD_TRANSFER);
+        actions.add(3, 1, -0.0, ActionType.LOAD_TRANSFER);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryTelemetryCodec.encodeActions(actions, 1, 4, grid, 0, out);
+        ActionBuffer decoded = BinaryTelemetryCodec.decodeActions(new ByteArrayInputStream(out.toByteArray()), grid);
+
+        assertEquals(3, decoded.size());
+        for (int i = 0; i < decoded.size(); i++) {
+            assertEquals(actions.getFromNode(i + 1), decoded.getFromNode(i));
+            assertEquals(actions.getToNode(i + 1), decoded.getToNode(i));
+            assertEquals(Double.doubleToRawLongBits(actions.getAmount(i + 1)),
+                    Double.doubleToRawLongBits(decoded.getAmount(i)));
+            assertEquals(actions.getType(i + 1), decoded.getType(i));
+        }
+    }
+
+    @Test
+    void actionsWithUnknownNodesAreRejected() throws IOException {
+        ActionBuffer actions = new ActionBuffer();
+        actions.add(0, 2, 1.0, ActionType.LOAD_TRANSFER);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryTelemetryCodec.encodeActions(actions, 0, 1, grid(3), 0, out);
+
+        assertThrows(IOException.class, () ->
+                BinaryTelemetryCodec.decodeActions(new ByteArrayInputStream(out.toByteArray()), grid(2)));
+    }
+
+    @Test
+    void wrongRecordKindIsRejected() throws IOException {
+        GridState grid = grid(2);
+        SensorFrame frame = new SensorFrame(2);
+        frame.reset(1, 0, 2);
+        byte[] payload = encodeSensors(frame, 0, 2, grid);
+
+        assertThrows(IOException.class, () ->
+                BinaryTelemetryCodec.decodeActions(new ByteArrayInputStream(payload), grid));
+    }
+
+    @Test
+    void badMagicIsRejected() throws IOException {
+        GridState grid = grid(2);
+        SensorFrame frame = new SensorFrame(2);
+        frame.reset(1, 0, 2);
+        byte[] payload = encodeSensors(frame, 0, 2, grid);
+        payload[0] ^= 0x7f;
+
+        assertThrows(IOException.class, () ->
+                BinaryTelemetryCodec.decodeSensors(new ByteArrayInputStream(payload)));
+    }
+
+    @Test
+    void slowlyVaryingReadingsEncodeCompactly() throws IOException {
+        int nodes = 1000;
+        GridState grid = grid(nodes);
+        SensorFrame first = new SensorFrame(nodes);
+        first.reset(1, BinaryTelemetryCodec.toEpochNanos(TIMESTAMP), nodes);
+        SensorFrame second = new SensorFrame(nodes);
+        second.reset(2, BinaryTelemetryCodec.toEpochNanos(TIMESTAMP.plusSeconds(1)), nodes);
+        for (int i = 0; i < nodes; i++) {
+            first.set(i, 50.0 + (i % 4) * 0.5, 230.0, 50.0);
+            second.set(i, 50.0 + (i % 4) * 0.5, 230.0, 50.0);
+        }
+
+        int ids = 0;
+        for (int i = 0; i < nodes; i++) {
+            ids += 4 + grid.getSensorId(i).length() + grid.getNodeId(i).length();
+        }
+        int once = encodeSensors(first, 0, nodes, grid).length;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryTelemetryCodec.encodeSensors(new SensorFrame[] {first, second}, new int[] {0, 0},
+                new int[] {nodes, nodes}, 2, grid, out);
+
+        // Unchanged voltage and frequency take a byte each, a changed load a few
+        assertTrue(once - ids < 8 * nodes, "bytes per record: " + (double) (once - ids) / nodes);
+        // The second frame of the same nodes adds readings, not ids
+        assertTrue(out.size() - once < 8 * nodes, "second frame bytes: " + (out.size() - once));
+    }
+
+    @Test
+    void truncatedPayloadIsRejected() throws IOException {
+        GridState grid = grid(4);
+        SensorFrame frame = new SensorFrame(4);
+        frame.reset(1, BinaryTelemetryCodec.toEpochNanos(TIMESTAMP), 4);
+        for (int i = 0; i < 4; i++) {
+            frame.set(i, 10.0 + i, 230.0, 50.0);
+        }
+        byte[] payload = encodeSensors(frame, 0, 4, grid);
+        ActionBuffer actions = new ActionBuffer();
+        actions.add(0, 3, 2.5, ActionType.LOAD_TRANSFER);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryTelemetryCodec.encodeActions(actions, 0, 1, grid, 0, out);
+        byte[] actionPayload = out.toByteArray();
+
+        for (int length = 0; length < payload.length; length++) {
+            byte[] truncated = Arrays.copyOf(payload, length);
+            assertThrows(IOException.class, () ->
+                    BinaryTelemetryCodec.decodeSensors(new ByteArrayInputStream(truncated)));
+        }
+        for (int length = 0; length < actionPayload.length; length++) {
+            byte[] truncated = Arrays.copyOf(actionPayload, length);
+            assertThrows(IOException.class, () ->
+                    BinaryTelemetryCodec.decodeActions(new ByteArrayInputStream(truncated), grid));
+        }
+    }
+
+    @Test
+    void epochNanosAreUtcWhateverTheTimeZone() {
+        assertEquals(1_709_296_215_123_456_789L, BinaryTelemetryCodec.toEpochNanos(TIMESTAMP));
+        Instant beforeEpoch = Instant.parse("1969-12-31T23:59:59.999999999Z");
+        assertEquals(-1L, BinaryTelemetryCodec.toEpochNanos(beforeEpoch));
+        assertEquals(LocalDateTime.ofInstant(beforeEpoch, ZoneId.systemDefault()),
+                BinaryTelemetryCodec.fromEpochNanos(-1L));
+        assertEquals(LOCAL_TIMESTAMP, BinaryTelemetryCodec.fromEpochNanos(BinaryTelemetryCodec.toEpochNanos(TIMESTAMP)));
+    }
+
+    private static byte[] encodeSensors(SensorFrame frame, int from, int to, GridState grid) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryTelemetryCodec.encodeSensors(frame, from, to, grid, out);
+        return out.toByteArray();
+    }
+
+    private static GridState grid(int nodes) {
+        GridState grid = new GridState(nodes);
+        for (int i = 0; i < nodes; i++) {
+            grid.addNode("NODE-" + i, "REGION-" + (i % 2), 100.0);
+        }
+        return grid;
+    }
+}
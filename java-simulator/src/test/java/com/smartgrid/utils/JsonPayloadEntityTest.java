@@ -0,0 +1,136 @@
+package com.smartgrid.utils;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.smartgrid.models.GridState;
+import com.smartgrid.models.SensorFrame;
+import com.smartgrid.services.ActionBuffer;
+import com.smartgrid.services.ActionType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JsonPayloadEntityTest {
+    private static final String TIMESTAMP = "2024-03-01T12:30:15";
+
+    @Test
+    void streamsSensorRangeAsJsonArray() throws IOException {
+        GridState grid = grid(4);
+        SensorFrame frame = new SensorFrame(4);
+        frame.reset(1, 0, 4);
+        for (int i = 0; i < 4; i++) {
+            frame.set(i, 10.0 * i, 230.0 + i, 50.0);
+        }
+        JsonPayloadEntity<Void> entity = new JsonPayloadEntity<>(1, 3,
+                (writer, ordinal) -> ApiClient.writeSensor(writer, grid, frame, ordinal, TIMESTAMP), false);
+
+        JsonArray array = parse(write(entity));
+
+        assertEquals(2, array.size());
+        for (int i = 0; i < 2; i++) {
+            JsonObject sensor = array.get(i).getAsJsonObject();
+            int ordinal = i + 1;
+            assertEquals("SENSOR-NODE-" + ordinal, sensor.get("sensorId").getAsString());
+            assertEquals("NODE-" + ordinal, sensor.get("nodeId").getAsString());
+            assertEquals(TIMESTAMP, sensor.get("timestamp").getAsString());
+            assertEquals(10.0 * ordinal, sensor.get("loadReading").getAsDouble());
+            assertEquals(230.0 + ordinal, sensor.get("voltage").getAsDouble());
+            assertEquals(50.0, sensor.get("frequency").getAsDouble());
+        }
+    }
+
+    @Test
+    void streamsActionsAsJsonArray() throws IOException {
+        GridState grid = grid(3);
+        ActionBuffer actions = new ActionBuffer();
+        actions.add(0, 2, 7.5, ActionType.LOAD_TRANSFER);
+        actions.add(1, 0, 0.125, ActionType.LOAD_TRANSFER);
+        JsonPayloadEntity<Void> entity = new JsonPayloadEntity<>(0, actions.size(),
+                (writer, index) -> ApiClient.writeAction(writer, grid, actions, index, TIMESTAMP), false);
+
+        JsonArray array = parse(write(entity));
+
+        assertEquals(2, array.size());
+        for (int i = 0; i < 2; i++) {
+            JsonObject action = array.get(i).getAsJsonObject();
+            assertEquals("NODE-" + actions.getFromNode(i), action.get("fromNodeId").getAsString());
+            assertEquals("NODE-" + actions.getToNode(i), action.get("toNodeId").getAsString());
+            assertEquals(actions.getAmount(i), action.get("amount").getAsDouble());
+            assertEquals("LOAD_TRANSFER", action.get("actionType").getAsString());
+            assertEquals(TIMESTAMP, action.get("timestamp").getAsString());
+        }
+    }
+
+    @Test
+    void streamsRecordList() throws IOException {
+        JsonPayloadEntity<String> entity = new JsonPayloadEntity<>(List.of("a", "b", "c"),
+                (writer, record) -> writer.value(record), false);
+
+        assertEquals("[\"a\",\"b\",\"c\"]", new String(write(entity), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void emptyRangeWritesEmptyArray() throws IOException {
+        JsonPayloadEntity<Void> entity = new JsonPayloadEntity<>(2, 2,
+                (writer, index) -> writer.value(index), false);
+
+        assertEquals("[]", new String(write(entity), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void gzipDecompressesToSameJson() throws IOException {
+        GridState grid = grid(50);
+        SensorFrame frame = new SensorFrame(50);
+        frame.reset(1, 0, 50);
+        for (int i = 0; i < 50; i++) {
+            frame.set(i, i * 1.5, 230.0, 50.0);
+        }
+        JsonPayloadEntity.IndexedRecordWriter writeSensor =
+                (writer, ordinal) -> ApiClient.writeSensor(writer, grid, frame, ordinal, TIMESTAMP);
+        JsonPayloadEntity<Void> plain = new JsonPayloadEntity<>(0, 50, writeSensor, false);
+        JsonPayloadEntity<Void> gzip = new JsonPayloadEntity<>(0, 50, writeSensor, true);
+
+        assertEquals("gzip", gzip.getContentEncoding());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(write(gzip)))) {
+            assertArrayEquals(write(plain), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void entityIsRepeatable() throws IOException {
+        JsonPayloadEntity<Void> entity = new JsonPayloadEntity<>(0, 3,
+                (writer, index) -> writer.value(index), true);
+
+        assertArrayEquals(write(entity), write(entity));
+        try (GZIPInputStream in = new GZIPInputStream(entity.getContent())) {
+            assertEquals("[0,1,2]", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static byte[] write(JsonPayloadEntity<?> entity) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.writeTo(out);
+        return out.toByteArray();
+    }
+
+    private static JsonArray parse(byte[] json) {
+        return JsonParser.parseString(new String(json, StandardCharsets.UTF_8)).getAsJsonArray();
+    }
+
+    private static GridState grid(int nodes) {
+        GridState grid = new GridState(nodes);
+        for (int i = 0; i < nodes; i++) {
+            grid.addNode("NODE-" + i, "REGION-" + (i % 2), 100.0);
+        }
+        return grid;
+    }
+}